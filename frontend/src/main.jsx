@@ -5,6 +5,10 @@ import App from "./App";
 import { QueryClient, QueryClientProvider } from "@tanstack/react-query";
 import { ToastContainer } from "react-toastify";
 import { BrowserRouter } from "react-router"; // Import BrowserRouter
+import { prefetchBootstrap } from "main/utils/bootstrap";
+
+// Start loading system info and the current user before React renders
+prefetchBootstrap();
 
 const queryClient = new QueryClient();
 
@@ -0,0 +1,33 @@
+import axios from "axios";
+
+// main.jsx calls prefetchBootstrap() before the first render, so that
+// useSystemInfo and useCurrentUser can get their first data from a single
+// /api/bootstrap request rather than one request each. After that (e.g. when a
+// query is invalidated) they fetch their own endpoints as usual, and they also
+// do so if the prefetch failed.
+
+let bootstrap = null;
+const taken = new Set();
+
+export function prefetchBootstrap() {
+  taken.clear();
+  bootstrap = axios
+    .get("/api/bootstrap")
+    .then((response) => response.data)
+    .catch(() => null);
+  return bootstrap;
+}
+
+// Returns the prefetched value for key the first time it is asked for,
+// and undefined if there is none.
+export async function takeBootstrap(key) {
+  if (bootstrap == null || taken.has(key)) {
+    return undefined;
+  }
+  taken.add(key);
+  const data = await bootstrap;
+  if (data == null || !(key in data)) {
+    return undefined;
+  }
+  return data[key];
+}
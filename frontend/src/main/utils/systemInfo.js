@@ -1,11 +1,16 @@
 import { useQuery } from "@tanstack/react-query";
 import axios from "axios";
+import { takeBootstrap } from "main/utils/bootstrap";
 
 export function useSystemInfo() {
   return useQuery({
     queryKey: ["systemInfo"],
     queryFn: async () => {
       try {
+        const prefetched = await takeBootstrap("systemInfo");
+        if (prefetched !== undefined) {
+          return prefetched;
+        }
         const response = await axios.get("/api/systemInfo");
         return response.data;
       } catch (e) {
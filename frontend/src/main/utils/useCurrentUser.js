@@ -1,12 +1,17 @@
 import { useQuery } from "@tanstack/react-query";
 import axios from "axios";
+import { takeBootstrap } from "main/utils/bootstrap";
 
 export function useCurrentUser() {
   const queryResults = useQuery({
     queryKey: ["current user"],
     queryFn: async () => {
       try {
-        const response = await axios.get("/api/currentUser");
+        const prefetched = await takeBootstrap("currentUser");
+        const response =
+          prefetched !== undefined
+            ? { data: prefetched }
+            : await axios.get("/api/currentUser");
         if (response.data == null) {
           return { loggedIn: false, root: {} };
         }
@@ -0,0 +1,119 @@
+import { QueryClient, QueryClientProvider } from "@tanstack/react-query";
+import { renderHook, waitFor } from "@testing-library/react";
+import axios from "axios";
+import AxiosMockAdapter from "axios-mock-adapter";
+import { vi } from "vitest";
+
+import { prefetchBootstrap, takeBootstrap } from "main/utils/bootstrap";
+import { useSystemInfo } from "main/utils/systemInfo";
+import { useCurrentUser } from "main/utils/useCurrentUser";
+import { systemInfoFixtures } from "fixtures/systemInfoFixtures";
+import {
+  apiCurrentUserFixtures,
+  currentUserFixtures,
+} from "fixtures/currentUserFixtures";
+
+vi.mock("react-router");
+
+describe("utils/bootstrap tests", () => {
+  let axiosMock;
+  let queryClient;
+
+  const wrapper = ({ children }) => (
+    <QueryClientProvider client={queryClient}>{children}</QueryClientProvider>
+  );
+
+  beforeEach(() => {
+    axiosMock = new AxiosMockAdapter(axios);
+    queryClient = new QueryClient({
+      defaultOptions: { queries: { retry: false } },
+    });
+  });
+
+  afterEach(() => {
+    axiosMock.restore();
+    queryClient.clear();
+  });
+
+  test("takeBootstrap returns undefined when nothing was prefetched", async () => {
+    // a fresh copy of the module, whatever the other tests have prefetched
+    vi.resetModules();
+    const fresh = await import("main/utils/bootstrap");
+
+    expect(await fresh.takeBootstrap("systemInfo")).toBeUndefined();
+    expect(axiosMock.history.get).toEqual([]);
+  });
+
+  test("hooks use the prefetched data instead of their own endpoints", async () => {
+    axiosMock.onGet("/api/bootstrap").reply(200, {
+      systemInfo: systemInfoFixtures.showingBoth,
+      currentUser: apiCurrentUserFixtures.userOnly,
+    });
+    axiosMock.onGet("/api/systemInfo").reply(500);
+    axiosMock.onGet("/api/currentUser").reply(500);
+    await prefetchBootstrap();
+
+    const systemInfo = renderHook(() => useSystemInfo(), { wrapper });
+    const currentUser = renderHook(() => useCurrentUser(), { wrapper });
+
+    await waitFor(() =>
+      expect(systemInfo.result.current.data).toEqual(
+        systemInfoFixtures.showingBoth,
+      ),
+    );
+    await waitFor(() =>
+      expect(currentUser.result.current).toEqual(currentUserFixtures.userOnly),
+    );
+    expect(axiosMock.history.get.map((r) => r.url)).toEqual([
+      "/api/bootstrap",
+    ]);
+
+    // the prefetched data is only used once; after that the hooks fetch as
+    // usual
+    expect(await takeBootstrap("systemInfo")).toBeUndefined();
+    expect(await takeBootstrap("currentUser")).toBeUndefined();
+  });
+
+  test("a logged out user is reported as not logged in", async () => {
+    axiosMock.onGet("/api/bootstrap").reply(200, {
+      systemInfo: systemInfoFixtures.showingNeither,
+      currentUser: null,
+    });
+    await prefetchBootstrap();
+
+    const currentUser = renderHook(() => useCurrentUser(), { wrapper });
+
+    await waitFor(() =>
+      expect(currentUser.result.current).toEqual(
+        currentUserFixtures.notLoggedIn,
+      ),
+    );
+    expect(axiosMock.history.get.map((r) => r.url)).toEqual([
+      "/api/bootstrap",
+    ]);
+  });
+
+  test("hooks fall back to their own endpoints when the prefetch fails", async () => {
+    axiosMock.onGet("/api/bootstrap").reply(500);
+    axiosMock
+      .onGet("/api/systemInfo")
+      .reply(200, systemInfoFixtures.showingNeither);
+    await prefetchBootstrap();
+
+    const systemInfo = renderHook(() => useSystemInfo(), { wrapper });
+
+    await waitFor(() =>
+      expect(systemInfo.result.current.data).toEqual(
+        systemInfoFixtures.showingNeither,
+      ),
+    );
+    expect(await takeBootstrap("currentUser")).toBeUndefined();
+  });
+
+  test("takeBootstrap returns undefined for keys the response does not have", async () => {
+    axiosMock.onGet("/api/bootstrap").reply(200, {});
+    await prefetchBootstrap();
+
+    expect(await takeBootstrap("systemInfo")).toBeUndefined();
+  });
+});
@@ -2,6 +2,33 @@ import { defineConfig } from 'vite'
 import react from '@vitejs/plugin-react-swc'
 import path from 'path';
 import { visualizer } from 'rollup-plugin-visualizer';
+import fs from 'fs';
+import zlib from 'zlib';
+
+// Writes .br and .gz copies of each compressible build file so that the backend can
+// serve them without compressing on the fly (see StaticResourceConfig.java)
+const precompress = () => ({
+  name: 'precompress',
+  apply: 'build',
+  closeBundle() {
+    const walk = (dir) =>
+      fs.readdirSync(dir, { withFileTypes: true }).flatMap((entry) =>
+        entry.isDirectory() ? walk(path.join(dir, entry.name)) : [path.join(dir, entry.name)],
+      );
+    for (const file of walk(path.resolve(__dirname, 'build'))) {
+      if (!/\.(js|css|html|svg|json|txt|map)$/.test(file)) continue;
+      const data = fs.readFileSync(file);
+      if (data.length < 1024) continue; // not worth it for tiny files
+      fs.writeFileSync(`${file}.gz`, zlib.gzipSync(data, { level: 9 }));
+      fs.writeFileSync(
+        `${file}.br`,
+        zlib.brotliCompressSync(data, {
+          params: { [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY },
+        }),
+      );
+    }
+  },
+});
 
 // https://vite.dev/config/
 export default defineConfig({
@@ -11,6 +38,7 @@ export default defineConfig({
       parserPlugins: ['jsx'],
     }),
     process.env.ANALYZE && visualizer({ open: true }), // use `ANALYZE=true npm run build` to analyze the bundle size 
+    precompress(),
   ].filter(Boolean), // .filter(Boolean) removes any falsey values from the array
   build: {
     outDir: 'build', // Changes the output directory from 'dist' to 'build'
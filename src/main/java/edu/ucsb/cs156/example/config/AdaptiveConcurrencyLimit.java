@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.config;
+
+/**
+ * An in-flight request limit that adjusts itself from measured latency, in the style of Netflix's
+ * Gradient2 and Vegas limits.
+ *
+ * <p>Latency samples are averaged over windows of {@code window} requests. Each window's average is
+ * compared with a baseline, the latency seen when requests are not queueing (the lowest window
+ * average, which only rises again in windows where less than half the limit was in use):
+ *
+ * <ul>
+ *   <li>while a window stays within {@link #TOLERANCE} of the baseline the limit grows by about
+ *       sqrt(limit), so it keeps probing for more capacity;
+ *   <li>once requests start queueing behind the real bottleneck latency rises, and the limit is
+ *       scaled down by baseline/latency (at most halved per window).
+ * </ul>
+ *
+ * The limit only changes when at least half of it was in use. Under constant overload the baseline
+ * could never be re-measured, so every {@link #PROBE_WINDOWS} windows one window runs at half the
+ * limit to refresh it.
+ */
+public class AdaptiveConcurrencyLimit {
+  static final double TOLERANCE = 1.5;
+  static final double SMOOTHING = 0.2;
+  static final int BASELINE_WINDOWS = 50;
+  static final int PROBE_WINDOWS = 100;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int window;
+
+  private volatile int limit;
+  private double estimatedLimit;
+  private double baselineRtt;
+  private int windowsSinceProbe;
+  private boolean probing;
+
+  private long sum;
+  private int count;
+  private int peakInflight;
+
+  /**
+   * @param initialLimit the limit to start with
+   * @param minLimit the limit never drops below this
+   * @param maxLimit the limit never grows above this
+   * @param window how many samples are averaged before the limit is adjusted
+   */
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int window) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || window < 1) {
+      throw new IllegalArgumentException(
+          "need 1 <= minLimit <= initialLimit <= maxLimit and window >= 1");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.window = window;
+    this.estimatedLimit = initialLimit;
+    this.limit = initialLimit;
+  }
+
+  /**
+   * The current limit on requests in flight.
+   *
+   * @return the limit
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Record how long a request took.
+   *
+   * @param rttNanos the request's latency
+   * @param inflight how many requests were in flight when it started, including itself
+   */
+  public synchronized void onSample(long rttNanos, int inflight) {
+    sum += rttNanos;
+    count++;
+    peakInflight = Math.max(peakInflight, inflight);
+    if (count < window) {
+      return;
+    }
+    double shortRtt = (double) sum / count;
+    int peak = peakInflight;
+    sum = 0;
+    count = 0;
+    peakInflight = 0;
+    update(shortRtt, peak);
+  }
+
+  private void update(double shortRtt, int inflight) {
+    boolean saturated = inflight >= estimatedLimit / 2;
+    if (baselineRtt == 0 || shortRtt < baselineRtt) {
+      baselineRtt = shortRtt;
+    } else if (!saturated) {
+      // nothing was queueing, so this is a fair sample of unloaded latency
+      baselineRtt += (shortRtt - baselineRtt) / BASELINE_WINDOWS;
+    }
+
+    if (probing) {
+      // at half the limit there is little queueing, so if even this is slower than the baseline the
+      // service itself has become slower (and would otherwise be squeezed down to minLimit)
+      baselineRtt = Math.min(baselineRtt + (shortRtt - baselineRtt) / 2, shortRtt);
+      probing = false;
+      limit = (int) estimatedLimit;
+      return;
+    }
+    if (!saturated) {
+      return;
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRtt / shortRtt));
+    double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+    newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    limit = (int) estimatedLimit;
+
+    // Under constant load the baseline can only fall, so if it started out inflated the limit would
+    // settle too high; now and then run one window at half the limit to re-measure it
+    if (++windowsSinceProbe >= PROBE_WINDOWS) {
+      windowsSinceProbe = 0;
+      probing = true;
+      limit = Math.max(minLimit, limit / 2);
+    }
+  }
+}
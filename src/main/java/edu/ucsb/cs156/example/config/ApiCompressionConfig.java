@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the ApiCompressionFilter for /api/* when {@code app.compression.api.enabled=true}.
+ *
+ * <p>Tomcat's own compression (server.compression.*) stays disabled: it applies to every path and
+ * does not allow the compression level to be chosen. See ApiCompressionBenchmarkIT for the data
+ * behind the defaults.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.compression.api.enabled", havingValue = "true")
+public class ApiCompressionConfig {
+
+  @Value("${app.compression.api.minSize:2048}")
+  private int minSize;
+
+  @Value("${app.compression.api.level:1}")
+  private int level;
+
+  @Value("${app.compression.api.mimeTypes:application/json,text/plain}")
+  private List<String> mimeTypes;
+
+  /**
+   * The registration for the ApiCompressionFilter.
+   *
+   * @return filter registration limited to /api/*
+   */
+  @Bean
+  public FilterRegistrationBean<ApiCompressionFilter> apiCompressionFilter() {
+    Set<String> types = new HashSet<>();
+    mimeTypes.forEach(type -> types.add(type.trim().toLowerCase(Locale.ROOT)));
+
+    FilterRegistrationBean<ApiCompressionFilter> registration =
+        new FilterRegistrationBean<>(new ApiCompressionFilter(minSize, level, types));
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+}
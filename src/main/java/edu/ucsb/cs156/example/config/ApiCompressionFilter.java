@@ -0,0 +1,316 @@
+package edu.ucsb.cs156.example.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Gzip-compresses API responses that are large enough for compression to pay off.
+ *
+ * <p>The first {@code minSize} bytes of each response are held back. If the response ends before
+ * that, it is sent uncompressed with a Content-Length. Otherwise, if the client accepts gzip and
+ * the content type is in the allow-list, the rest of the response is streamed through a gzip stream
+ * at the configured level (1 = fastest, 9 = smallest). Responses that already have a
+ * Content-Encoding are left alone.
+ *
+ * <p>reset() and resetBuffer() discard whatever is held back or compressed so far, as they would
+ * without the filter. A response written with non-blocking I/O (setWriteListener) is sent
+ * uncompressed, unless compression had already started.
+ */
+public class ApiCompressionFilter extends OncePerRequestFilter {
+
+  private final int minSize;
+  private final int level;
+  private final Set<String> mimeTypes;
+
+  /**
+   * Create the filter.
+   *
+   * @param minSize smallest response body (in bytes) that is compressed
+   * @param level gzip compression level, 1 to 9
+   * @param mimeTypes content types (without parameters) that may be compressed
+   */
+  public ApiCompressionFilter(int minSize, int level, Set<String> mimeTypes) {
+    this.minSize = minSize;
+    this.level = level;
+    this.mimeTypes = mimeTypes;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (!acceptsGzip(request) || "HEAD".equals(request.getMethod())) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    CompressingResponse wrapper = new CompressingResponse(response);
+    try {
+      filterChain.doFilter(request, wrapper);
+    } finally {
+      wrapper.finish();
+    }
+  }
+
+  static boolean acceptsGzip(HttpServletRequest request) {
+    String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    return accept != null && accept.toLowerCase(Locale.ROOT).contains("gzip");
+  }
+
+  boolean isCompressible(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    int semicolon = contentType.indexOf(';');
+    String mimeType = semicolon < 0 ? contentType : contentType.substring(0, semicolon);
+    return mimeTypes.contains(mimeType.trim().toLowerCase(Locale.ROOT));
+  }
+
+  private class CompressingResponse extends HttpServletResponseWrapper {
+    private final HttpServletResponse response;
+    private BufferingOutputStream stream;
+    private PrintWriter writer;
+
+    CompressingResponse(HttpServletResponse response) {
+      super(response);
+      this.response = response;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (writer != null) {
+        throw new IllegalStateException("getWriter() has already been called");
+      }
+      if (stream == null) {
+        stream = new BufferingOutputStream(response);
+      }
+      return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        if (stream != null) {
+          throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        stream = new BufferingOutputStream(response);
+        writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+      }
+      return writer;
+    }
+
+    // The length is only known once we decide whether to compress
+    @Override
+    public void setContentLength(int len) {}
+
+    @Override
+    public void setContentLengthLong(long len) {}
+
+    @Override
+    public void setHeader(String name, String value) {
+      if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+        super.setHeader(name, value);
+      }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+        super.addHeader(name, value);
+      }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null) {
+        writer.flush();
+      }
+      if (stream != null && stream.decided()) {
+        super.flushBuffer();
+      }
+    }
+
+    // Once finished, the held back bytes have been sent even if the response is still buffered
+    @Override
+    public boolean isCommitted() {
+      return super.isCommitted() || (stream != null && stream.finished);
+    }
+
+    @Override
+    public void reset() {
+      super.reset();
+      if (stream != null) {
+        stream.discard();
+      }
+      stream = null;
+      writer = null;
+      response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Override
+    public void resetBuffer() {
+      if (writer != null) {
+        writer.flush();
+      }
+      super.resetBuffer();
+      if (stream != null) {
+        try {
+          stream.restart();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+
+    void finish() throws IOException {
+      if (writer != null) {
+        writer.flush();
+      }
+      if (stream != null) {
+        stream.finish();
+      }
+    }
+  }
+
+  private class BufferingOutputStream extends ServletOutputStream {
+    private final HttpServletResponse response;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private OutputStream target;
+    private boolean finished;
+
+    BufferingOutputStream(HttpServletResponse response) {
+      this.response = response;
+    }
+
+    boolean decided() {
+      return target != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (target != null) {
+        target.write(b, off, len);
+        return;
+      }
+      buffer.write(b, off, len);
+      if (buffer.size() >= minSize) {
+        decide();
+      }
+    }
+
+    private void decide() throws IOException {
+      OutputStream out = response.getOutputStream();
+      if (isCompressible(response.getContentType())
+          && !response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        target = new LevelGzipOutputStream(out);
+      } else {
+        target = out;
+      }
+      buffer.writeTo(target);
+      buffer = null;
+    }
+
+    /** Drops what has been written so far; the response's own buffer has been reset. */
+    void restart() throws IOException {
+      if (target == null) {
+        buffer.reset();
+      } else if (target instanceof LevelGzipOutputStream gzip) {
+        gzip.discard();
+        target = new LevelGzipOutputStream(response.getOutputStream());
+      }
+    }
+
+    void discard() {
+      if (target instanceof LevelGzipOutputStream gzip) {
+        gzip.discard();
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // Keep holding back small responses; flushing them would commit the headers
+      if (target != null) {
+        target.flush();
+      }
+    }
+
+    void finish() throws IOException {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      if (target == null) {
+        if (!response.isCommitted()) {
+          response.setContentLength(buffer.size());
+        }
+        buffer.writeTo(response.getOutputStream());
+        buffer = null;
+      } else if (target instanceof GZIPOutputStream gzip) {
+        gzip.finish();
+      }
+      response.getOutputStream().flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      finish();
+    }
+
+    @Override
+    public boolean isReady() {
+      try {
+        return target == null || response.getOutputStream().isReady();
+      } catch (IOException e) {
+        return false;
+      }
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      try {
+        if (target == null) {
+          target = response.getOutputStream();
+          buffer.writeTo(target);
+          buffer = null;
+        }
+        response.getOutputStream().setWriteListener(writeListener);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private class LevelGzipOutputStream extends GZIPOutputStream {
+    LevelGzipOutputStream(OutputStream out) throws IOException {
+      super(out, 8192);
+      def.setLevel(level);
+    }
+
+    /** Frees the deflater without writing anything more. */
+    void discard() {
+      def.end();
+    }
+  }
+}
@@ -0,0 +1,268 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+/**
+ * A SessionRepository that keeps recently used sessions in a short-lived local cache in front of a
+ * shared (e.g. JDBC) repository, so that a burst of requests from the same browser loads the
+ * session's attributes from the database once rather than once per request.
+ *
+ * <p>Each request gets its own copy of the session, so concurrent requests never see each other's
+ * changes before they are saved. Saving applies only the attributes the request changed to the
+ * shared repository's session, so two requests that change different attributes both keep their
+ * change.
+ *
+ * <p>Before a cached session is used, {@code lastSaved} is asked when the session was last saved by
+ * any instance (for JDBC, a primary key lookup of LAST_ACCESS_TIME, much cheaper than loading and
+ * deserializing the attributes). If the session has been deleted (e.g. by a logout on another
+ * instance), it is gone here too; if another instance has saved it since, it is loaded again.
+ *
+ * @param <S> the session type of the underlying repository
+ */
+public class CachingSessionRepository<S extends Session>
+    implements SessionRepository<CachingSessionRepository.CachedSession> {
+
+  /**
+   * A cached session: the shared repository's session, only changed by save() while holding its
+   * lock, and a copy of its state when it was last saved or loaded, which is copied again for each
+   * request.
+   */
+  private record Entry<S>(S session, MapSession snapshot, long expiresAtNanos) {}
+
+  private final SessionRepository<S> delegate;
+  private final Function<String, Instant> lastSaved;
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final Map<String, Entry<S>> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Create a caching repository.
+   *
+   * @param delegate the shared repository that holds the sessions
+   * @param lastSaved returns when a session was last saved to the shared repository by any
+   *     instance, or null if it is not there
+   * @param ttl how long a session may be kept in the local cache
+   * @param maxEntries the most sessions to keep in the local cache
+   */
+  public CachingSessionRepository(
+      SessionRepository<S> delegate,
+      Function<String, Instant> lastSaved,
+      Duration ttl,
+      int maxEntries) {
+    this.delegate = delegate;
+    this.lastSaved = lastSaved;
+    this.ttlNanos = ttl.toNanos();
+    this.maxEntries = maxEntries;
+  }
+
+  @Override
+  public CachedSession createSession() {
+    return new CachedSession(delegate.createSession());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void save(CachedSession copy) {
+    S session = (S) copy.session;
+    MapSession snapshot;
+    synchronized (session) {
+      for (String name : copy.changedAttributes) {
+        Object value = copy.state.getAttribute(name);
+        if (value == null) {
+          session.removeAttribute(name);
+        } else {
+          session.setAttribute(name, value);
+        }
+      }
+      if (copy.lastAccessedTimeChanged) {
+        session.setLastAccessedTime(copy.state.getLastAccessedTime());
+      }
+      if (copy.maxInactiveIntervalChanged) {
+        session.setMaxInactiveInterval(copy.state.getMaxInactiveInterval());
+      }
+      delegate.save(session);
+      snapshot = new MapSession(session);
+    }
+    String previousId = copy.savedId;
+    copy.saved();
+    if (!previousId.equals(snapshot.getId())) {
+      cache.remove(previousId);
+    }
+    remember(session, snapshot);
+  }
+
+  @Override
+  public CachedSession findById(String id) {
+    Entry<S> entry = cache.get(id);
+    if (entry != null) {
+      // the id can change underneath us (e.g. changeSessionId on login), and sessions expire
+      if (entry.expiresAtNanos() - System.nanoTime() > 0
+          && id.equals(entry.snapshot().getId())
+          && !entry.snapshot().isExpired()) {
+        Instant saved = lastSaved.apply(id);
+        if (saved == null) {
+          cache.remove(id, entry);
+          return null;
+        }
+        if (saved.toEpochMilli() == entry.snapshot().getLastAccessedTime().toEpochMilli()) {
+          return new CachedSession(entry.session(), new MapSession(entry.snapshot()));
+        }
+      }
+      cache.remove(id, entry);
+    }
+    S session = delegate.findById(id);
+    if (session == null) {
+      return null;
+    }
+    MapSession snapshot;
+    synchronized (session) {
+      snapshot = new MapSession(session);
+    }
+    remember(session, snapshot);
+    return new CachedSession(session, new MapSession(snapshot));
+  }
+
+  @Override
+  public void deleteById(String id) {
+    cache.remove(id);
+    delegate.deleteById(id);
+  }
+
+  /**
+   * Returns the number of sessions currently held in the local cache.
+   *
+   * @return number of cached sessions
+   */
+  public int cachedCount() {
+    return cache.size();
+  }
+
+  private void remember(S session, MapSession snapshot) {
+    if (ttlNanos <= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (cache.size() >= maxEntries) {
+      cache.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+      if (cache.size() >= maxEntries) {
+        return;
+      }
+    }
+    cache.put(snapshot.getId(), new Entry<>(session, snapshot, now + ttlNanos));
+  }
+
+  /**
+   * One request's copy of a session. It reads and changes its own state, and remembers what it
+   * changed, for save() to apply to the shared repository's session.
+   */
+  public static final class CachedSession implements Session {
+    private final Session session;
+    private final MapSession state;
+    private final Set<String> changedAttributes = new HashSet<>();
+
+    /** The id when the session was loaded or last saved; changeSessionId() changes it. */
+    private String savedId;
+
+    private boolean lastAccessedTimeChanged;
+    private boolean maxInactiveIntervalChanged;
+
+    private CachedSession(Session session, MapSession state) {
+      this.session = session;
+      this.state = state;
+      this.savedId = state.getId();
+    }
+
+    /** A new session, whose attributes and times are all saved. */
+    private CachedSession(Session session) {
+      this(session, new MapSession(session));
+      changedAttributes.addAll(session.getAttributeNames());
+      lastAccessedTimeChanged = true;
+      maxInactiveIntervalChanged = true;
+    }
+
+    private void saved() {
+      savedId = state.getId();
+      changedAttributes.clear();
+      lastAccessedTimeChanged = false;
+      maxInactiveIntervalChanged = false;
+    }
+
+    @Override
+    public String getId() {
+      return state.getId();
+    }
+
+    @Override
+    public String changeSessionId() {
+      String id;
+      synchronized (session) {
+        id = session.changeSessionId();
+      }
+      state.setId(id);
+      return id;
+    }
+
+    @Override
+    public <T> T getAttribute(String attributeName) {
+      return state.getAttribute(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+      return state.getAttributeNames();
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+      state.setAttribute(attributeName, attributeValue);
+      changedAttributes.add(attributeName);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+      state.removeAttribute(attributeName);
+      changedAttributes.add(attributeName);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+      return state.getCreationTime();
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+      state.setLastAccessedTime(lastAccessedTime);
+      lastAccessedTimeChanged = true;
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+      return state.getLastAccessedTime();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+      state.setMaxInactiveInterval(interval);
+      maxInactiveIntervalChanged = true;
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+      return state.getMaxInactiveInterval();
+    }
+
+    @Override
+    public boolean isExpired() {
+      return state.isExpired();
+    }
+  }
+}
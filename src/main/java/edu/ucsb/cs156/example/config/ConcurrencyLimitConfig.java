@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers the ConcurrencyLimitFilter for /api/* when {@code app.concurrency.enabled=true}.
+ *
+ * <p>The filter runs before Spring Security and session loading, so a shed request costs almost
+ * nothing. See ConcurrencyLimitBenchmarkIT for how it behaves at twice the service's capacity.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency.enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+  @Value("${app.concurrency.initialLimit:20}")
+  private int initialLimit;
+
+  @Value("${app.concurrency.minLimit:4}")
+  private int minLimit;
+
+  @Value("${app.concurrency.maxLimit:200}")
+  private int maxLimit;
+
+  @Value("${app.concurrency.window:20}")
+  private int window;
+
+  @Value("${app.concurrency.lowPriority:/api/systemInfo}")
+  private List<String> lowPriority;
+
+  @Value("${app.concurrency.lowPriorityShare:0.5}")
+  private double lowPriorityShare;
+
+  @Value("${app.concurrency.unsampled:}")
+  private List<String> unsampled;
+
+  /**
+   * The registration for the ConcurrencyLimitFilter.
+   *
+   * @param registry where the limiter's metrics are published
+   * @return filter registration limited to /api/*, ahead of every other filter
+   */
+  @Bean
+  public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+      MeterRegistry registry) {
+    AdaptiveConcurrencyLimit limit =
+        new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, window);
+    FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+        new FilterRegistrationBean<>(
+            new ConcurrencyLimitFilter(
+                limit,
+                lowPriority.stream().map(String::trim).toList(),
+                lowPriorityShare,
+                unsampled.stream().map(String::trim).filter(p -> !p.isEmpty()).toList(),
+                registry));
+    registration.addUrlPatterns("/api/*");
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+}
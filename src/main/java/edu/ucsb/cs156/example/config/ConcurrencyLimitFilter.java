@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Sheds /api requests with 503 Service Unavailable once more are in flight than the
+ * AdaptiveConcurrencyLimit allows, instead of letting them queue in Tomcat.
+ *
+ * <p>Routes matching one of the {@code lowPriority} patterns (e.g. /api/systemInfo) are shed first:
+ * they are only admitted while fewer than {@code lowPriorityShare} of the limit are in flight.
+ * Everything else is admitted up to the full limit.
+ *
+ * <p>Routes matching one of the {@code unsampled} patterns (streaming, bulk loads, batches) count
+ * towards the requests in flight, but their latency is not fed to the limit: it depends on how much
+ * they transfer, not on whether requests are queueing, and would otherwise shrink the limit for
+ * everything else.
+ *
+ * <p>Metrics: {@code app.concurrency.limit}, {@code app.concurrency.inflight} and {@code
+ * app.concurrency.rejected} (tagged with priority=low|normal).
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+  private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+  private final AdaptiveConcurrencyLimit limit;
+  private final List<String> lowPriority;
+  private final double lowPriorityShare;
+  private final List<String> unsampled;
+  private final AtomicInteger inflight = new AtomicInteger();
+  private final Counter rejectedLow;
+  private final Counter rejectedNormal;
+
+  public ConcurrencyLimitFilter(
+      AdaptiveConcurrencyLimit limit,
+      List<String> lowPriority,
+      double lowPriorityShare,
+      List<String> unsampled,
+      MeterRegistry registry) {
+    this.limit = limit;
+    this.lowPriority = lowPriority;
+    this.lowPriorityShare = lowPriorityShare;
+    this.unsampled = unsampled;
+    Gauge.builder("app.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+        .description("adaptive limit on /api requests in flight")
+        .register(registry);
+    Gauge.builder("app.concurrency.inflight", inflight, AtomicInteger::get)
+        .description("/api requests in flight")
+        .register(registry);
+    rejectedLow = rejected(registry, "low");
+    rejectedNormal = rejected(registry, "normal");
+  }
+
+  private static Counter rejected(MeterRegistry registry, String priority) {
+    return Counter.builder("app.concurrency.rejected").tag("priority", priority).register(registry);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    // like Spring Security's matchers, without the context path the app is deployed at
+    String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    boolean low = matches(lowPriority, path);
+    int max = limit.getLimit();
+    if (low) {
+      max = Math.max(1, (int) (max * lowPriorityShare));
+    }
+
+    int current = inflight.incrementAndGet();
+    if (current > max) {
+      inflight.decrementAndGet();
+      (low ? rejectedLow : rejectedNormal).increment();
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response
+          .getWriter()
+          .write("{\"type\":\"ServiceUnavailable\",\"message\":\"Server is busy, retry shortly\"}");
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      inflight.decrementAndGet();
+      if (!matches(unsampled, path)) {
+        limit.onSample(System.nanoTime() - start, current);
+      }
+    }
+  }
+
+  private static boolean matches(List<String> patterns, String path) {
+    for (String pattern : patterns) {
+      if (MATCHER.match(pattern, path)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  int getInflight() {
+    return inflight.get();
+  }
+}
@@ -0,0 +1,239 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import edu.ucsb.cs156.example.models.ConnectionBorrower;
+import edu.ucsb.cs156.example.models.ConnectionPoolStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Keeps track of who holds each connection from the Hikari pool, and logs a warning when getting a
+ * connection takes longer than {@code acquireWarn}.
+ *
+ * <p>Each connection handed out by {@link #monitor} is recorded with its borrower until it is
+ * closed (returned to the pool). The borrower is the job running on the thread (see the "job" MDC
+ * key set by JobService), else the controller method handling the current request, else the thread.
+ *
+ * <p>Warnings are logged at most once per {@code alarmInterval}; they give the pool's counts and
+ * the connections that have been held longest, which tells a slow database (few connections in use,
+ * each held a long time by one kind of caller) from an exhausted pool (every connection in use,
+ * many threads waiting).
+ */
+@Slf4j
+public class ConnectionPoolMonitor {
+  /** How many of the longest-held connections a warning lists */
+  private static final int ALARM_BORROWERS = 5;
+
+  private final long acquireWarnNanos;
+  private final long alarmIntervalNanos;
+  private final Set<Borrower> borrowers = ConcurrentHashMap.newKeySet();
+  private final AtomicLong lastAlarm = new AtomicLong(System.nanoTime());
+  private final AtomicLong suppressedAlarms = new AtomicLong();
+  private volatile HikariDataSource pool;
+
+  public ConnectionPoolMonitor(Duration acquireWarn, Duration alarmInterval) {
+    this.acquireWarnNanos = acquireWarn.toNanos();
+    this.alarmIntervalNanos = alarmInterval.toNanos();
+    lastAlarm.addAndGet(-alarmIntervalNanos);
+  }
+
+  /** A connection that has been handed out and not yet closed. */
+  private static final class Borrower {
+    final String owner;
+    final String thread;
+    final long since = System.nanoTime();
+
+    Borrower(String owner, String thread) {
+      this.owner = owner;
+      this.thread = thread;
+    }
+
+    long heldMillis(long now) {
+      return TimeUnit.NANOSECONDS.toMillis(now - since);
+    }
+  }
+
+  /**
+   * Wraps the pool so that every connection taken from it is tracked.
+   *
+   * @param dataSource the pool
+   * @return a DataSource that hands out the pool's connections
+   */
+  public DataSource monitor(HikariDataSource dataSource) {
+    this.pool = dataSource;
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        return borrowed(start, () -> super.getConnection());
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        return borrowed(start, () -> super.getConnection(username, password));
+      }
+    };
+  }
+
+  private interface ConnectionSupplier {
+    Connection get() throws SQLException;
+  }
+
+  private Connection borrowed(long start, ConnectionSupplier supplier) throws SQLException {
+    String owner = currentOwner();
+    Connection connection;
+    try {
+      connection = supplier.get();
+    } catch (SQLException e) {
+      alarm(owner, System.nanoTime() - start, e);
+      throw e;
+    }
+    long waited = System.nanoTime() - start;
+    if (waited >= acquireWarnNanos) {
+      alarm(owner, waited, null);
+    }
+
+    Borrower borrower = new Borrower(owner, Thread.currentThread().getName());
+    borrowers.add(borrower);
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new TrackedConnection(connection, borrower));
+  }
+
+  /** Forwards to the pool's connection, and forgets the borrower once it is closed. */
+  private class TrackedConnection implements InvocationHandler {
+    private final Connection connection;
+    private final Borrower borrower;
+
+    TrackedConnection(Connection connection, Borrower borrower) {
+      this.connection = connection;
+      this.borrower = borrower;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close" -> borrowers.remove(borrower);
+        case "equals" -> {
+          return proxy == args[0];
+        }
+        case "hashCode" -> {
+          return System.identityHashCode(proxy);
+        }
+        default -> {}
+      }
+      try {
+        return method.invoke(connection, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  /**
+   * Describes whoever is asking for a connection on this thread.
+   *
+   * @return e.g. "job 12", "RestaurantsController.allRestaurants" or "GET /api/currentUser"
+   */
+  static String currentOwner() {
+    String job = MDC.get("job");
+    if (job != null) {
+      return "job " + job;
+    }
+    if (RequestContextHolder.getRequestAttributes()
+        instanceof ServletRequestAttributes attributes) {
+      HttpServletRequest request = attributes.getRequest();
+      if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE)
+          instanceof HandlerMethod handler) {
+        return handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+      }
+      return request.getMethod() + " " + request.getRequestURI();
+    }
+    return "thread " + Thread.currentThread().getName();
+  }
+
+  private void alarm(String owner, long waitedNanos, SQLException failure) {
+    long now = System.nanoTime();
+    long last = lastAlarm.get();
+    if (now - last < alarmIntervalNanos || !lastAlarm.compareAndSet(last, now)) {
+      suppressedAlarms.incrementAndGet();
+      return;
+    }
+    ConnectionPoolStatus status = getStatus();
+    String longest =
+        status.getBorrowers().stream()
+            .limit(ALARM_BORROWERS)
+            .map(b -> "%s (%dms, %s)".formatted(b.getOwner(), b.getHeldMillis(), b.getThread()))
+            .collect(Collectors.joining(", "));
+    log.warn(
+        "{} waited {}ms for a database connection{}; pool active={} idle={} pending={} max={};"
+            + " held longest by [{}]; {} similar warnings suppressed",
+        owner,
+        TimeUnit.NANOSECONDS.toMillis(waitedNanos),
+        failure == null ? "" : " and gave up (" + failure.getMessage() + ")",
+        status.getActive(),
+        status.getIdle(),
+        status.getPending(),
+        status.getMax(),
+        longest,
+        suppressedAlarms.getAndSet(0));
+  }
+
+  /**
+   * The pool's counts and current borrowers.
+   *
+   * @return the status, with the borrowers that have held their connection longest first
+   */
+  public ConnectionPoolStatus getStatus() {
+    long now = System.nanoTime();
+    List<ConnectionBorrower> current =
+        borrowers.stream()
+            .sorted(Comparator.comparingLong(b -> b.since))
+            .map(
+                b ->
+                    ConnectionBorrower.builder()
+                        .owner(b.owner)
+                        .thread(b.thread)
+                        .heldMillis(b.heldMillis(now))
+                        .build())
+            .toList();
+    ConnectionPoolStatus.ConnectionPoolStatusBuilder status =
+        ConnectionPoolStatus.builder().borrowers(current);
+    HikariDataSource dataSource = pool;
+    HikariPoolMXBean mxBean = dataSource == null ? null : dataSource.getHikariPoolMXBean();
+    if (mxBean != null) {
+      status
+          .active(mxBean.getActiveConnections())
+          .idle(mxBean.getIdleConnections())
+          .pending(mxBean.getThreadsAwaitingConnection())
+          .total(mxBean.getTotalConnections())
+          .max(dataSource.getMaximumPoolSize());
+    }
+    return status.build();
+  }
+}
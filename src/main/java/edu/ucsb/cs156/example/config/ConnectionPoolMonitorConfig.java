@@ -0,0 +1,69 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Wraps the Hikari DataSource in a ConnectionPoolMonitor when {@code app.db.monitor.enabled=true}.
+ *
+ * <p>The pool's own metrics (hikaricp.connections.active, idle, pending, acquire, usage) are
+ * published by Spring Boot Actuator; the wrapper still unwraps to the HikariDataSource, so they are
+ * unaffected.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.monitor.enabled", havingValue = "true")
+public class ConnectionPoolMonitorConfig {
+
+  @Value("${app.db.monitor.acquireWarnMs:200}")
+  private long acquireWarnMs;
+
+  @Value("${app.db.monitor.alarmIntervalSeconds:10}")
+  private long alarmIntervalSeconds;
+
+  /**
+   * The monitor, shown at /api/admin/connectionpool.
+   *
+   * @return monitor with the configured warning threshold
+   */
+  @Bean
+  public ConnectionPoolMonitor connectionPoolMonitor() {
+    return new ConnectionPoolMonitor(
+        Duration.ofMillis(acquireWarnMs), Duration.ofSeconds(alarmIntervalSeconds));
+  }
+
+  /**
+   * Replaces the HikariDataSource bean with the monitor's wrapper. It runs before other ordered
+   * post processors, which may wrap the DataSource again (see ReplicaRoutingConfig).
+   *
+   * @param monitor looked up only once the DataSource is created
+   * @return post processor for the DataSource
+   */
+  @Bean
+  public static BeanPostProcessor connectionPoolMonitorPostProcessor(
+      ObjectProvider<ConnectionPoolMonitor> monitor) {
+    return new ConnectionPoolMonitorPostProcessor(monitor);
+  }
+
+  private record ConnectionPoolMonitorPostProcessor(ObjectProvider<ConnectionPoolMonitor> monitor)
+      implements BeanPostProcessor, Ordered {
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (bean instanceof HikariDataSource dataSource) {
+        return monitor.getObject().monitor(dataSource);
+      }
+      return bean;
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on Hibernate's second-level (entity) cache and query cache when {@code
+ * app.entitycache.enabled=true}, kept in this instance's memory by Caffeine.
+ *
+ * <p>Entities opt in with {@code @Cache(region = ...)} (Restaurant, UCSBDate and
+ * UCSBDiningCommons), and repository queries with the {@code org.hibernate.cacheable} hint. Saves
+ * and deletes through JPA update the entity regions and invalidate the cached queries on the tables
+ * they touch. Changes made some other way (by another instance of the app, or directly in the
+ * database) are only seen once the entries expire. Reads routed to a read replica bypass both
+ * caches (see ReplicaRoutingConfig).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.entitycache.enabled", havingValue = "true")
+@EnableConfigurationProperties(EntityCacheProperties.class)
+public class EntityCacheConfig {
+  /** The region that holds cached query results */
+  public static final String QUERY_REGION = "queries";
+
+  /** The regions sized and expired according to EntityCacheProperties */
+  public static final List<String> REGIONS =
+      List.of("restaurants", "ucsbdates", "ucsbdiningcommons", QUERY_REGION);
+
+  /**
+   * The caches behind the regions. The region that records when each table last changed is never
+   * bounded or expired, since cached queries are only valid for as long as it remembers.
+   *
+   * @param properties the configured region sizes and time-to-live
+   * @return the JCache cache manager for Hibernate
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager entityCacheManager(EntityCacheProperties properties) {
+    // a URI of its own, so that each application context (e.g. in tests) gets its own caches
+    CacheManager cacheManager =
+        Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(
+                URI.create("entitycache-" + UUID.randomUUID()), getClass().getClassLoader());
+    for (String name : REGIONS) {
+      EntityCacheProperties.Region region = properties.region(name);
+      CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+      configuration.setStoreByValue(false);
+      configuration.setMaximumSize(OptionalLong.of(region.getMaxEntries()));
+      configuration.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+      cacheManager.createCache(name, configuration);
+    }
+    CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+    timestamps.setStoreByValue(false);
+    cacheManager.createCache(
+        RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+    return cacheManager;
+  }
+
+  /**
+   * Hibernate settings that enable the caches.
+   *
+   * @param entityCacheManager the caches
+   * @return customizer for the JPA properties
+   */
+  @Bean
+  public HibernatePropertiesCustomizer entityCacheHibernateProperties(
+      CacheManager entityCacheManager) {
+    return properties -> {
+      properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+      properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+      properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+      properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+      properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+    };
+  }
+}
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Sizes and time-to-live of the Hibernate cache regions, bound from {@code app.entitycache.*}.
+ *
+ * <p>{@code defaults} applies to every region; {@code regions} overrides it for particular ones,
+ * e.g.
+ *
+ * <pre>
+ * app.entitycache.regions.ucsbdates.maxEntries=50000
+ * app.entitycache.regions.queries.ttl=1m
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "app.entitycache")
+public class EntityCacheProperties {
+  private Region defaults = new Region(10000L, Duration.ofMinutes(10));
+
+  private Map<String, Region> regions = new HashMap<>();
+
+  /** At most {@code maxEntries} entries, each kept for at most {@code ttl} after it is written */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Region {
+    private Long maxEntries;
+    private Duration ttl;
+  }
+
+  /**
+   * The settings for one region, falling back to the defaults for any that are not set.
+   *
+   * @param name the region name
+   * @return the region's settings
+   */
+  public Region region(String name) {
+    Region region = regions.getOrDefault(name, new Region());
+    return new Region(
+        region.getMaxEntries() != null ? region.getMaxEntries() : defaults.getMaxEntries(),
+        region.getTtl() != null ? region.getTtl() : defaults.getTtl());
+  }
+}
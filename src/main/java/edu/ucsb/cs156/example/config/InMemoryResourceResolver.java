@@ -0,0 +1,187 @@
+package edu.ucsb.cs156.example.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+/**
+ * A ResourceResolver that keeps the bytes of resolved static resources in memory, together with a
+ * precomputed strong ETag, so that hot assets are served without touching the jar or file system.
+ *
+ * <p>It sits in front of an EncodedResourceResolver, so each path is cached once per encoding that
+ * the browser accepts (br, gzip or identity). How much it may keep is set by a {@link Budget},
+ * which can be shared by several resolvers so that together they stay within one limit.
+ */
+@Slf4j
+public class InMemoryResourceResolver extends AbstractResourceResolver {
+
+  /**
+   * The bytes that the resolvers sharing it may keep in memory. Files larger than {@code
+   * maxFileBytes} are never cached, and nothing more is cached once {@code maxTotalBytes} is
+   * reached.
+   */
+  public static class Budget {
+    private final long maxFileBytes;
+    private final long maxTotalBytes;
+    private long usedBytes;
+
+    /**
+     * Create a budget.
+     *
+     * @param maxFileBytes largest single resource to cache
+     * @param maxTotalBytes most bytes to cache across all resources
+     */
+    public Budget(long maxFileBytes, long maxTotalBytes) {
+      this.maxFileBytes = maxFileBytes;
+      this.maxTotalBytes = maxTotalBytes;
+    }
+
+    synchronized boolean reserve(long bytes) {
+      if (bytes > maxFileBytes || usedBytes + bytes > maxTotalBytes) {
+        return false;
+      }
+      usedBytes += bytes;
+      return true;
+    }
+
+    synchronized void release(long bytes) {
+      usedBytes -= bytes;
+    }
+
+    /**
+     * Returns the bytes cached so far by the resolvers sharing this budget.
+     *
+     * @return cached bytes
+     */
+    public synchronized long usedBytes() {
+      return usedBytes;
+    }
+  }
+
+  private final Budget budget;
+  private final Map<String, CachedResource> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Create a resolver.
+   *
+   * @param budget how much it may cache, shared with any other resolvers given the same budget
+   */
+  public InMemoryResourceResolver(Budget budget) {
+    this.budget = budget;
+  }
+
+  @Override
+  protected Resource resolveResourceInternal(
+      @Nullable HttpServletRequest request,
+      String requestPath,
+      List<? extends Resource> locations,
+      ResourceResolverChain chain) {
+    String key = requestPath + "|" + acceptedCodings(request);
+    CachedResource cached = cache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    Resource resource = chain.resolveResource(request, requestPath, locations);
+    if (resource == null) {
+      return null;
+    }
+    try {
+      long length = resource.contentLength();
+      if (!budget.reserve(length)) {
+        return resource;
+      }
+      CachedResource loaded;
+      try {
+        loaded = new CachedResource(resource);
+      } catch (IOException e) {
+        budget.release(length);
+        throw e;
+      }
+      CachedResource previous = cache.putIfAbsent(key, loaded);
+      if (previous != null) {
+        budget.release(length);
+        return previous;
+      }
+      return loaded;
+    } catch (IOException e) {
+      log.warn("Could not cache static resource {}", requestPath, e);
+      return resource;
+    }
+  }
+
+  @Override
+  protected String resolveUrlPathInternal(
+      String resourceUrlPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+    return chain.resolveUrlPath(resourceUrlPath, locations);
+  }
+
+  /**
+   * Returns the ETag precomputed for a resource returned by this resolver, for use as the
+   * ResourceHttpRequestHandler's ETag generator.
+   *
+   * @param resource a resolved resource
+   * @return the ETag, or null if the resource was not cached
+   */
+  public static String etag(Resource resource) {
+    return resource instanceof CachedResource cached ? cached.etag : null;
+  }
+
+  // Mirrors the codings that EncodedResourceResolver can choose between
+  static String acceptedCodings(@Nullable HttpServletRequest request) {
+    String header = request == null ? null : request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (header == null) {
+      return "";
+    }
+    header = header.toLowerCase();
+    return (header.contains("br") ? "br," : "") + (header.contains("gzip") ? "gzip" : "");
+  }
+
+  /** An in-memory copy of a resolved resource, including any headers it carried. */
+  static class CachedResource extends ByteArrayResource implements HttpResource {
+    private final String filename;
+    private final long lastModified;
+    private final String etag;
+    private final HttpHeaders headers = new HttpHeaders();
+
+    CachedResource(Resource original) throws IOException {
+      super(StreamUtils.copyToByteArray(original.getInputStream()), original.getDescription());
+      this.filename = original.getFilename();
+      this.lastModified = original.lastModified();
+      this.etag = "\"" + DigestUtils.md5DigestAsHex(getByteArray()) + "\"";
+      if (original instanceof HttpResource httpResource) {
+        headers.putAll(httpResource.getResponseHeaders());
+      }
+      if (!headers.containsKey(HttpHeaders.VARY)) {
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+      }
+    }
+
+    @Override
+    public String getFilename() {
+      return filename;
+    }
+
+    @Override
+    public long lastModified() {
+      return lastModified;
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders() {
+      return headers;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.Session;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores HTTP sessions (OAuth2 login state and the SecurityContext) in the SPRING_SESSION tables of
+ * the application database instead of in Tomcat's memory, so that any instance behind the load
+ * balancer can serve any request and restarts do not log users out.
+ *
+ * <p>This is only enabled when {@code app.session.store=jdbc}; by default sessions stay in memory.
+ * The tables are created by the Liquibase changeset in changes/SpringSession.json.
+ */
+@Slf4j
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc")
+public class JdbcSessionConfig {
+
+  @Value("${server.servlet.session.timeout:30m}")
+  private Duration sessionTimeout;
+
+  @Value("${app.session.cacheTtl:2s}")
+  private Duration cacheTtl;
+
+  @Value("${app.session.cacheMaxEntries:10000}")
+  private int cacheMaxEntries;
+
+  private JdbcIndexedSessionRepository jdbcSessionRepository;
+
+  /**
+   * The session repository used by Spring Session's SessionRepositoryFilter.
+   *
+   * @param dataSource the application datasource
+   * @param transactionManager the application transaction manager
+   * @return a JDBC session repository fronted by a short-lived local cache
+   */
+  @Bean
+  public CachingSessionRepository<? extends Session> sessionRepository(
+      DataSource dataSource, PlatformTransactionManager transactionManager) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcSessionRepository = new JdbcIndexedSessionRepository(jdbcTemplate, transactionTemplate);
+    jdbcSessionRepository.setDefaultMaxInactiveInterval(sessionTimeout);
+
+    log.info("Using JDBC session store with a {} local cache", cacheTtl);
+    return new CachingSessionRepository<>(
+        jdbcSessionRepository, id -> lastSaved(jdbcTemplate, id), cacheTtl, cacheMaxEntries);
+  }
+
+  /**
+   * When a session was last saved by any instance: the primary key lookup that
+   * CachingSessionRepository makes before it uses a cached session.
+   *
+   * @param jdbcTemplate template for the application datasource
+   * @param id the session id
+   * @return the session's LAST_ACCESS_TIME, or null if it has been deleted
+   */
+  static Instant lastSaved(JdbcTemplate jdbcTemplate, String id) {
+    return jdbcTemplate.query(
+        "SELECT LAST_ACCESS_TIME FROM SPRING_SESSION WHERE SESSION_ID = ?",
+        rows -> rows.next() ? Instant.ofEpochMilli(rows.getLong(1)) : null,
+        id);
+  }
+
+  /** Remove expired sessions from the database once a minute. */
+  @Scheduled(cron = "${app.session.cleanupCron:0 * * * * *}")
+  public void cleanUpExpiredSessions() {
+    jdbcSessionRepository.cleanUpExpiredSessions();
+  }
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.YearMonth;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Maintains the monthly partitions of the jobs table (see JobPartitions) at startup and then daily,
+ * when {@code app.jobs.partitions.enabled=true}. This is only for Postgres, and is enabled in the
+ * production profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.jobs.partitions.enabled", havingValue = "true")
+public class JobPartitionConfig {
+
+  @Value("${app.jobs.partitions.monthsAhead:3}")
+  private int monthsAhead;
+
+  @Value("${app.jobs.partitions.retentionMonths:0}")
+  private int retentionMonths;
+
+  private JobPartitions jobPartitions;
+
+  /**
+   * The partitions of the jobs table.
+   *
+   * @param dataSource the application datasource
+   * @return partitions kept with the configured months ahead and retention
+   */
+  @Bean
+  public JobPartitions jobPartitions(DataSource dataSource) {
+    jobPartitions = new JobPartitions(new JdbcTemplate(dataSource), monthsAhead, retentionMonths);
+    return jobPartitions;
+  }
+
+  /** Create missing partitions and drop expired ones, at startup and then once a day. */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${app.jobs.partitions.cron:0 0 3 * * *}")
+  public void maintainJobPartitions() {
+    jobPartitions.maintain(YearMonth.now());
+  }
+}
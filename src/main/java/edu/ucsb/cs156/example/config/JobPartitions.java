@@ -0,0 +1,113 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Keeps the monthly partitions of the Postgres {@code jobs} table, which the Liquibase changeset in
+ * changes/JobsPartitioned.json range-partitions by {@code created_at}. Partition jobs_p202501 holds
+ * the jobs created in January 2025.
+ *
+ * <ul>
+ *   <li>Partitions are created {@code monthsAhead} months in advance: a job whose month has no
+ *       partition cannot be inserted.
+ *   <li>When {@code retentionMonths} is more than 0, partitions of months before the last {@code
+ *       retentionMonths} are dropped. Dropping a partition removes a month of jobs without deleting
+ *       (and vacuuming) them one row at a time, so it takes the same time however many jobs it
+ *       held.
+ * </ul>
+ */
+@Slf4j
+public class JobPartitions {
+  private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'jobs_p'yyyyMM");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int monthsAhead;
+  private final int retentionMonths;
+
+  public JobPartitions(JdbcTemplate jdbcTemplate, int monthsAhead, int retentionMonths) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.monthsAhead = monthsAhead;
+    this.retentionMonths = retentionMonths;
+  }
+
+  /**
+   * This method returns whether the jobs table is partitioned; it is not on H2, or before the
+   * changeset has run.
+   *
+   * @return true if jobs is a partitioned table
+   */
+  public boolean isPartitioned() {
+    Integer tables =
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid"
+                + " WHERE c.relname = 'jobs'",
+            Integer.class);
+    return tables != null && tables > 0;
+  }
+
+  /**
+   * This method returns the months that have a partition.
+   *
+   * @return the months, in order
+   */
+  public SortedSet<YearMonth> months() {
+    SortedSet<YearMonth> months = new TreeSet<>();
+    for (String name :
+        jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                + " JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'jobs'",
+            String.class)) {
+      try {
+        months.add(YearMonth.parse(name, NAME));
+      } catch (DateTimeParseException e) {
+        log.warn("jobs has a partition {} that is not named for a month; leaving it alone", name);
+      }
+    }
+    return months;
+  }
+
+  /**
+   * This method creates the partitions from this month to {@code monthsAhead} months ahead that do
+   * not exist yet, and drops those older than {@code retentionMonths}.
+   *
+   * @param current this month
+   * @return the months whose partitions were dropped
+   */
+  public List<YearMonth> maintain(YearMonth current) {
+    if (!isPartitioned()) {
+      log.warn("jobs is not a partitioned table; not maintaining its partitions");
+      return List.of();
+    }
+    SortedSet<YearMonth> existing = months();
+
+    for (YearMonth month = current;
+        !month.isAfter(current.plusMonths(monthsAhead));
+        month = month.plusMonths(1)) {
+      if (!existing.contains(month)) {
+        jdbcTemplate.execute(
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF jobs FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(month.format(NAME), month.atDay(1), month.plusMonths(1).atDay(1)));
+        log.info("Created jobs partition {}", month.format(NAME));
+      }
+    }
+
+    List<YearMonth> dropped = new ArrayList<>();
+    if (retentionMonths > 0) {
+      YearMonth oldestKept = current.minusMonths(retentionMonths);
+      for (YearMonth month : existing.headSet(oldestKept)) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS %s".formatted(month.format(NAME)));
+        log.info("Dropped jobs partition {}", month.format(NAME));
+        dropped.add(month);
+      }
+    }
+    return dropped;
+  }
+}
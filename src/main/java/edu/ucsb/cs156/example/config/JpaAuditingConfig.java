@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * Fills in {@code @CreatedDate} and {@code @LastModifiedDate} attributes (a job's createdAt and
+ * updatedAt) when entities are saved. The jobs table is partitioned by created_at on Postgres (see
+ * JobPartitions), so every job needs one.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  /**
+   * The time used for audit dates. Spring Data's default is a LocalDateTime, which it cannot
+   * convert to the ZonedDateTime of Job's attributes.
+   *
+   * @return provider of the current time in the default time zone
+   */
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
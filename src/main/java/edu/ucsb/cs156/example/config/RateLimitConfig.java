@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * Registers the RateLimitInterceptor for /api/** when {@code app.ratelimit.enabled=true}.
+ *
+ * <p>A MappedInterceptor bean is picked up by every handler mapping, so no WebMvcConfigurer is
+ * needed (which also keeps the limiter out of the @WebMvcTest controller tests).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.ratelimit.enabled", havingValue = "true")
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+  /**
+   * The rate limiter.
+   *
+   * @param properties the configured limits
+   * @param registry where the limiter's metrics are published
+   * @return the interceptor
+   */
+  @Bean
+  public RateLimitInterceptor rateLimitInterceptor(
+      RateLimitProperties properties, MeterRegistry registry) {
+    return new RateLimitInterceptor(properties, registry, System::nanoTime);
+  }
+
+  /**
+   * Applies the rate limiter to all requests under /api.
+   *
+   * @param rateLimitInterceptor the rate limiter
+   * @return the interceptor, mapped to /api/**
+   */
+  @Bean
+  public MappedInterceptor rateLimitMapping(RateLimitInterceptor rateLimitInterceptor) {
+    return new MappedInterceptor(new String[] {"/api/**"}, rateLimitInterceptor);
+  }
+}
@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Rejects write requests with 429 Too Many Requests once the current user has used up their token
+ * bucket for that route.
+ *
+ * <p>Each (user, method + handler path) pair gets its own TokenBucket, so one user hammering one
+ * endpoint does not affect other users or other endpoints. Requests without a logged in user are
+ * keyed by remote address. Buckets that have refilled completely are dropped by {@link
+ * #evictIdle()}.
+ *
+ * <p>Metrics: {@code app.ratelimit.requests} (tagged with route and outcome=allowed|rejected),
+ * {@code app.ratelimit.buckets} (buckets in memory) and {@code app.ratelimit.exhausted} (buckets
+ * with no tokens left, i.e. users currently being throttled).
+ */
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+  static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+  private record BucketKey(String route, String user) {}
+
+  private record Route(RateLimitProperties.Limit limit, Counter allowed, Counter rejected) {}
+
+  private final RateLimitProperties properties;
+  private final MeterRegistry registry;
+  private final LongSupplier clock;
+
+  private final Map<String, Route> routes = new ConcurrentHashMap<>();
+  private final Map<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+  public RateLimitInterceptor(
+      RateLimitProperties properties, MeterRegistry registry, LongSupplier clock) {
+    this.properties = properties;
+    this.registry = registry;
+    this.clock = clock;
+    Gauge.builder("app.ratelimit.buckets", buckets, Map::size)
+        .description("token buckets currently held in memory")
+        .register(registry);
+    Gauge.builder("app.ratelimit.exhausted", this, RateLimitInterceptor::exhausted)
+        .description("token buckets with no tokens left")
+        .register(registry);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws IOException {
+    if (!WRITE_METHODS.contains(request.getMethod())) {
+      return true;
+    }
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String path = pattern != null ? pattern.toString() : request.getRequestURI();
+    String name = request.getMethod() + " " + path;
+    Route route = routes.computeIfAbsent(name, n -> route(n, path));
+
+    long now = clock.getAsLong();
+    long[] wait = new long[1];
+    // takes the token while holding the entry, so evictIdle cannot drop the bucket meanwhile
+    buckets.compute(
+        new BucketKey(name, user(request)),
+        (key, bucket) -> {
+          if (bucket == null) {
+            bucket =
+                new TokenBucket(route.limit().getCapacity(), route.limit().getPerSecond(), now);
+          }
+          wait[0] = bucket.tryAcquire(now);
+          return bucket;
+        });
+    if (wait[0] == 0) {
+      route.allowed().increment();
+      return true;
+    }
+
+    route.rejected().increment();
+    long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait[0] + 999_999_999L));
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response
+        .getWriter()
+        .write(
+            "{\"type\":\"TooManyRequests\",\"message\":\"Rate limit exceeded, retry in %d seconds\"}"
+                .formatted(retryAfter));
+    return false;
+  }
+
+  /** Forget buckets that have refilled completely; a new request will simply create a full one */
+  @Scheduled(fixedDelayString = "${app.ratelimit.evictMs:60000}")
+  public void evictIdle() {
+    long now = clock.getAsLong();
+    for (BucketKey key : buckets.keySet()) {
+      // checked again while holding the entry, in case a request has just taken a token
+      buckets.computeIfPresent(key, (k, bucket) -> bucket.isFull(now) ? null : bucket);
+    }
+  }
+
+  int exhausted() {
+    long now = clock.getAsLong();
+    return (int) buckets.values().stream().filter(b -> b.available(now) == 0).count();
+  }
+
+  private Route route(String name, String path) {
+    RateLimitProperties.Limit limit =
+        properties.getRoutes().getOrDefault(path, properties.getWrites());
+    log.info(
+        "Rate limit for {}: {} requests, refilled at {}/s",
+        name,
+        limit.getCapacity(),
+        limit.getPerSecond());
+    return new Route(limit, counter(name, "allowed"), counter(name, "rejected"));
+  }
+
+  private Counter counter(String route, String outcome) {
+    return Counter.builder("app.ratelimit.requests")
+        .tag("route", route)
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  private static String user(HttpServletRequest request) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null
+        || !authentication.isAuthenticated()
+        || authentication instanceof AnonymousAuthenticationToken) {
+      return "anonymous:" + request.getRemoteAddr();
+    }
+    return authentication.getName();
+  }
+}
@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Limits for the RateLimitInterceptor, bound from {@code app.ratelimit.*}.
+ *
+ * <p>{@code writes} applies to every POST, PUT, PATCH and DELETE under /api. {@code routes}
+ * overrides it for particular handler paths, e.g.
+ *
+ * <pre>
+ * app.ratelimit.routes[/api/jobs/launch/testjob].capacity=3
+ * app.ratelimit.routes[/api/jobs/launch/testjob].per-second=0.1
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "app.ratelimit")
+public class RateLimitProperties {
+  private Limit writes = new Limit(20, 5);
+
+  private Map<String, Limit> routes = new HashMap<>();
+
+  /** A bucket of {@code capacity} tokens, refilled at {@code perSecond} */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Limit {
+    private int capacity;
+    private double perSecond;
+  }
+}
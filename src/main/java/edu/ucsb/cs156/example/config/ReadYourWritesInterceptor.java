@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Keeps reads on the primary database during a write request and, for the rest of the session, for
+ * {@code pinAfterWrite} after it, so that users see their own changes even while the read replica
+ * catches up (see ReplicaRouter).
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+  private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+  private final long pinAfterWriteMillis;
+
+  public ReadYourWritesInterceptor(Duration pinAfterWrite) {
+    this.pinAfterWriteMillis = pinAfterWrite.toMillis();
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (!READ_METHODS.contains(request.getMethod())) {
+      Long until = System.currentTimeMillis() + pinAfterWriteMillis;
+      request.setAttribute(ReplicaRouter.PRIMARY_UNTIL, until);
+      HttpSession session = request.getSession(false);
+      if (session != null) {
+        session.setAttribute(ReplicaRouter.PRIMARY_UNTIL, until);
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,214 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Decides whether a read-only transaction may run on the read replica, and owns the replica's
+ * connection pool.
+ *
+ * <p>A read goes to the replica unless
+ *
+ * <ul>
+ *   <li>the replica is more than {@code maxLag} behind the primary, or its lag could not be read
+ *       (the lag query runs at most once per {@code lagCheckInterval}), or
+ *   <li>the current request, or an earlier one in the same session, was a write less than {@code
+ *       pinAfterWrite} ago (see ReadYourWritesInterceptor), so that users see their own changes.
+ * </ul>
+ *
+ * <p>A read-only transaction that goes through the EntityManager has this decided when it begins
+ * ({@link #beginReadOnly}), before it has a connection, so that one bound for the replica can
+ * bypass the entity and query caches (see ReplicaRoutingConfig). The connection itself is only
+ * fetched, and the read counted, if the transaction runs a statement.
+ *
+ * <p>Metrics: {@code app.db.replica.lag} (seconds, NaN while unknown) and {@code
+ * app.db.replica.reads} (tagged with target=replica|primary and reason=ok|lag|pinned).
+ */
+@Slf4j
+public class ReplicaRouter implements AutoCloseable {
+  /** Request and session attribute: epoch millis until which reads stay on the primary */
+  public static final String PRIMARY_UNTIL = ReplicaRouter.class.getName() + ".PRIMARY_UNTIL";
+
+  private final HikariDataSource replica;
+  private final String lagQuery;
+  private final double maxLagSeconds;
+  private final long lagCheckNanos;
+  private final AtomicBoolean checking = new AtomicBoolean();
+  private final ThreadLocal<Route> transactionRoute = new ThreadLocal<>();
+  private volatile double lagSeconds = Double.NaN;
+  private volatile long lastCheck;
+  private volatile boolean checked;
+  private final Route replicaReads;
+  private final Route laggingReads;
+  private final Route pinnedReads;
+
+  /** Where a read goes, and the counter for reads that went there for that reason */
+  private record Route(boolean replica, Counter reads) {}
+
+  public ReplicaRouter(
+      HikariDataSource replica,
+      String lagQuery,
+      Duration maxLag,
+      Duration lagCheckInterval,
+      MeterRegistry registry) {
+    this.replica = replica;
+    this.lagQuery = lagQuery;
+    this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+    this.lagCheckNanos = lagCheckInterval.toNanos();
+    Gauge.builder("app.db.replica.lag", this, r -> r.lagSeconds)
+        .description("how far the read replica was behind the primary at the last check")
+        .baseUnit("seconds")
+        .register(registry);
+    replicaReads = route(registry, "replica", "ok");
+    laggingReads = route(registry, "primary", "lag");
+    pinnedReads = route(registry, "primary", "pinned");
+  }
+
+  private static Route route(MeterRegistry registry, String target, String reason) {
+    Counter reads =
+        Counter.builder("app.db.replica.reads")
+            .tag("target", target)
+            .tag("reason", reason)
+            .register(registry);
+    return new Route(target.equals("replica"), reads);
+  }
+
+  /**
+   * The DataSource for read-only transactions: each connection comes from the replica or, when
+   * {@link #beginReadOnly} decided otherwise for this transaction (or {@link #useReplica} says no,
+   * outside one), from the primary.
+   *
+   * @param primary the primary DataSource
+   * @return DataSource to use as LazyConnectionDataSourceProxy's readOnlyDataSource
+   */
+  public DataSource readOnlyDataSource(DataSource primary) {
+    return new DelegatingDataSource(primary) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return fromReplica() ? replica.getConnection() : super.getConnection();
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return fromReplica()
+            ? replica.getConnection(username, password)
+            : super.getConnection(username, password);
+      }
+    };
+  }
+
+  private boolean fromReplica() {
+    Route route = transactionRoute.get();
+    if (route == null) {
+      route = route();
+    }
+    route.reads().increment();
+    return route.replica();
+  }
+
+  /**
+   * Decides where the read-only transaction beginning on this thread reads from, without fetching a
+   * connection. Connections that {@link #readOnlyDataSource} gives it follow the decision until
+   * {@link #endTransaction}.
+   *
+   * @return true if it reads from the replica
+   */
+  public boolean beginReadOnly() {
+    Route route = route();
+    transactionRoute.set(route);
+    return route.replica();
+  }
+
+  /** Forgets the decision made by {@link #beginReadOnly}, once the transaction is over. */
+  public void endTransaction() {
+    transactionRoute.remove();
+  }
+
+  /**
+   * Whether a read-only transaction starting now on this thread may use the replica.
+   *
+   * @return true to read from the replica, false to read from the primary
+   */
+  public boolean useReplica() {
+    Route route = route();
+    route.reads().increment();
+    return route.replica();
+  }
+
+  private Route route() {
+    if (pinnedToPrimary()) {
+      return pinnedReads;
+    }
+    refreshLag();
+    return lagSeconds <= maxLagSeconds ? replicaReads : laggingReads;
+  }
+
+  private static boolean pinnedToPrimary() {
+    if (!(RequestContextHolder.getRequestAttributes()
+        instanceof ServletRequestAttributes attributes)) {
+      return false;
+    }
+    HttpServletRequest request = attributes.getRequest();
+    if (request.getAttribute(PRIMARY_UNTIL) != null) {
+      return true; // this request is a write
+    }
+    HttpSession session = request.getSession(false);
+    return session != null
+        && session.getAttribute(PRIMARY_UNTIL) instanceof Long until
+        && until > System.currentTimeMillis();
+  }
+
+  private void refreshLag() {
+    long now = System.nanoTime();
+    if ((checked && now - lastCheck < lagCheckNanos) || !checking.compareAndSet(false, true)) {
+      return; // another thread is checking; use the last value meanwhile
+    }
+    try {
+      double previous = lagSeconds;
+      lagSeconds = readLag();
+      if (Double.isNaN(previous) != Double.isNaN(lagSeconds)
+          || (previous <= maxLagSeconds) != (lagSeconds <= maxLagSeconds)) {
+        log.info(
+            "read replica lag is {}s (max {}s): reads go to the {}",
+            lagSeconds,
+            maxLagSeconds,
+            lagSeconds <= maxLagSeconds ? "replica" : "primary");
+      }
+    } finally {
+      lastCheck = System.nanoTime();
+      checked = true;
+      checking.set(false);
+    }
+  }
+
+  private double readLag() {
+    try (Connection connection = replica.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet result = statement.executeQuery(lagQuery)) {
+      return result.next() ? result.getDouble(1) : Double.NaN;
+    } catch (SQLException e) {
+      log.warn("could not read the read replica's lag: {}", e.getMessage());
+      return Double.NaN;
+    }
+  }
+
+  @Override
+  public void close() {
+    replica.close();
+  }
+}
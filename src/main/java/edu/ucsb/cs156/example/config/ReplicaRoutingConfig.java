@@ -0,0 +1,208 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * Sends read-only transactions ({@code @Transactional(readOnly = true)}, which includes the find
+ * methods of every Spring Data repository) to a read replica when {@code
+ * app.db.replica.enabled=true}. Everything else, including the reads of a write request, stays on
+ * the primary. See docs/read-replica.md.
+ *
+ * <p>The DataSource bean is wrapped in a LazyConnectionDataSourceProxy, which only fetches a real
+ * connection once the transaction has marked it read-only, and then takes it from the replica (or
+ * the primary, when ReplicaRouter says so).
+ *
+ * <p>ReplicaAwareJpaDialect has ReplicaRouter decide where each read-only transaction reads from as
+ * it begins, and has one bound for the replica bypass the entity and query caches (see
+ * EntityCacheConfig). Otherwise rows read from a replica that has not caught up would be cached,
+ * and served after the replica had caught up, even to a session that has just written and is pinned
+ * to the primary. Cached entries all come from the primary instead, and a read-only transaction
+ * bound for the primary that the caches can answer fetches no connection at all.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+  @Value("${app.db.replica.url}")
+  private String url;
+
+  @Value("${app.db.replica.username:}")
+  private String username;
+
+  @Value("${app.db.replica.password:}")
+  private String password;
+
+  @Value("${app.db.replica.poolSize:10}")
+  private int poolSize;
+
+  @Value("${app.db.replica.connectionTimeoutMs:1000}")
+  private long connectionTimeoutMs;
+
+  @Value("${app.db.replica.lagQuery}")
+  private String lagQuery;
+
+  @Value("${app.db.replica.maxLagSeconds:5}")
+  private long maxLagSeconds;
+
+  @Value("${app.db.replica.lagCheckMs:1000}")
+  private long lagCheckMs;
+
+  @Value("${app.db.replica.pinAfterWriteSeconds:5}")
+  private long pinAfterWriteSeconds;
+
+  /**
+   * The replica's connection pool and the rules for using it. The pool is not a DataSource bean, so
+   * that the primary remains the only one.
+   *
+   * @param registry where the replica pool's and the router's metrics are published
+   * @return the router
+   */
+  @Bean
+  public ReplicaRouter replicaRouter(MeterRegistry registry) {
+    HikariDataSource replica = new HikariDataSource();
+    replica.setPoolName("replica");
+    replica.setJdbcUrl(url);
+    replica.setUsername(username);
+    replica.setPassword(password);
+    replica.setReadOnly(true);
+    replica.setMaximumPoolSize(poolSize);
+    replica.setConnectionTimeout(connectionTimeoutMs);
+    replica.setMetricRegistry(registry);
+    return new ReplicaRouter(
+        replica,
+        lagQuery,
+        Duration.ofSeconds(maxLagSeconds),
+        Duration.ofMillis(lagCheckMs),
+        registry);
+  }
+
+  /**
+   * Keeps a session's reads on the primary for a while after each write.
+   *
+   * @return the interceptor, mapped to /api/**
+   */
+  @Bean
+  public MappedInterceptor readYourWritesMapping() {
+    return new MappedInterceptor(
+        new String[] {"/api/**"},
+        new ReadYourWritesInterceptor(Duration.ofSeconds(pinAfterWriteSeconds)));
+  }
+
+  /**
+   * Wraps the DataSource bean so that read-only transactions can go to the replica, and has the
+   * EntityManagerFactory begin them with ReplicaAwareJpaDialect. It runs after every other post
+   * processor but SqlMonitorConfig's, so the primary keeps whatever those wrapped it in.
+   *
+   * @param router looked up only once the DataSource is created
+   * @return post processor for the DataSource and the EntityManagerFactory
+   */
+  @Bean
+  public static BeanPostProcessor replicaRoutingPostProcessor(
+      ObjectProvider<ReplicaRouter> router) {
+    return new ReplicaRoutingPostProcessor(router);
+  }
+
+  private record ReplicaRoutingPostProcessor(ObjectProvider<ReplicaRouter> router)
+      implements BeanPostProcessor, Ordered {
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+      if (bean instanceof LocalContainerEntityManagerFactoryBean factory) {
+        factory.setJpaDialect(new ReplicaAwareJpaDialect(router));
+      }
+      return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (bean instanceof DataSource primary && beanName.equals("dataSource")) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(router.getObject().readOnlyDataSource(primary));
+        return proxy;
+      }
+      return bean;
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+  }
+
+  /** Has transactions that read from the replica bypass the caches. */
+  static class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+    private final ObjectProvider<ReplicaRouter> router;
+
+    ReplicaAwareJpaDialect(ObjectProvider<ReplicaRouter> router) {
+      this.router = router;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+        throws SQLException {
+      Object transactionData = super.beginTransaction(entityManager, definition);
+      if (!definition.isReadOnly() || !router.getObject().beginReadOnly()) {
+        return transactionData;
+      }
+      Session session = entityManager.unwrap(Session.class);
+      FromReplica fromReplica =
+          new FromReplica(
+              transactionData,
+              session,
+              session.getCacheMode(),
+              session.getCacheRetrieveMode(),
+              session.getCacheStoreMode());
+      // not just CacheMode.GET: Hibernate caches a query's results after a miss even then
+      session.setCacheMode(CacheMode.IGNORE);
+      // find(type, id, hints), as Spring Data calls it, goes by these instead of the CacheMode
+      session.setProperty(
+          AvailableSettings.JAKARTA_SHARED_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+      session.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+      return fromReplica;
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+      router.getObject().endTransaction();
+      if (transactionData instanceof FromReplica fromReplica) {
+        Session session = fromReplica.session();
+        session.setCacheMode(fromReplica.cacheMode());
+        session.setProperty(
+            AvailableSettings.JAKARTA_SHARED_CACHE_RETRIEVE_MODE, fromReplica.retrieveMode());
+        session.setProperty(
+            AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, fromReplica.storeMode());
+        transactionData = fromReplica.transactionData();
+      }
+      super.cleanupTransaction(transactionData);
+    }
+
+    /** A transaction bound for the replica, and the cache modes to restore after it */
+    private record FromReplica(
+        Object transactionData,
+        Session session,
+        CacheMode cacheMode,
+        CacheRetrieveMode retrieveMode,
+        CacheStoreMode storeMode) {}
+  }
+}
@@ -6,12 +6,14 @@ import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -56,6 +58,9 @@ public class SecurityConfig {
 
   @Autowired UserRepository userRepository;
 
+  @Value("${app.csrf.cookieMode:lazy}")
+  private String csrfCookieMode;
+
   /**
    * The `filterChain` method in this Java code configures various security settings for an HTTP
    * request, including authorization, exception handling, OAuth2 login, CSRF protection, and logout
@@ -76,8 +81,15 @@ public class SecurityConfig {
             csrf ->
                 csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                     .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()))
-        .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
-        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .addFilterAfter(
+            new CsrfCookieFilter(CsrfCookieFilter.Mode.fromProperty(csrfCookieMode)),
+            BasicAuthenticationFilter.class)
+        .authorizeHttpRequests(
+            auth ->
+                auth.requestMatchers(antMatcher("/actuator/**"))
+                    .hasRole("ADMIN")
+                    .anyRequest()
+                    .permitAll())
         .logout(
             logout ->
                 logout
@@ -181,15 +193,78 @@ final class SpaCsrfTokenRequestHandler extends CsrfTokenRequestAttributeHandler
   }
 }
 
+/**
+ * Makes sure the SPA has an XSRF-TOKEN cookie to copy into the X-XSRF-TOKEN header.
+ *
+ * <p>In ALWAYS mode the deferred token is loaded on every request, as in the Spring Security SPA
+ * example. In LAZY mode (the default, see app.csrf.cookieMode) the token is only loaded when the
+ * browser does not already have the cookie, which is also the case right after login or logout
+ * because those clear the cookie, or when the request is one that CsrfFilter has already loaded the
+ * token for (POST, PUT, DELETE, ...). Static assets never trigger it; the SPA gets its cookie from
+ * its first /api call instead.
+ */
 final class CsrfCookieFilter extends OncePerRequestFilter {
 
+  /** How eagerly the CSRF token is rendered into the response cookie */
+  enum Mode {
+    ALWAYS,
+    LAZY;
+
+    static Mode fromProperty(String value) {
+      return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+  }
+
+  static final String COOKIE_NAME = "XSRF-TOKEN";
+
+  private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+  private final Mode mode;
+
+  CsrfCookieFilter(Mode mode) {
+    this.mode = mode;
+  }
+
   @Override
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
-    CsrfToken csrfToken = (CsrfToken) request.getAttribute("_csrf");
-    // Render the token value to a cookie by causing the deferred token to be loaded
-    csrfToken.getToken();
+    if (shouldRenderToken(request)) {
+      CsrfToken csrfToken = (CsrfToken) request.getAttribute("_csrf");
+      // Render the token value to a cookie by causing the deferred token to be loaded
+      csrfToken.getToken();
+    }
     filterChain.doFilter(request, response);
   }
+
+  boolean shouldRenderToken(HttpServletRequest request) {
+    if (mode == Mode.ALWAYS) {
+      return true;
+    }
+    if (isStaticAsset(request)) {
+      return false;
+    }
+    return !SAFE_METHODS.contains(request.getMethod()) || !hasCsrfCookie(request);
+  }
+
+  static boolean isStaticAsset(HttpServletRequest request) {
+    String path = request.getRequestURI();
+    if (path == null || path.startsWith("/api/")) {
+      return false;
+    }
+    return path.substring(path.lastIndexOf('/') + 1).contains(".");
+  }
+
+  static boolean hasCsrfCookie(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) {
+      return false;
+    }
+    for (Cookie cookie : cookies) {
+      if (COOKIE_NAME.equals(cookie.getName()) && StringUtils.hasText(cookie.getValue())) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,291 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.models.RepeatedStatement;
+import edu.ucsb.cs156.example.models.SlowStatement;
+import edu.ucsb.cs156.example.models.SqlMonitorReport;
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Watches every SQL statement run through the DataSource, and flags two kinds of trouble, each
+ * attributed to the job or controller method that ran the statement (see {@link
+ * ConnectionPoolMonitor#currentOwner}):
+ *
+ * <ul>
+ *   <li>a request or job that runs the same statement {@code repeatThreshold} times, which is
+ *       usually a lazy association (such as Job.createdBy) loaded once per row: an N+1 query;
+ *   <li>a statement that takes {@code slowThreshold} or longer to execute.
+ * </ul>
+ *
+ * <p>Both are logged as warnings and the most recent {@code maxFindings} of each are kept for
+ * /api/admin/sqlmonitor. The SQL recorded has no bind values: prepared statements have "?" in their
+ * place already, and literals in other statements are replaced by "?".
+ */
+@Slf4j
+public class SqlMonitor {
+  private static final String REQUEST_STATEMENTS = SqlMonitor.class.getName() + ".statements";
+  private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(\\.\\d+)?\\b");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final long slowNanos;
+  private final int repeatThreshold;
+  private final int maxFindings;
+  private final Deque<Repeated> repeated = new ArrayDeque<>();
+  private final Deque<SlowStatement> slow = new ArrayDeque<>();
+  private final ThreadLocal<JobStatements> jobStatements = new ThreadLocal<>();
+
+  public SqlMonitor(Duration slowThreshold, int repeatThreshold, int maxFindings) {
+    this.slowNanos = slowThreshold.toNanos();
+    this.repeatThreshold = repeatThreshold;
+    this.maxFindings = maxFindings;
+  }
+
+  /** How many times one request or job has run one statement. */
+  private static final class Repeated {
+    final String owner;
+    final String sql;
+    final AtomicInteger count = new AtomicInteger();
+    volatile long lastRun;
+
+    Repeated(String owner, String sql) {
+      this.owner = owner;
+      this.sql = sql;
+    }
+  }
+
+  /** The statements run by the job currently running on a thread. */
+  private record JobStatements(String job, Map<String, Repeated> bySql) {}
+
+  /**
+   * Wraps a DataSource so that every statement run on its connections is watched.
+   *
+   * @param dataSource the DataSource
+   * @return a DataSource that hands out the same connections
+   */
+  public DataSource monitor(DataSource dataSource) {
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return watched(super.getConnection());
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return watched(super.getConnection(username, password));
+      }
+    };
+  }
+
+  private Connection watched(Connection connection) {
+    return proxy(Connection.class, new WatchedConnection(connection));
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Forwards to a connection, and watches the statements it creates. */
+  private class WatchedConnection implements InvocationHandler {
+    private final Connection connection;
+
+    WatchedConnection(Connection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals" -> {
+          return proxy == args[0];
+        }
+        case "hashCode" -> {
+          return System.identityHashCode(proxy);
+        }
+        default -> {}
+      }
+      Object result = forward(connection, method, args);
+      if (result instanceof Statement statement) {
+        // prepareStatement and prepareCall are given the SQL; createStatement is not
+        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+        return proxy(method.getReturnType(), new WatchedStatement(statement, sql));
+      }
+      return result;
+    }
+  }
+
+  /** Forwards to a statement, and times each execute. */
+  private class WatchedStatement implements InvocationHandler {
+    private final Statement statement;
+    private final String preparedSql;
+
+    WatchedStatement(Statement statement, String preparedSql) {
+      this.statement = statement;
+      this.preparedSql = preparedSql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (!method.getName().startsWith("execute")) {
+        return forward(statement, method, args);
+      }
+      long start = System.nanoTime();
+      try {
+        return forward(statement, method, args);
+      } finally {
+        long nanos = System.nanoTime() - start;
+        if (preparedSql != null) {
+          executed(preparedSql, nanos);
+        } else if (args != null && args.length > 0 && args[0] instanceof String sql) {
+          executed(LITERALS.matcher(sql).replaceAll("?"), nanos);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records that a statement was executed.
+   *
+   * @param sql the statement, without bind values
+   * @param nanos how long it took to execute
+   */
+  void executed(String sql, long nanos) {
+    if (nanos >= slowNanos) {
+      SlowStatement statement =
+          SlowStatement.builder()
+              .owner(ConnectionPoolMonitor.currentOwner())
+              .sql(oneLine(sql))
+              .millis(TimeUnit.NANOSECONDS.toMillis(nanos))
+              .ranAt(ZonedDateTime.now())
+              .build();
+      log.warn(
+          "{} ran a slow statement ({}ms): {}",
+          statement.getOwner(),
+          statement.getMillis(),
+          statement.getSql());
+      keep(slow, statement);
+    }
+
+    Map<String, Repeated> statements = currentStatements();
+    if (statements == null) {
+      return;
+    }
+    Repeated statement =
+        statements.computeIfAbsent(
+            sql, s -> new Repeated(ConnectionPoolMonitor.currentOwner(), oneLine(s)));
+    statement.lastRun = System.currentTimeMillis();
+    if (statement.count.incrementAndGet() == repeatThreshold) {
+      log.warn(
+          "{} ran the same statement {} times, which may be an N+1 query: {}",
+          statement.owner,
+          repeatThreshold,
+          statement.sql);
+      keep(repeated, statement);
+    }
+  }
+
+  /**
+   * The statements run so far by the job or request on this thread, by SQL.
+   *
+   * @return null if the thread is running neither a job nor a request
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Repeated> currentStatements() {
+    String job = MDC.get("job");
+    if (job != null) {
+      JobStatements current = jobStatements.get();
+      if (current == null || !current.job().equals(job)) {
+        current = new JobStatements(job, new ConcurrentHashMap<>());
+        jobStatements.set(current);
+      }
+      return current.bySql();
+    }
+    if (RequestContextHolder.getRequestAttributes()
+        instanceof ServletRequestAttributes attributes) {
+      HttpServletRequest request = attributes.getRequest();
+      Object statements = request.getAttribute(REQUEST_STATEMENTS);
+      if (statements == null) {
+        statements = new ConcurrentHashMap<String, Repeated>();
+        request.setAttribute(REQUEST_STATEMENTS, statements);
+      }
+      return (Map<String, Repeated>) statements;
+    }
+    return null;
+  }
+
+  private static String oneLine(String sql) {
+    return WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+  }
+
+  private <T> void keep(Deque<T> findings, T finding) {
+    synchronized (findings) {
+      findings.addFirst(finding);
+      if (findings.size() > maxFindings) {
+        findings.removeLast();
+      }
+    }
+  }
+
+  private static <T, R> List<R> copy(Deque<T> findings, Function<T, R> mapper) {
+    synchronized (findings) {
+      return findings.stream().map(mapper).toList();
+    }
+  }
+
+  /**
+   * The statements flagged so far.
+   *
+   * @return the repeated and slow statements, most recent first
+   */
+  public SqlMonitorReport getReport() {
+    return SqlMonitorReport.builder()
+        .slowThresholdMillis(TimeUnit.NANOSECONDS.toMillis(slowNanos))
+        .repeatThreshold(repeatThreshold)
+        .repeated(
+            copy(
+                repeated,
+                r ->
+                    RepeatedStatement.builder()
+                        .owner(r.owner)
+                        .sql(r.sql)
+                        .count(r.count.get())
+                        .lastRun(
+                            ZonedDateTime.ofInstant(
+                                Instant.ofEpochMilli(r.lastRun), ZoneId.systemDefault()))
+                        .build()))
+        .slow(copy(slow, s -> s))
+        .build();
+  }
+}
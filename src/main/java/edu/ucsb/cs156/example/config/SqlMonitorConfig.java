@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Wraps the DataSource in a SqlMonitor when {@code app.db.sqlmonitor.enabled=true}, to flag N+1
+ * queries and slow statements.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.sqlmonitor.enabled", havingValue = "true")
+public class SqlMonitorConfig {
+
+  @Value("${app.db.sqlmonitor.slowMs:500}")
+  private long slowMs;
+
+  @Value("${app.db.sqlmonitor.repeatThreshold:20}")
+  private int repeatThreshold;
+
+  @Value("${app.db.sqlmonitor.maxFindings:100}")
+  private int maxFindings;
+
+  /**
+   * The monitor, shown at /api/admin/sqlmonitor.
+   *
+   * @return monitor with the configured thresholds
+   */
+  @Bean
+  public SqlMonitor sqlMonitor() {
+    return new SqlMonitor(Duration.ofMillis(slowMs), repeatThreshold, maxFindings);
+  }
+
+  /**
+   * Wraps the DataSource bean in the monitor's wrapper. It runs after every other post processor,
+   * so that statements sent to the read replica (see ReplicaRoutingConfig) are watched too.
+   *
+   * @param monitor looked up only once the DataSource is created
+   * @return post processor for the DataSource
+   */
+  @Bean
+  public static BeanPostProcessor sqlMonitorPostProcessor(ObjectProvider<SqlMonitor> monitor) {
+    return new SqlMonitorPostProcessor(monitor);
+  }
+
+  private record SqlMonitorPostProcessor(ObjectProvider<SqlMonitor> monitor)
+      implements BeanPostProcessor, Ordered {
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+        return monitor.getObject().monitor(dataSource);
+      }
+      return bean;
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.LOWEST_PRECEDENCE;
+    }
+  }
+}
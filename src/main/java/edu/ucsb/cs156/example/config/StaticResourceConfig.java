@@ -0,0 +1,69 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+/**
+ * Serves the built frontend (copied into classpath:/public by the production build).
+ *
+ * <p>The frontend build writes .br and .gz copies of each compressible file (see the precompress
+ * plugin in frontend/vite.config.js); these are chosen according to the browser's Accept-Encoding
+ * header. Files under /assets have a content hash in their name, so they are served with a one
+ * year, immutable Cache-Control. Everything else (notably index.html) must be revalidated, which is
+ * cheap because every resource has a precomputed ETag. Resources are kept in memory by
+ * InMemoryResourceResolver; both mappings share one budget of {@code
+ * app.static.cacheMaxTotalBytes}.
+ *
+ * <p>This runs before Spring Boot's own resource configuration, which then does not add its default
+ * mapping for /**. In development the FrontendProxyController is used instead.
+ */
+@Profile("!development")
+@Configuration
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+  @Value("${app.static.cacheMaxFileBytes:2097152}")
+  private long cacheMaxFileBytes;
+
+  @Value("${app.static.cacheMaxTotalBytes:67108864}")
+  private long cacheMaxTotalBytes;
+
+  @Bean
+  public InMemoryResourceResolver.Budget staticResourceBudget() {
+    return new InMemoryResourceResolver.Budget(cacheMaxFileBytes, cacheMaxTotalBytes);
+  }
+
+  @Override
+  public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    InMemoryResourceResolver.Budget budget = staticResourceBudget();
+    registry
+        .addResourceHandler("/assets/**")
+        .addResourceLocations("classpath:/public/assets/")
+        .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+        .setEtagGenerator(InMemoryResourceResolver::etag)
+        .resourceChain(false)
+        .addResolver(new InMemoryResourceResolver(budget))
+        .addResolver(new EncodedResourceResolver())
+        .addResolver(new PathResourceResolver());
+
+    registry
+        .addResourceHandler("/**")
+        .addResourceLocations("classpath:/public/")
+        .setCacheControl(CacheControl.noCache())
+        .setEtagGenerator(InMemoryResourceResolver::etag)
+        .resourceChain(false)
+        .addResolver(new InMemoryResourceResolver(budget))
+        .addResolver(new EncodedResourceResolver())
+        .addResolver(new PathResourceResolver());
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket.
+ *
+ * <p>Rather than a token count and a last-refill time, the bucket keeps a single "theoretical
+ * arrival time" (the generic cell rate algorithm): each request pushes it forward by one token's
+ * worth of time, and a request is rejected if that would put it more than {@code capacity} tokens
+ * ahead of now. This behaves exactly like a bucket of {@code capacity} tokens refilled at {@code
+ * perSecond}, but can be updated with one compareAndSet.
+ */
+public class TokenBucket {
+  private final long nanosPerToken;
+  private final long burstNanos;
+  private final AtomicLong arrival;
+
+  /**
+   * Create a full bucket.
+   *
+   * @param capacity the most tokens the bucket holds, i.e. the largest burst allowed
+   * @param perSecond how many tokens are added per second
+   * @param now the current time from System.nanoTime()
+   */
+  public TokenBucket(int capacity, double perSecond, long now) {
+    if (capacity < 1 || !(perSecond > 0)) {
+      throw new IllegalArgumentException("capacity must be >= 1 and perSecond must be > 0");
+    }
+    this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / perSecond));
+    this.burstNanos = nanosPerToken * capacity;
+    this.arrival = new AtomicLong(now);
+  }
+
+  /**
+   * Take one token if one is available.
+   *
+   * @param now the current time from System.nanoTime()
+   * @return 0 if a token was taken, otherwise how many nanoseconds until one will be available
+   */
+  public long tryAcquire(long now) {
+    while (true) {
+      long current = arrival.get();
+      long next = Math.max(current, now) + nanosPerToken;
+      long ahead = next - now;
+      if (ahead > burstNanos) {
+        return ahead - burstNanos;
+      }
+      if (arrival.compareAndSet(current, next)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * How many whole tokens are available.
+   *
+   * @param now the current time from System.nanoTime()
+   * @return the number of requests that would be allowed right now
+   */
+  public long available(long now) {
+    long used = Math.max(arrival.get(), now) - now;
+    return (burstNanos - used) / nanosPerToken;
+  }
+
+  /**
+   * Whether the bucket has refilled completely, i.e. forgetting it would change nothing.
+   *
+   * @param now the current time from System.nanoTime()
+   * @return true if the bucket is full
+   */
+  public boolean isFull(long now) {
+    return arrival.get() - now <= 0;
+  }
+}
@@ -1,20 +1,41 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.services.SparseFieldsetService;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.repository.CrudRepository;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 /** This is an abstract class that provides common functionality for all API controllers. */
 @Slf4j
 public abstract class ApiController {
+  /** A strong ETag holding an entity's version, e.g. "3" (with the quotes) */
+  private static final Pattern VERSION_ETAG = Pattern.compile("\"(\\d+)\"");
+
   @Autowired private CurrentUserService currentUserService;
 
+  // lazy, as only some endpoints use them
+  @Lazy @Autowired private SparseFieldsetService sparseFieldsetService;
+
+  @Lazy @Autowired private DatabaseJsonService databaseJsonService;
+
   /**
    * This method returns the current user.
    *
@@ -34,6 +55,136 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method returns every row of an entity's table, or if fields are given only those fields of
+   * each (see SparseFieldsetService), for the {@code fields} parameter of /all endpoints.
+   *
+   * @param all every row, whole (e.g. a repository's projection, such as findAllViews)
+   * @param type the entity class
+   * @param fields the fields to return, or null (or empty) for whole rows
+   * @return the rows, or a map of the requested fields for each
+   */
+  protected Iterable<?> findAll(
+      Supplier<? extends Iterable<?>> all, Class<?> type, List<String> fields) {
+    return findAll(all, type, fields, null);
+  }
+
+  /**
+   * This method has the database write every row of a table to the response as a JSON array (see
+   * DatabaseJsonService), for an /all endpoint asked for whole rows, when that is enabled. The
+   * endpoint then returns null, as the response has been written.
+   *
+   * @param table the table
+   * @param fields the fields to return, or null (or empty) for whole rows
+   * @param response the response
+   * @return true if the response has been written
+   * @throws IOException if the response cannot be written
+   */
+  protected boolean writtenByDatabase(
+      DatabaseJsonService.Table table, List<String> fields, HttpServletResponse response)
+      throws IOException {
+    if ((fields != null && !fields.isEmpty()) || !databaseJsonService.isEnabled()) {
+      return false;
+    }
+    databaseJsonService.write(table, response);
+    return true;
+  }
+
+  /**
+   * This method returns the rows that meet a condition, or if fields are given only those fields of
+   * each, like {@link #findAll(Supplier, Class, List)}.
+   *
+   * @param rows the rows that meet the condition, listed when no fields are given
+   * @param type the entity class
+   * @param fields the fields to return, or null (or empty) for whole rows
+   * @param where the same condition, for the sparse fieldset query, or null for every row
+   * @return the rows, or a map of the requested fields for each
+   */
+  protected Iterable<?> findAll(
+      Supplier<? extends Iterable<?>> rows,
+      Class<?> type,
+      List<String> fields,
+      SparseFieldsetService.Restriction where) {
+    if (fields == null || fields.isEmpty()) {
+      return rows.get();
+    }
+    try {
+      return sparseFieldsetService.findAll(type, fields, where);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+  }
+
+  /**
+   * This method returns the version of an entity that a request's If-Match header requires, for PUT
+   * endpoints that update an entity only if nobody else has changed it since the client read it
+   * (the entity's ETag is its version).
+   *
+   * @param ifMatch the If-Match header, or null
+   * @return the version, or null if there is no If-Match header or it is "*"
+   * @throws PreconditionFailedException if the header is anything but a single version ETag (a weak
+   *     ETag, for instance, can never match)
+   */
+  protected Long ifMatchVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    Matcher matcher = VERSION_ETAG.matcher(ifMatch.trim());
+    if (!matcher.matches()) {
+      throw new PreconditionFailedException("If-Match %s matches no version".formatted(ifMatch));
+    }
+    return Long.parseLong(matcher.group(1));
+  }
+
+  /**
+   * This method returns the exception for a conditional update that changed no rows: either the
+   * entity does not exist, or it is no longer at the expected version.
+   *
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository the entity's repository
+   * @param type the entity class
+   * @param id the id of the entity
+   * @param version the version the update expected
+   * @return EntityNotFoundException or PreconditionFailedException, to be thrown
+   */
+  protected <T, ID> RuntimeException updateFailed(
+      CrudRepository<T, ID> repository, Class<T> type, ID id, long version) {
+    return repository.existsById(id)
+        ? new PreconditionFailedException(type, id, version)
+        : new EntityNotFoundException(type, id);
+  }
+
+  /**
+   * This method handles the PreconditionFailedException.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({PreconditionFailedException.class})
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public Object handlePreconditionFailed(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
+
+  /**
+   * This method handles the ObjectOptimisticLockingFailureException, thrown when an update without
+   * If-Match loses a race with another update of the same entity (the version it read is no longer
+   * the current one).
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ObjectOptimisticLockingFailureException.class})
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleOptimisticLockingFailure(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    *
@@ -0,0 +1,109 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This is a REST controller that returns several of the /all lists for one client request.
+ *
+ * <p>The admin pages load several lists at once; they can fetch them with {@code GET
+ * /api/batch?path=/api/ucsbdates/all&path=/api/restaurants/all&path=/api/jobs/all}, saving a round
+ * trip per list on high-latency connections.
+ *
+ * <p>Only the lists in {@link #ROLES} can be batched. Each is read on the request thread the way
+ * its own /all endpoint reads it when no fields are asked for, so the batch goes through the
+ * servlet filters (security, the concurrency limit, compression, monitoring) like any other
+ * request. Each list needs the same role as its /all endpoint; a list the caller may not see is
+ * answered with 403 without failing the others.
+ */
+@Tag(name = "Batch")
+@RequestMapping("/api/batch")
+@RestController
+public class BatchController extends ApiController {
+
+  /** The lists that can be batched, and the role each needs. */
+  static final Map<String, String> ROLES =
+      Map.of(
+          "/api/ucsbdates/all", "ROLE_USER",
+          "/api/ucsbdiningcommons/all", "ROLE_USER",
+          "/api/restaurants/all", "ROLE_USER",
+          "/api/jobs/all", "ROLE_ADMIN");
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired JobsController jobsController;
+
+  /**
+   * This method returns each of the given lists, in the order they were given.
+   *
+   * @param paths the /all endpoints whose lists are wanted
+   * @return the status and body of each list
+   */
+  @Operation(summary = "Get several /all lists in one request")
+  @GetMapping("")
+  public List<BatchResult> batch(
+      @Parameter(
+              name = "path",
+              description =
+                  "/api/ucsbdates/all, /api/ucsbdiningcommons/all, /api/restaurants/all or /api/jobs/all; repeat for each list")
+          @RequestParam(name = "path")
+          List<String> paths) {
+    for (String path : paths) {
+      if (!ROLES.containsKey(path)) {
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "not a path that can be batched: %s".formatted(path));
+      }
+    }
+    return paths.stream().map(this::get).toList();
+  }
+
+  private BatchResult get(String path) {
+    if (!hasRole(ROLES.get(path))) {
+      return BatchResult.builder()
+          .path(path)
+          .status(HttpStatus.FORBIDDEN.value())
+          .body(Map.of("type", "AccessDeniedException", "message", "Access Denied"))
+          .build();
+    }
+    return BatchResult.builder().path(path).status(HttpStatus.OK.value()).body(rows(path)).build();
+  }
+
+  private Object rows(String path) {
+    return switch (path) {
+      case "/api/ucsbdates/all" -> ucsbDateRepository.findAllViews();
+      case "/api/ucsbdiningcommons/all" -> ucsbDiningCommonsRepository.findAllViews();
+      case "/api/restaurants/all" -> restaurantRepository.findAllViews();
+        // through the controller, so that app.jobs.listDays applies as it does to /api/jobs/all
+      default -> jobsController.allJobs(null, null);
+    };
+  }
+
+  private static boolean hasRole(String role) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication != null
+        && authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .anyMatch(role::equals);
+  }
+}
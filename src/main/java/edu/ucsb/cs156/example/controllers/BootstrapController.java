@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.Bootstrap;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.SystemInfoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for the data the frontend loads when it starts.
+ *
+ * <p>It returns the same information as /api/systemInfo and /api/currentUser in a single response,
+ * saving the frontend a round trip before it can render.
+ *
+ * @see edu.ucsb.cs156.example.controllers.SystemInfoController
+ * @see edu.ucsb.cs156.example.controllers.UserInfoController
+ */
+@Tag(name = "Bootstrap")
+@RequestMapping("/api/bootstrap")
+@RestController
+public class BootstrapController extends ApiController {
+
+  @Autowired private SystemInfoService systemInfoService;
+
+  @Autowired private CurrentUserService currentUserService;
+
+  /**
+   * This method returns the system information, and the current user if someone is logged in.
+   *
+   * <p>The current user is included under the same condition as /api/currentUser, which returns 403
+   * to anyone without ROLE_USER.
+   *
+   * @return the system information and current user
+   */
+  @Operation(summary = "Get system information and the current user (if logged in) together")
+  @GetMapping("")
+  public Bootstrap getBootstrap() {
+    boolean loggedIn =
+        currentUserService.getRoles().stream()
+            .anyMatch(role -> "ROLE_USER".equals(role.getAuthority()));
+    return Bootstrap.builder()
+        .systemInfo(systemInfoService.getSystemInfo())
+        .currentUser(loggedIn ? getCurrentUser() : null)
+        .build();
+  }
+}
@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.config.ConnectionPoolMonitor;
+import edu.ucsb.cs156.example.models.ConnectionPoolStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This is a REST controller for looking at the database connection pool: how many connections are
+ * in use, how many threads are waiting for one, and who holds each connection and for how long.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+@Tag(name = "Connection pool (admin only)")
+@RequestMapping("/api/admin/connectionpool")
+@RestController
+public class ConnectionPoolController extends ApiController {
+
+  @Autowired(required = false)
+  ConnectionPoolMonitor connectionPoolMonitor; // absent unless app.db.monitor.enabled=true
+
+  /**
+   * This method returns the pool's counts and its current borrowers, longest held first.
+   *
+   * @return the status of the connection pool
+   */
+  @Operation(summary = "Get the connection pool's counts and current borrowers")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public ConnectionPoolStatus status() {
+    if (connectionPoolMonitor == null) {
+      throw new ResponseStatusException(
+          HttpStatus.NOT_FOUND, "connection pool monitoring is disabled");
+    }
+    return connectionPoolMonitor.getStatus();
+  }
+}
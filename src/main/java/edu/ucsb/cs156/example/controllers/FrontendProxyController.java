@@ -1,14 +1,25 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.ResourceAccessException;
 
 /**
  * The FrontendProxyController is used to proxy requests to the frontend of the application.
@@ -16,6 +27,12 @@ import org.springframework.web.client.ResourceAccessException;
  * <p>This is only used in development where we have a separate frontend server process listening on
  * port 3000.
  *
+ * <p>Requests go over kept-alive connections, and conditional requests (If-None-Match,
+ * If-Modified-Since) are forwarded so the browser can reuse its cached copy of unchanged modules.
+ * With {@code app.frontend.proxy.mode=streaming} (the default) responses are passed through as they
+ * arrive; with {@code app.frontend.proxy.mode=buffered} each response is read fully into memory
+ * first.
+ *
  * <p>For production, see the FrontendController.
  *
  * @see edu.ucsb.cs156.example.controllers.FrontendController
@@ -24,38 +41,101 @@ import org.springframework.web.client.ResourceAccessException;
 @RestController
 public class FrontendProxyController {
 
+  /** Request headers passed on to the frontend server */
+  private static final List<String> REQUEST_HEADERS =
+      List.of(
+          HttpHeaders.ACCEPT,
+          HttpHeaders.ACCEPT_ENCODING,
+          HttpHeaders.IF_NONE_MATCH,
+          HttpHeaders.IF_MODIFIED_SINCE);
+
+  /** Response headers passed back to the browser */
+  private static final List<String> RESPONSE_HEADERS =
+      List.of(
+          HttpHeaders.CONTENT_TYPE,
+          HttpHeaders.CONTENT_LENGTH,
+          HttpHeaders.CONTENT_ENCODING,
+          HttpHeaders.CACHE_CONTROL,
+          HttpHeaders.ETAG,
+          HttpHeaders.LAST_MODIFIED,
+          HttpHeaders.VARY);
+
+  static final String INSTRUCTIONS =
+      """
+          <p>Failed to connect to the frontend server...</p>
+          <p>On Dokku, be sure that <code>PRODUCTION</code> is defined.</p>
+          <p>On localhost, open a second terminal window, cd into <code>frontend</code> and type: <code>nvm use 20.17.0; npm ci; npm start</code></p>
+          <p>Or, you may click to access: </p>
+          <ul>
+            <li><a href='/swagger-ui/index.html'>/swagger-ui/index.html</a></li>
+            <li><a href='/h2-console'>/h2-console</a></li>
+          </ul>""";
+
+  /** Shared so that connections to the frontend server are pooled and kept alive */
+  private final HttpClient client =
+      HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .connectTimeout(Duration.ofSeconds(2))
+          .build();
+
   @Autowired WiremockService wiremockService;
 
+  @Value("${app.frontend.proxy.mode:streaming}")
+  private String mode;
+
+  @Value("${app.frontend.proxy.url:http://localhost:3000/}")
+  private String frontend;
+
   /**
    * This method proxies requests to the frontend server. It is only used in development. The
    * regular expression is used to exclude the paths that should NOT be proxied to the frontend
    * server, such as the endpoints for the api, oauth2, and swagger-ui.
    *
-   * @param proxy the proxy exchange, injected by Spring automatically
+   * @param request the incoming request, whose path, query string and conditional headers are
+   *     forwarded
    * @return response entity with the response from the frontend server, or a response entity with
    *     instructions in case the frontend server cannot be reached.
+   * @throws IOException if the frontend server cannot be read from
    */
   @GetMapping({"/", "/{path:^(?!api|oauth2|swagger-ui|h2-console).*}/**"})
-  public ResponseEntity<?> proxy(ProxyExchange<byte[]> proxy) {
-    String path = proxy.path("/");
+  public ResponseEntity<?> proxy(HttpServletRequest request) throws IOException {
+    String path = request.getRequestURI().substring(request.getContextPath().length() + 1);
+    String query = request.getQueryString();
+    HttpRequest.Builder builder =
+        HttpRequest.newBuilder(URI.create(frontend + path + (query == null ? "" : "?" + query)));
+    for (String name : REQUEST_HEADERS) {
+      String value = request.getHeader(name);
+      if (value != null) {
+        builder.header(name, value);
+      }
+    }
+
+    HttpResponse<InputStream> response;
     try {
-      return proxy.uri("http://localhost:3000/" + path).get();
-    } catch (ResourceAccessException e) {
-      if (e.getCause() instanceof ConnectException) {
-        String instructions =
-            """
-                <p>Failed to connect to the frontend server...</p>
-                <p>On Dokku, be sure that <code>PRODUCTION</code> is defined.</p>
-                <p>On localhost, open a second terminal window, cd into <code>frontend</code> and type: <code>nvm use 20.17.0; npm ci; npm start</code></p>
-                <p>Or, you may click to access: </p>
-                <ul>
-                  <li><a href='/swagger-ui/index.html'>/swagger-ui/index.html</a></li>
-                  <li><a href='/h2-console'>/h2-console</a></li>
-                </ul>""";
-
-        return ResponseEntity.ok(instructions);
+      response = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+    } catch (ConnectException e) {
+      return ResponseEntity.ok(INSTRUCTIONS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    HttpHeaders headers = new HttpHeaders();
+    for (String name : RESPONSE_HEADERS) {
+      response.headers().allValues(name).forEach(value -> headers.add(name, value));
+    }
+    ResponseEntity.BodyBuilder result =
+        ResponseEntity.status(response.statusCode()).headers(headers);
+    if (response.statusCode() == 304 || response.statusCode() == 204) {
+      response.body().close();
+      return result.build();
+    }
+    if ("buffered".equals(mode)) {
+      try (InputStream body = response.body()) {
+        return result.body(body.readAllBytes());
       }
-      throw e;
     }
+    // InputStreamResource is copied to the servlet output stream as it is read, and closed after
+    return result.body(new InputStreamResource(response.body()));
   }
 }
@@ -10,9 +10,15 @@ import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -33,11 +39,40 @@ public class JobsController extends ApiController {
 
   @Autowired ObjectMapper mapper;
 
-  @Operation(summary = "List all jobs")
+  @Value("${app.jobs.listDays:0}")
+  private int listDays;
+
+  @Operation(summary = "List all jobs, or only those created since a date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
+  public Iterable<?> allJobs(
+      @Parameter(
+              name = "fields",
+              description =
+                  "if given, only these fields of each job (e.g. id,status to leave out the log) (comma separated)")
+          @RequestParam(required = false)
+          List<String> fields,
+      @Parameter(
+              name = "since",
+              description =
+                  "if given, only jobs created on or after this date; on Postgres, only the partitions of jobs from then on are read")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate since) {
+    if (since == null && listDays > 0) {
+      since = LocalDate.now().minusDays(listDays);
+    }
+    if (since == null) {
+      return findAll(jobsRepository::findAll, Job.class, fields);
+    }
+    // only reads the partitions of jobs from then on, on Postgres (see JobPartitions)
+    ZonedDateTime start = since.atStartOfDay(ZoneId.systemDefault());
+    Iterable<?> jobs =
+        findAll(
+            () -> jobsRepository.findAllByCreatedAtGreaterThanEqual(start),
+            Job.class,
+            fields,
+            (cb, job) -> cb.greaterThanOrEqualTo(job.<ZonedDateTime>get("createdAt"), start));
     return jobs;
   }
 
@@ -3,17 +3,24 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,32 +36,47 @@ public class RestaurantsController extends ApiController {
   /**
    * This method returns a list of all restaurants.
    *
+   * @param fields if given, only these fields of each restaurant are returned
+   * @param response the response, which the database writes when it can (see DatabaseJsonService)
    * @return a list of all restaurants
+   * @throws IOException if the response cannot be written
    */
   @Operation(summary = "List all restaurants")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Restaurant> allRestaurants() {
-    Iterable<Restaurant> restaurants = restaurantRepository.findAll();
+  public Iterable<?> allRestaurants(
+      @Parameter(
+              name = "fields",
+              description = "if given, only these fields of each restaurant (comma separated)")
+          @RequestParam(required = false)
+          List<String> fields,
+      HttpServletResponse response)
+      throws IOException {
+    if (writtenByDatabase(DatabaseJsonService.RESTAURANTS, fields, response)) {
+      return null;
+    }
+    Iterable<?> restaurants = findAll(restaurantRepository::findAllViews, Restaurant.class, fields);
     return restaurants;
   }
 
   /**
    * This method returns a single restaurant.
    *
+   * <p>The ETag is the restaurant's version; send it back in If-Match to update it.
+   *
    * @param id id of the restaurant to get
    * @return a single restaurant
    */
   @Operation(summary = "Get a single restaurant")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Restaurant getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<Restaurant> getById(@Parameter(name = "id") @RequestParam Long id) {
     Restaurant restaurant =
         restaurantRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
-    return restaurant;
+    return ResponseEntity.ok().eTag(String.valueOf(restaurant.getVersion())).body(restaurant);
   }
 
   /**
@@ -89,38 +111,60 @@ public class RestaurantsController extends ApiController {
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
   public Object deleteRestaurant(@Parameter(name = "id") @RequestParam Long id) {
-    Restaurant restaurant =
-        restaurantRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-    restaurantRepository.delete(restaurant);
+    if (restaurantRepository.deleteWithId(id) == 0) {
+      throw new EntityNotFoundException(Restaurant.class, id);
+    }
     return genericMessage("Restaurant with id %s deleted".formatted(id));
   }
 
   /**
    * Update a single restaurant. Accessible only to users with the role "ROLE_ADMIN".
    *
+   * <p>With an If-Match header holding the restaurant's ETag, the restaurant is updated in a single
+   * statement, and only if nobody else has changed it since that ETag was sent; otherwise the
+   * response is 412 Precondition Failed. Without one, the restaurant is updated whatever its
+   * version.
+   *
    * @param id id of the restaurant to update
+   * @param ifMatch the ETag of the version being updated, if any
    * @param incoming the new restaurant contents
-   * @return the updated restaurant object
+   * @return the updated restaurant object, with its new ETag
    */
   @Operation(summary = "Update a single restaurant")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public Restaurant updateRestaurant(
-      @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid Restaurant incoming) {
-
-    Restaurant restaurant =
-        restaurantRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-    restaurant.setName(incoming.getName());
-    restaurant.setDescription(incoming.getDescription());
-
-    restaurantRepository.save(restaurant);
-
-    return restaurant;
+  public ResponseEntity<Restaurant> updateRestaurant(
+      @Parameter(name = "id") @RequestParam Long id,
+      @Parameter(name = "If-Match", description = "ETag from GET /api/restaurants?id=")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+          String ifMatch,
+      @RequestBody @Valid Restaurant incoming) {
+    Long version = ifMatchVersion(ifMatch);
+    Restaurant restaurant;
+    if (version != null) {
+      if (restaurantRepository.updateIfVersion(
+              id, version, incoming.getName(), incoming.getDescription())
+          == 0) {
+        throw updateFailed(restaurantRepository, Restaurant.class, id, version);
+      }
+      restaurant =
+          Restaurant.builder()
+              .id(id)
+              .name(incoming.getName())
+              .description(incoming.getDescription())
+              .version(version + 1)
+              .build();
+    } else {
+      restaurant =
+          restaurantRepository
+              .findById(id)
+              .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
+
+      restaurant.setName(incoming.getName());
+      restaurant.setDescription(incoming.getDescription());
+
+      restaurant = restaurantRepository.save(restaurant);
+    }
+    return ResponseEntity.ok().eTag(String.valueOf(restaurant.getVersion())).body(restaurant);
   }
 }
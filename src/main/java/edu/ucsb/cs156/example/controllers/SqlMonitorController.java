@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.config.SqlMonitor;
+import edu.ucsb.cs156.example.models.SqlMonitorReport;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This is a REST controller for looking at the SQL statements that SqlMonitor has flagged: those a
+ * single request or job ran many times (N+1 queries), and slow ones, each with the job or
+ * controller method that ran it.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+@Tag(name = "SQL monitor (admin only)")
+@RequestMapping("/api/admin/sqlmonitor")
+@RestController
+public class SqlMonitorController extends ApiController {
+
+  @Autowired(required = false)
+  SqlMonitor sqlMonitor; // absent unless app.db.sqlmonitor.enabled=true
+
+  /**
+   * This method returns the repeated and slow statements flagged so far, most recent first.
+   *
+   * @return the flagged statements
+   */
+  @Operation(summary = "Get the repeated (N+1) and slow SQL statements, most recent first")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public SqlMonitorReport report() {
+    if (sqlMonitor == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "SQL monitoring is disabled");
+    }
+    return sqlMonitor.getReport();
+  }
+}
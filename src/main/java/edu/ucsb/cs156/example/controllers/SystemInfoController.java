@@ -5,6 +5,8 @@ import edu.ucsb.cs156.example.services.SystemInfoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -30,11 +32,29 @@ public class SystemInfoController extends ApiController {
   /**
    * This method returns the system information.
    *
+   * <p>The system information only changes when a new version is deployed, so it is sent with an
+   * ETag; a request with a matching If-None-Match gets 304 Not Modified and no body.
+   *
    * @return the system information
    */
   @Operation(summary = "Get global information about the application")
   @GetMapping("")
-  public SystemInfo getSystemInfo() {
-    return systemInfoService.getSystemInfo();
+  public ResponseEntity<SystemInfo> getSystemInfo() {
+    SystemInfo systemInfo = systemInfoService.getSystemInfo();
+    return ResponseEntity.ok()
+        .eTag(etag(systemInfo))
+        .cacheControl(CacheControl.noCache())
+        .body(systemInfo);
+  }
+
+  /**
+   * The ETag for a SystemInfo: the deployed commit, plus a hash of the contents to tell apart
+   * builds without git information.
+   *
+   * @param systemInfo the system information
+   * @return the ETag value (without quotes)
+   */
+  public static String etag(SystemInfo systemInfo) {
+    return systemInfo.getCommitId() + "-" + Integer.toHexString(systemInfo.hashCode());
   }
 }
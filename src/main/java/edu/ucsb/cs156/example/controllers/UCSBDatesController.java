@@ -3,24 +3,41 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.models.QuarterStats;
+import edu.ucsb.cs156.example.models.UCSBDateStats;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.services.UCSBDateBulkLoadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 /** This is a REST controller for UCSBDates */
 @Tag(name = "UCSBDates")
@@ -29,37 +46,80 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class UCSBDatesController extends ApiController {
 
+  private static final String TEXT_CSV_VALUE = "text/csv";
+
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired UCSBDateBulkLoadService ucsbDateBulkLoadService;
+
+  @Value("${app.ucsbdates.stats.maxNames:20}")
+  private int maxNames;
+
   /**
    * List all UCSB dates
    *
+   * @param fields if given, only these fields of each date are returned
+   * @param response the response, which the database writes when it can (see DatabaseJsonService)
    * @return an iterable of UCSBDate
+   * @throws IOException if the response cannot be written
    */
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
-    Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
+  public Iterable<?> allUCSBDates(
+      @Parameter(
+              name = "fields",
+              description = "if given, only these fields of each date (comma separated)")
+          @RequestParam(required = false)
+          List<String> fields,
+      HttpServletResponse response)
+      throws IOException {
+    if (writtenByDatabase(DatabaseJsonService.UCSBDATES, fields, response)) {
+      return null;
+    }
+    Iterable<?> dates = findAll(ucsbDateRepository::findAllViews, UCSBDate.class, fields);
     return dates;
   }
 
+  /**
+   * Statistics of the dates, computed by the database with GROUP BY queries: the number of dates
+   * and the earliest and latest of them per quarter, and how many dates have each name. The results
+   * stay in the query cache (see EntityCacheConfig) until a write to the ucsbdates table (any of
+   * the POST, PUT or DELETE endpoints below, or a bulk load) invalidates them.
+   *
+   * @return the statistics
+   */
+  @Operation(summary = "Count the dates per quarter and per name")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/stats")
+  public UCSBDateStats ucsbDateStats() {
+    List<QuarterStats> quarters = ucsbDateRepository.statsByQuarter();
+    return UCSBDateStats.builder()
+        .total(quarters.stream().mapToLong(QuarterStats::getCount).sum())
+        .quarters(quarters)
+        .distinctNames(ucsbDateRepository.countDistinctNames())
+        .names(ucsbDateRepository.countsByName(Limit.of(maxNames)))
+        .build();
+  }
+
   /**
    * Get a single date by id
    *
+   * <p>The ETag is the date's version; send it back in If-Match to update it.
+   *
    * @param id the id of the date
    * @return a UCSBDate
    */
   @Operation(summary = "Get a single date")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<UCSBDate> getById(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
         ucsbDateRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-    return ucsbDate;
+    return ResponseEntity.ok().eTag(String.valueOf(ucsbDate.getVersion())).body(ucsbDate);
   }
 
   /**
@@ -100,6 +160,31 @@ public class UCSBDatesController extends ApiController {
     return savedUcsbDate;
   }
 
+  /**
+   * Create many dates at once, e.g. a whole academic calendar. The body is streamed into the
+   * database (see UCSBDateBulkLoadService), so it can hold millions of dates. If any date is
+   * invalid, none are created.
+   *
+   * @param contentType text/csv, for CSV with the header quarterYYYYQ,name,localDateTime; or
+   *     application/json, for an array of objects with those fields
+   * @param body the dates
+   * @return how many dates were created
+   */
+  @Operation(summary = "Create many dates from CSV or JSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public BulkLoadResult bulkLoadUCSBDates(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) {
+    try {
+      return ucsbDateBulkLoadService.load(
+          body, contentType.isCompatibleWith(MediaType.APPLICATION_JSON));
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+  }
+
   /**
    * Delete a UCSBDate
    *
@@ -110,39 +195,65 @@ public class UCSBDatesController extends ApiController {
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
   public Object deleteUCSBDate(@Parameter(name = "id") @RequestParam Long id) {
-    UCSBDate ucsbDate =
-        ucsbDateRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-    ucsbDateRepository.delete(ucsbDate);
+    if (ucsbDateRepository.deleteWithId(id) == 0) {
+      throw new EntityNotFoundException(UCSBDate.class, id);
+    }
     return genericMessage("UCSBDate with id %s deleted".formatted(id));
   }
 
   /**
    * Update a single date
    *
+   * <p>With an If-Match header holding the date's ETag, the date is updated in a single statement,
+   * and only if nobody else has changed it since that ETag was sent; otherwise the response is 412
+   * Precondition Failed. Without one, the date is updated whatever its version.
+   *
    * @param id id of the date to update
+   * @param ifMatch the ETag of the version being updated, if any
    * @param incoming the new date
-   * @return the updated date object
+   * @return the updated date object, with its new ETag
    */
   @Operation(summary = "Update a single date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public UCSBDate updateUCSBDate(
-      @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid UCSBDate incoming) {
-
-    UCSBDate ucsbDate =
-        ucsbDateRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-    ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-    ucsbDate.setName(incoming.getName());
-    ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+  public ResponseEntity<UCSBDate> updateUCSBDate(
+      @Parameter(name = "id") @RequestParam Long id,
+      @Parameter(name = "If-Match", description = "ETag from GET /api/ucsbdates?id=")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+          String ifMatch,
+      @RequestBody @Valid UCSBDate incoming) {
+    Long version = ifMatchVersion(ifMatch);
+    UCSBDate ucsbDate;
+    if (version != null) {
+      if (ucsbDateRepository.updateIfVersion(
+              id,
+              version,
+              incoming.getQuarterYYYYQ(),
+              incoming.getName(),
+              incoming.getLocalDateTime())
+          == 0) {
+        throw updateFailed(ucsbDateRepository, UCSBDate.class, id, version);
+      }
+      ucsbDate =
+          UCSBDate.builder()
+              .id(id)
+              .quarterYYYYQ(incoming.getQuarterYYYYQ())
+              .name(incoming.getName())
+              .localDateTime(incoming.getLocalDateTime())
+              .version(version + 1)
+              .build();
+    } else {
+      ucsbDate =
+          ucsbDateRepository
+              .findById(id)
+              .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-    ucsbDateRepository.save(ucsbDate);
+      ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
+      ucsbDate.setName(incoming.getName());
+      ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
-    return ucsbDate;
+      ucsbDate = ucsbDateRepository.save(ucsbDate);
+    }
+    return ResponseEntity.ok().eTag(String.valueOf(ucsbDate.getVersion())).body(ucsbDate);
   }
 }
@@ -3,18 +3,25 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -31,32 +38,49 @@ public class UCSBDiningCommonsController extends ApiController {
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
+   * @param fields if given, only these fields of each dining commons are returned
+   * @param response the response, which the database writes when it can (see DatabaseJsonService)
    * @return a list of all ucsbdiningcommons
+   * @throws IOException if the response cannot be written
    */
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
-    Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
+  public Iterable<?> allCommonss(
+      @Parameter(
+              name = "fields",
+              description = "if given, only these fields of each dining commons (comma separated)")
+          @RequestParam(required = false)
+          List<String> fields,
+      HttpServletResponse response)
+      throws IOException {
+    if (writtenByDatabase(DatabaseJsonService.UCSBDININGCOMMONS, fields, response)) {
+      return null;
+    }
+    Iterable<?> commons =
+        findAll(ucsbDiningCommonsRepository::findAllViews, UCSBDiningCommons.class, fields);
     return commons;
   }
 
   /**
    * This method returns a single diningcommons.
    *
+   * <p>The ETag is the commons' version; send it back in If-Match to update it.
+   *
    * @param code code of the diningcommons
    * @return a single diningcommons
    */
   @Operation(summary = "Get a single commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
+  public ResponseEntity<UCSBDiningCommons> getById(
+      @Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
             .findById(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
-    return commons;
+    return ResponseEntity.ok().eTag(String.valueOf(commons.getVersion())).body(commons);
   }
 
   /**
@@ -107,43 +131,74 @@ public class UCSBDiningCommonsController extends ApiController {
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
   public Object deleteCommons(@Parameter(name = "code") @RequestParam String code) {
-    UCSBDiningCommons commons =
-        ucsbDiningCommonsRepository
-            .findById(code)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-    ucsbDiningCommonsRepository.delete(commons);
+    if (ucsbDiningCommonsRepository.deleteWithCode(code) == 0) {
+      throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+    }
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
   /**
    * Update a single diningcommons. Accessible only to users with the role "ROLE_ADMIN".
    *
+   * <p>With an If-Match header holding the commons' ETag, the commons is updated in a single
+   * statement, and only if nobody else has changed it since that ETag was sent; otherwise the
+   * response is 412 Precondition Failed. Without one, the commons is updated whatever its version.
+   *
    * @param code code of the diningcommons
+   * @param ifMatch the ETag of the version being updated, if any
    * @param incoming the new commons contents
-   * @return the updated commons object
+   * @return the updated commons object, with its new ETag
    */
   @Operation(summary = "Update a single commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public UCSBDiningCommons updateCommons(
+  public ResponseEntity<UCSBDiningCommons> updateCommons(
       @Parameter(name = "code") @RequestParam String code,
+      @Parameter(name = "If-Match", description = "ETag from GET /api/ucsbdiningcommons?code=")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+          String ifMatch,
       @RequestBody @Valid UCSBDiningCommons incoming) {
-
-    UCSBDiningCommons commons =
-        ucsbDiningCommonsRepository
-            .findById(code)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-    commons.setName(incoming.getName());
-    commons.setHasSackMeal(incoming.getHasSackMeal());
-    commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-    commons.setHasDiningCam(incoming.getHasDiningCam());
-    commons.setLatitude(incoming.getLatitude());
-    commons.setLongitude(incoming.getLongitude());
-
-    ucsbDiningCommonsRepository.save(commons);
-
-    return commons;
+    Long version = ifMatchVersion(ifMatch);
+    UCSBDiningCommons commons;
+    if (version != null) {
+      if (ucsbDiningCommonsRepository.updateIfVersion(
+              code,
+              version,
+              incoming.getName(),
+              incoming.getHasSackMeal(),
+              incoming.getHasTakeOutMeal(),
+              incoming.getHasDiningCam(),
+              incoming.getLatitude(),
+              incoming.getLongitude())
+          == 0) {
+        throw updateFailed(ucsbDiningCommonsRepository, UCSBDiningCommons.class, code, version);
+      }
+      commons =
+          UCSBDiningCommons.builder()
+              .code(code)
+              .name(incoming.getName())
+              .hasSackMeal(incoming.getHasSackMeal())
+              .hasTakeOutMeal(incoming.getHasTakeOutMeal())
+              .hasDiningCam(incoming.getHasDiningCam())
+              .latitude(incoming.getLatitude())
+              .longitude(incoming.getLongitude())
+              .version(version + 1)
+              .build();
+    } else {
+      commons =
+          ucsbDiningCommonsRepository
+              .findById(code)
+              .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+
+      commons.setName(incoming.getName());
+      commons.setHasSackMeal(incoming.getHasSackMeal());
+      commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
+      commons.setHasDiningCam(incoming.getHasDiningCam());
+      commons.setLatitude(incoming.getLatitude());
+      commons.setLongitude(incoming.getLongitude());
+
+      commons = ucsbDiningCommonsRepository.save(commons);
+    }
+    return ResponseEntity.ok().eTag(String.valueOf(commons.getVersion())).body(commons);
   }
 }
@@ -1,17 +1,34 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserDirectoryService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * This is a REST controller for getting information about the users.
@@ -22,22 +39,135 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/admin/users")
 @RestController
 public class UsersController extends ApiController {
+  /** Largest page that may be requested from the users endpoint */
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  /** Columns that the users endpoint may be sorted by (each is backed by an index) */
+  public static final Set<String> SORT_FIELDS = Set.of("id", "email", "admin", "hostedDomain");
+
   @Autowired UserRepository userRepository;
 
+  @Autowired UserDirectoryService userDirectoryService;
+
   @Autowired ObjectMapper mapper;
 
   /**
-   * This method returns a list of all users. Accessible only to users with the role "ROLE_ADMIN".
+   * This method returns the users as a JSON array, optionally filtered and sorted. Accessible only
+   * to users with the role "ROLE_ADMIN".
+   *
+   * <p>Without page or size, every matching user is returned, as the admin users page expects. With
+   * either, one page is returned (page 0 and MAX_PAGE_SIZE users unless given).
+   *
+   * <p>The array is written to the response with a streaming JsonGenerator, so the body is never
+   * built up as a single String. The total number of matching users is returned in the
+   * X-Total-Count header, and for a page, the page details in the X-Page and X-Page-Size headers.
    *
-   * @return a list of all users
-   * @throws JsonProcessingException if there is an error processing the JSON
+   * @param page zero-based page number, or null for every user
+   * @param size number of users per page (at most MAX_PAGE_SIZE), or null for every user
+   * @param sort field to sort by: id, email, admin or hostedDomain
+   * @param direction ASC or DESC
+   * @param email if present, only users with this exact email
+   * @param admin if present, only users with this admin flag
+   * @param hostedDomain if present, only users with this hosted domain
+   * @param response the servlet response that the JSON is streamed to
+   * @throws IOException if there is an error writing the response
    */
-  @Operation(summary = "Get a list of all users")
+  @Operation(summary = "Get a page of users, optionally filtered and sorted")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("")
-  public ResponseEntity<String> users() throws JsonProcessingException {
-    Iterable<User> users = userRepository.findAll();
-    String body = mapper.writeValueAsString(users);
-    return ResponseEntity.ok().body(body);
+  public void users(
+      @Parameter(name = "page") @RequestParam(required = false) Integer page,
+      @Parameter(name = "size") @RequestParam(required = false) Integer size,
+      @Parameter(name = "sort") @RequestParam(defaultValue = "id") String sort,
+      @Parameter(name = "direction") @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+      @Parameter(name = "email") @RequestParam(required = false) String email,
+      @Parameter(name = "admin") @RequestParam(required = false) Boolean admin,
+      @Parameter(name = "hostedDomain") @RequestParam(required = false) String hostedDomain,
+      HttpServletResponse response)
+      throws IOException {
+
+    if (!SORT_FIELDS.contains(sort)) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "sort must be one of %s".formatted(SORT_FIELDS));
+    }
+    Sort order = Sort.by(direction, sort);
+    Pageable pageable = Pageable.unpaged(order);
+    if (page != null || size != null) {
+      int number = page == null ? 0 : page;
+      int pageSize = size == null ? MAX_PAGE_SIZE : size;
+      if (number < 0 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST,
+            "page must be >= 0 and size must be between 1 and %d".formatted(MAX_PAGE_SIZE));
+      }
+      pageable = PageRequest.of(number, pageSize, order);
+    }
+
+    Page<User> users = userRepository.findAll(filter(email, admin, hostedDomain), pageable);
+
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("X-Total-Count", Long.toString(users.getTotalElements()));
+    if (pageable.isPaged()) {
+      response.setHeader("X-Page", Integer.toString(pageable.getPageNumber()));
+      response.setHeader("X-Page-Size", Integer.toString(pageable.getPageSize()));
+    }
+
+    try (JsonGenerator generator =
+        mapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+      generator.writeStartArray();
+      for (User user : users) {
+        generator.writeObject(user);
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  /**
+   * This method returns users whose email, full name, given name or family name starts with the
+   * given prefix (ignoring case). It is served from an in-memory index and is intended for
+   * type-ahead search. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param prefix the prefix to search for
+   * @param limit the most results to return (at most UserDirectoryService.MAX_RESULTS)
+   * @return the matching users
+   */
+  @Operation(summary = "Search users by prefix of email or name")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/search")
+  public List<User> search(
+      @Parameter(name = "prefix") @RequestParam String prefix,
+      @Parameter(name = "limit") @RequestParam(defaultValue = "20") int limit) {
+    if (limit < 1 || limit > UserDirectoryService.MAX_RESULTS) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST,
+          "limit must be between 1 and %d".formatted(UserDirectoryService.MAX_RESULTS));
+    }
+    return userDirectoryService.search(prefix, limit);
+  }
+
+  /**
+   * Build the filter for the users endpoint; parameters that are null are not filtered on.
+   *
+   * @param email exact email to match, or null
+   * @param admin admin flag to match, or null
+   * @param hostedDomain hosted domain to match, or null
+   * @return a specification combining the given filters
+   */
+  static Specification<User> filter(String email, Boolean admin, String hostedDomain) {
+    return (root, query, cb) -> {
+      List<Predicate> predicates = new ArrayList<>();
+      if (email != null) {
+        predicates.add(cb.equal(root.get("email"), email));
+      }
+      if (admin != null) {
+        predicates.add(cb.equal(root.get("admin"), admin));
+      }
+      if (hostedDomain != null) {
+        predicates.add(cb.equal(root.get("hostedDomain"), hostedDomain));
+      }
+      return cb.and(predicates.toArray(new Predicate[0]));
+    };
   }
 }
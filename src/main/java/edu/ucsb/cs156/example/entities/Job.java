@@ -24,7 +24,11 @@ public class Job {
   @JoinColumn(name = "created_by_id")
   private User createdBy;
 
-  @CreatedDate private ZonedDateTime createdAt;
+  // jobs is partitioned by created_at on Postgres (see JobPartitions), so it never changes
+  @CreatedDate
+  @Column(updatable = false)
+  private ZonedDateTime createdAt;
+
   @LastModifiedDate private ZonedDateTime updatedAt;
 
   private String status;
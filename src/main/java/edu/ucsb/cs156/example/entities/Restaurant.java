@@ -1,13 +1,17 @@
 package edu.ucsb.cs156.example.entities;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /** This is a JPA entity that represents a restaurant. */
 @Data
@@ -15,6 +19,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "restaurants")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "restaurants")
 public class Restaurant {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,4 +28,6 @@ public class Restaurant {
 
   private String name;
   private String description;
+
+  @Version private long version; // sent as the ETag; see ApiController.ifMatchVersion
 }
@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import java.time.ZonedDateTime;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -31,4 +32,7 @@ public class User {
   private String locale;
   private String hostedDomain;
   private boolean admin;
+
+  // Written in batches by UserActivityService, not on every request
+  private ZonedDateTime lastSeenAt;
 }
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate that a
+ * conditional request (e.g. a PUT with If-Match) was made against a version of an entity that is no
+ * longer the current one.
+ */
+public class PreconditionFailedException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what did not match
+   */
+  public PreconditionFailedException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructor for the exception
+   *
+   * @param entityType The class of the entity that has changed, e.g. Restaurant.class
+   * @param id the id of the entity
+   * @param version the version the request expected
+   */
+  public PreconditionFailedException(Class<?> entityType, Object id, long version) {
+    this(
+        "%s with id %s is no longer at version %d"
+            .formatted(entityType.getSimpleName(), id.toString(), version));
+  }
+}
@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for one of the lists returned by a call to /api/batch.
+ *
+ * <p>The body is the list, as its /all endpoint would return it, or an error when the status is not
+ * 200.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchResult {
+  private String path;
+  private int status;
+  private Object body;
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for everything the frontend needs when it starts up, so that it can be
+ * fetched in one request.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class Bootstrap {
+  private SystemInfo systemInfo;
+  private CurrentUser currentUser; // null when nobody is logged in
+}
@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for a database connection that is currently checked out of the pool.
+ *
+ * <p>The owner is the job or controller method that took the connection (see
+ * ConnectionPoolMonitor).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ConnectionBorrower {
+  private String owner; // e.g. "job 12" or "RestaurantsController.allRestaurants"
+  private String thread;
+  private long heldMillis;
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for the state of the database connection pool.
+ *
+ * <p>The counts are null until the pool has started.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ConnectionPoolStatus {
+  private Integer active;
+  private Integer idle;
+  private Integer pending; // threads waiting for a connection
+  private Integer total;
+  private Integer max;
+  private List<ConnectionBorrower> borrowers; // longest held first
+}
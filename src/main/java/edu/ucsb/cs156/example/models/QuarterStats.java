@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class for the dates of one quarter, part of UCSBDateStats. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class QuarterStats {
+  private String quarterYYYYQ;
+  private long count;
+  private LocalDateTime earliest;
+  private LocalDateTime latest;
+}
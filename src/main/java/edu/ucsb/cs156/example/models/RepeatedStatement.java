@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for a SQL statement that one request or job ran many times, which is
+ * usually a lazy association loaded once per row (an N+1 query).
+ *
+ * <p>The SQL has no bind values, so it is the same for every row (see SqlMonitor).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RepeatedStatement {
+  private String owner; // e.g. "job 12" or "JobsController.allJobs"
+  private String sql;
+  private int count; // times the request or job ran it so far
+  private ZonedDateTime lastRun;
+}
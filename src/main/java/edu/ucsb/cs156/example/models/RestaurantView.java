@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for a restaurant as the GET endpoints return it. It has the same JSON as
+ * the Restaurant entity, but is read with a projection query, so reads build no entities for
+ * Hibernate to track (see RestaurantRepository).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RestaurantView {
+  private long id;
+  private String name;
+  private String description;
+  private long version;
+}
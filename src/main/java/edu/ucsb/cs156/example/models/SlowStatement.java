@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class for a SQL statement that took longer than the slow threshold to run. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SlowStatement {
+  private String owner; // e.g. "job 12" or "JobsController.allJobs"
+  private String sql;
+  private long millis;
+  private ZonedDateTime ranAt;
+}
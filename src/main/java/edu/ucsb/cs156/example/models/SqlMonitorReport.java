@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class for the statements SqlMonitor has flagged, most recent first. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SqlMonitorReport {
+  private long slowThresholdMillis;
+  private int repeatThreshold;
+  private List<RepeatedStatement> repeated;
+  private List<SlowStatement> slow;
+}
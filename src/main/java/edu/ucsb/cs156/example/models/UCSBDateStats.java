@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for the statistics at /api/ucsbdates/stats, which are computed by the
+ * database so that dashboards need not download every date.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class UCSBDateStats {
+  private long total;
+  private List<QuarterStats> quarters; // in order of quarterYYYYQ
+  private long distinctNames;
+  private List<NameCount> names; // the most common first, at most app.ucsbdates.stats.maxNames
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for a date as the GET endpoints return it. It has the same JSON as the
+ * UCSBDate entity, but is read with a projection query (see UCSBDateRepository).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class UCSBDateView {
+  private long id;
+  private String quarterYYYYQ;
+  private String name;
+  private LocalDateTime localDateTime;
+  private long version;
+}
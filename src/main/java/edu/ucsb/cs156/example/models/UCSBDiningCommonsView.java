@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for a dining commons as the GET endpoints return it. It has the same JSON
+ * as the UCSBDiningCommons entity, but is read with a projection query (see
+ * UCSBDiningCommonsRepository).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class UCSBDiningCommonsView {
+  private String code;
+  private String name;
+  private boolean hasSackMeal;
+  private boolean hasTakeOutMeal;
+  private boolean hasDiningCam;
+  private Double latitude;
+  private Double longitude;
+  private long version;
+}
@@ -1,8 +1,12 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import java.time.ZonedDateTime;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+  // On Postgres, only the partitions of jobs created since then are read (see JobPartitions)
+  Iterable<Job> findAllByCreatedAtGreaterThanEqual(ZonedDateTime since);
+}
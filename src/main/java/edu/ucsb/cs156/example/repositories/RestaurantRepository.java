@@ -1,9 +1,72 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.RestaurantView;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The RestaurantRepository is a repository for Restaurant entities */
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {}
+public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+  /**
+   * This method returns every restaurant as GET /all returns it, without building entities, so
+   * nothing is hydrated or added to the persistence context (see ReadPathBenchmarkIT).
+   *
+   * <p>The result is not cached: the queries region is bounded by entries, not bytes, and this is
+   * every row. The Postgres driver fetches the rows 1000 at a time, which bounds its own buffer,
+   * but they are all collected into the list.
+   *
+   * @return all restaurants
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.RestaurantView("
+          + "r.id, r.name, r.description, r.version) "
+          + "FROM restaurants r")
+  List<RestaurantView> findAllViews();
+
+  /**
+   * This method updates a restaurant in a single statement, but only if it is still at the given
+   * version, and moves it to the next version.
+   *
+   * @param id the id of the restaurant
+   * @param version the version the restaurant must be at
+   * @param name the new name
+   * @param description the new description
+   * @return 1 if the restaurant was updated, 0 if there is no such restaurant or it is at another
+   *     version
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE restaurants r SET "
+          + "r.name = :name, "
+          + "r.description = :description, "
+          + "r.version = r.version + 1 "
+          + "WHERE r.id = :id AND r.version = :version")
+  int updateIfVersion(
+      @Param("id") long id,
+      @Param("version") long version,
+      @Param("name") String name,
+      @Param("description") String description);
+
+  /**
+   * This method deletes a restaurant in a single statement, without loading it first.
+   *
+   * @param id the id of the restaurant
+   * @return 1 if the restaurant was deleted, 0 if there is no such restaurant
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM restaurants r WHERE r.id = :id")
+  int deleteWithId(@Param("id") long id);
+}
@@ -1,12 +1,47 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.NameCount;
+import edu.ucsb.cs156.example.models.QuarterStats;
+import edu.ucsb.cs156.example.models.UCSBDateView;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-/** The UCSBDateRepository is a repository for UCSBDate entities. */
+/**
+ * The UCSBDateRepository is a repository for UCSBDate entities.
+ *
+ * <p>The results of its find and statistics methods, other than findAllViews, are kept in the query
+ * cache (see EntityCacheConfig) until the ucsbdates table changes.
+ */
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+  /**
+   * This method returns every date as GET /all returns it, without building entities, so nothing is
+   * hydrated or added to the persistence context (see ReadPathBenchmarkIT).
+   *
+   * <p>The result is not cached, and is fetched 1000 rows at a time, as for {@link
+   * RestaurantRepository#findAllViews}.
+   *
+   * @return all dates
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.UCSBDateView("
+          + "d.id, d.quarterYYYYQ, d.name, d.localDateTime, d.version) "
+          + "FROM ucsbdates d")
+  List<UCSBDateView> findAllViews();
+
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    *
@@ -14,5 +49,89 @@ public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
    *     2024, 20243 for Summer 2024, 20244 for Fall 2024)
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "queries")
+  })
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  /**
+   * This method returns how many dates each quarter has, and the earliest and latest of them.
+   *
+   * @return one row per quarter, in order of quarterYYYYQ
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "queries")
+  })
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.QuarterStats("
+          + "d.quarterYYYYQ, count(d), min(d.localDateTime), max(d.localDateTime)) "
+          + "FROM ucsbdates d GROUP BY d.quarterYYYYQ ORDER BY d.quarterYYYYQ")
+  List<QuarterStats> statsByQuarter();
+
+  /**
+   * This method returns how many dates have each name, the most common first.
+   *
+   * @param limit how many names to return
+   * @return one row per name, ties in order of name
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "queries")
+  })
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.NameCount(d.name, count(d)) "
+          + "FROM ucsbdates d GROUP BY d.name ORDER BY count(d) DESC, d.name")
+  List<NameCount> countsByName(Limit limit);
+
+  /**
+   * This method returns how many different names the dates have.
+   *
+   * @return the number of names
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "queries")
+  })
+  @Query("SELECT count(DISTINCT d.name) FROM ucsbdates d")
+  long countDistinctNames();
+
+  /**
+   * This method updates a date in a single statement, but only if it is still at the given version,
+   * and moves it to the next version.
+   *
+   * @param id the id of the date
+   * @param version the version the date must be at
+   * @param quarterYYYYQ the new quarterYYYYQ
+   * @param name the new name
+   * @param localDateTime the new localDateTime
+   * @return 1 if the date was updated, 0 if there is no such date or it is at another version
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE ucsbdates r SET "
+          + "r.quarterYYYYQ = :quarterYYYYQ, "
+          + "r.name = :name, "
+          + "r.localDateTime = :localDateTime, "
+          + "r.version = r.version + 1 "
+          + "WHERE r.id = :id AND r.version = :version")
+  int updateIfVersion(
+      @Param("id") long id,
+      @Param("version") long version,
+      @Param("quarterYYYYQ") String quarterYYYYQ,
+      @Param("name") String name,
+      @Param("localDateTime") LocalDateTime localDateTime);
+
+  /**
+   * This method deletes a date in a single statement, without loading it first.
+   *
+   * @param id the id of the date
+   * @return 1 if the date was deleted, 0 if there is no such date
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM ucsbdates r WHERE r.id = :id")
+  int deleteWithId(@Param("id") long id);
 }
@@ -1,9 +1,83 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsView;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {}
+public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
+  /**
+   * This method returns every commons as GET /all returns it, without building entities, so nothing
+   * is hydrated or added to the persistence context (see ReadPathBenchmarkIT).
+   *
+   * <p>The result is not cached, and is fetched 1000 rows at a time, as for {@link
+   * RestaurantRepository#findAllViews}.
+   *
+   * @return all commons
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.UCSBDiningCommonsView("
+          + "c.code, c.name, c.hasSackMeal, c.hasTakeOutMeal, c.hasDiningCam, "
+          + "c.latitude, c.longitude, c.version) "
+          + "FROM ucsbdiningcommons c")
+  List<UCSBDiningCommonsView> findAllViews();
+
+  /**
+   * This method updates a commons in a single statement, but only if it is still at the given
+   * version, and moves it to the next version.
+   *
+   * @param code the code of the commons
+   * @param version the version the commons must be at
+   * @param name the new name
+   * @param hasSackMeal the new hasSackMeal
+   * @param hasTakeOutMeal the new hasTakeOutMeal
+   * @param hasDiningCam the new hasDiningCam
+   * @param latitude the new latitude
+   * @param longitude the new longitude
+   * @return 1 if the commons was updated, 0 if there is no such commons or it is at another version
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE ucsbdiningcommons r SET "
+          + "r.name = :name, "
+          + "r.hasSackMeal = :hasSackMeal, "
+          + "r.hasTakeOutMeal = :hasTakeOutMeal, "
+          + "r.hasDiningCam = :hasDiningCam, "
+          + "r.latitude = :latitude, "
+          + "r.longitude = :longitude, "
+          + "r.version = r.version + 1 "
+          + "WHERE r.code = :code AND r.version = :version")
+  int updateIfVersion(
+      @Param("code") String code,
+      @Param("version") long version,
+      @Param("name") String name,
+      @Param("hasSackMeal") boolean hasSackMeal,
+      @Param("hasTakeOutMeal") boolean hasTakeOutMeal,
+      @Param("hasDiningCam") boolean hasDiningCam,
+      @Param("latitude") Double latitude,
+      @Param("longitude") Double longitude);
+
+  /**
+   * This method deletes a commons in a single statement, without loading it first.
+   *
+   * @param code the code of the commons
+   * @return 1 if the commons was deleted, 0 if there is no such commons
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM ucsbdiningcommons r WHERE r.code = :code")
+  int deleteWithCode(@Param("code") String code);
+}
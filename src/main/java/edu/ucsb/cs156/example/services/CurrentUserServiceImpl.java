@@ -10,6 +10,7 @@ import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -32,6 +33,11 @@ public class CurrentUserServiceImpl extends CurrentUserService {
 
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
+  // lazy, as they are only needed for OAuth2 users
+  @Lazy @Autowired UserActivityService userActivityService;
+
+  @Lazy @Autowired UserDirectoryService userDirectoryService;
+
   @Value("${app.admin.emails}")
   private final List<String> adminEmails = new ArrayList<String>();
 
@@ -51,7 +57,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * automatically injected by Spring.
    *
    * <p>This method also has a side effect of storing the user in the database if they are not
-   * already there.
+   * already there, and of recording their activity for the lastSeenAt column.
    *
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -79,7 +85,9 @@ public class CurrentUserServiceImpl extends CurrentUserService {
       if (adminEmails.contains(email) && !u.getAdmin()) {
         u.setAdmin(true);
         userRepository.save(u);
+        userDirectoryService.put(u);
       }
+      userActivityService.recordActivity(u.getId());
       return u;
     }
 
@@ -97,6 +105,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
             .admin(adminEmails.contains(email))
             .build();
     userRepository.save(u);
+    userDirectoryService.put(u);
+    userActivityService.recordActivity(u.getId());
     return u;
   }
 
@@ -0,0 +1,267 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that has the database write a whole table as a JSON array, for the /all
+ * endpoints, instead of loading its rows as objects and serializing them with Jackson.
+ *
+ * <p>The table is read in chunks of {@code app.db.jsonArrays.chunkRows} rows, in order of its key.
+ * The database turns each chunk into one JSON array ({@code json_agg} of {@code json_build_object}
+ * on Postgres, {@code JSON_ARRAYAGG} of {@code JSON_OBJECT} on H2), and its bytes are copied to the
+ * response as they are, so at most one chunk is held in memory. The chunks are read in one
+ * read-only, repeatable read transaction, so together they are a snapshot of the table.
+ *
+ * <p>The JSON has the same properties, in the same order, as the entity would; only the spacing and
+ * the order of the rows (by key) can differ. It is read from the database every time: the query
+ * cache is not used.
+ *
+ * <p>It is off unless {@code app.db.jsonArrays.enabled} is true, and is only used on Postgres and
+ * H2.
+ */
+@Slf4j
+@Service
+public class DatabaseJsonService {
+
+  /**
+   * A property of the JSON objects, and the column it comes from.
+   *
+   * @param property the property name, as Jackson writes it for the entity
+   * @param column the column
+   * @param timestamp whether the column is a timestamp, written as an ISO date-time string
+   */
+  public record Property(String property, String column, boolean timestamp) {
+    public static Property of(String property, String column) {
+      return new Property(property, column, false);
+    }
+  }
+
+  /**
+   * A table that can be written as a JSON array.
+   *
+   * @param name the table
+   * @param key the column the rows are ordered and split into chunks by; it must be unique
+   * @param properties the properties of each row's JSON object, in order
+   */
+  public record Table(String name, String key, List<Property> properties) {}
+
+  public static final Table RESTAURANTS =
+      new Table(
+          "restaurants",
+          "id",
+          List.of(
+              Property.of("id", "id"),
+              Property.of("name", "name"),
+              Property.of("description", "description"),
+              Property.of("version", "version")));
+
+  public static final Table UCSBDATES =
+      new Table(
+          "ucsbdates",
+          "id",
+          List.of(
+              Property.of("id", "id"),
+              Property.of("quarterYYYYQ", "quarteryyyyq"),
+              Property.of("name", "name"),
+              new Property("localDateTime", "local_date_time", true),
+              Property.of("version", "version")));
+
+  public static final Table UCSBDININGCOMMONS =
+      new Table(
+          "ucsbdiningcommons",
+          "code",
+          List.of(
+              Property.of("code", "code"),
+              Property.of("name", "name"),
+              Property.of("hasSackMeal", "has_sack_meal"),
+              Property.of("hasTakeOutMeal", "has_take_out_meal"),
+              Property.of("hasDiningCam", "has_dining_cam"),
+              Property.of("latitude", "latitude"),
+              Property.of("longitude", "longitude"),
+              Property.of("version", "version")));
+
+  /** The databases whose JSON functions this service knows. */
+  enum Dialect {
+    POSTGRES(
+        "SELECT json_agg(json_build_object(%1$s) ORDER BY t.%2$s), max(t.%2$s), count(*)"
+            + " FROM (SELECT * FROM %3$s%4$s ORDER BY %2$s LIMIT ?) t"),
+    H2(
+        "SELECT JSON_ARRAYAGG(JSON_OBJECT(%1$s) ORDER BY t.%2$s), MAX(t.%2$s), COUNT(*)"
+            + " FROM (SELECT * FROM %3$s%4$s ORDER BY %2$s FETCH FIRST ? ROWS ONLY) t");
+
+    /** properties, key, table, WHERE clause */
+    private final String chunkTemplate;
+
+    Dialect(String chunkTemplate) {
+      this.chunkTemplate = chunkTemplate;
+    }
+
+    /**
+     * This method returns the query for one chunk of a table: its rows as a JSON array, the last
+     * key in it, and the number of rows in it. The first chunk has no lower bound on the key; the
+     * others start after the previous chunk's last key.
+     */
+    String chunkQuery(Table table, boolean first) {
+      return chunkTemplate.formatted(
+          table.properties().stream().map(this::property).collect(Collectors.joining(", ")),
+          table.key(),
+          table.name(),
+          first ? "" : " WHERE %s > ?".formatted(table.key()));
+    }
+
+    private String property(Property p) {
+      if (this == POSTGRES) {
+        return "'%s', t.%s".formatted(p.property(), p.column());
+      }
+      // H2 writes timestamps with a space instead of the T
+      return p.timestamp()
+          ? "'%s': REPLACE(CAST(t.%s AS VARCHAR), ' ', 'T')".formatted(p.property(), p.column())
+          : "'%s': t.%s".formatted(p.property(), p.column());
+    }
+  }
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${app.db.jsonArrays.enabled:false}")
+  private boolean enabled;
+
+  @Value("${app.db.jsonArrays.chunkRows:10000}")
+  private int chunkRows;
+
+  private volatile Dialect dialect;
+
+  private volatile boolean dialectChecked;
+
+  /**
+   * This method returns whether the database writes the /all responses; it does when {@code
+   * app.db.jsonArrays.enabled} is true and the database is Postgres or H2.
+   *
+   * @return true if {@link #write(Table, HttpServletResponse)} can be used
+   */
+  public boolean isEnabled() {
+    return enabled && dialect() != null;
+  }
+
+  Dialect dialect() {
+    if (!dialectChecked) {
+      dialect =
+          jdbcTemplate.execute(
+              (ConnectionCallback<Dialect>)
+                  connection -> {
+                    if (connection.isWrapperFor(PGConnection.class)) {
+                      return Dialect.POSTGRES;
+                    }
+                    if ("H2".equals(connection.getMetaData().getDatabaseProductName())) {
+                      return Dialect.H2;
+                    }
+                    log.warn(
+                        "app.db.jsonArrays.enabled is true, but {} has no JSON functions that"
+                            + " DatabaseJsonService knows; /all responses are written by Jackson",
+                        connection.getMetaData().getDatabaseProductName());
+                    return null;
+                  });
+      dialectChecked = true;
+    }
+    return dialect;
+  }
+
+  /**
+   * This method writes every row of a table to the response as a JSON array.
+   *
+   * @param table the table
+   * @param response the response
+   * @throws IOException if the response cannot be written
+   */
+  public void write(Table table, HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    write(table, response.getOutputStream());
+  }
+
+  /**
+   * This method writes every row of a table to a stream as a JSON array.
+   *
+   * @param table the table
+   * @param out where the array is written
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(Table table, OutputStream out) throws IOException {
+    Dialect dialect = dialect();
+    String firstChunk = dialect.chunkQuery(table, true);
+    String nextChunk = dialect.chunkQuery(table, false);
+
+    TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+    readOnly.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    try {
+      readOnly.executeWithoutResult(
+          status ->
+              jdbcTemplate.execute(
+                  (ConnectionCallback<Void>)
+                      connection -> {
+                        writeChunks(connection, firstChunk, nextChunk, out);
+                        return null;
+                      }));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void writeChunks(
+      Connection connection, String firstChunk, String nextChunk, OutputStream out)
+      throws SQLException {
+    try {
+      out.write('[');
+      Object lastKey = null;
+      boolean first = true;
+      long count;
+      do {
+        try (var statement = connection.prepareStatement(first ? firstChunk : nextChunk)) {
+          int parameter = 1;
+          if (!first) {
+            statement.setObject(parameter++, lastKey);
+          }
+          statement.setInt(parameter, chunkRows);
+          try (var rows = statement.executeQuery()) {
+            rows.next();
+            byte[] array = rows.getBytes(1);
+            lastKey = rows.getObject(2);
+            count = rows.getLong(3);
+            if (count > 0) {
+              if (!first) {
+                out.write(',');
+              }
+              // the elements of the chunk's array, without its brackets
+              out.write(array, 1, array.length - 2);
+            }
+          }
+        }
+        first = false;
+      } while (count == chunkRows);
+      out.write(']');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
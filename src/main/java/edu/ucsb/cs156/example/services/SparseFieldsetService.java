@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This is a service that loads only some fields of every row of an entity, for list endpoints that
+ * take a {@code fields} parameter (sparse fieldsets), e.g. {@code
+ * /api/restaurants/all?fields=id,name} for a dropdown.
+ *
+ * <p>The query is a JPA tuple projection that selects only the requested columns, so the others
+ * (such as a job's log) are never read from the database, hydrated into entities or serialized.
+ *
+ * <p>Only an entity's basic attributes that appear in its JSON can be requested; associations and
+ * {@code @JsonIgnore}d attributes cannot.
+ */
+@Service
+public class SparseFieldsetService {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  private final Map<Class<?>, Set<String>> fieldsByType = new ConcurrentHashMap<>();
+
+  /**
+   * This method returns the fields that can be requested for an entity type.
+   *
+   * @param type the entity class
+   * @return the names of the fields, in alphabetical order
+   */
+  public Set<String> fieldsOf(Class<?> type) {
+    return fieldsByType.computeIfAbsent(
+        type,
+        t -> {
+          SortedSet<String> fields = new TreeSet<>();
+          for (Attribute<?, ?> attribute : entityManager.getMetamodel().entity(t).getAttributes()) {
+            if (requestable(attribute)) {
+              fields.add(attribute.getName());
+            }
+          }
+          return Collections.unmodifiableSortedSet(fields);
+        });
+  }
+
+  // Hibernate's attributes are always backed by a field or a getter
+  static boolean requestable(Attribute<?, ?> attribute) {
+    return attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC
+        && !((AnnotatedElement) attribute.getJavaMember()).isAnnotationPresent(JsonIgnore.class);
+  }
+
+  /**
+   * This method returns the given fields of every row of an entity's table.
+   *
+   * @param type the entity class
+   * @param fields the fields to return; duplicates are ignored
+   * @return one map per row, from field name to value, with the fields in the order requested
+   * @throws IllegalArgumentException if a field cannot be requested (see {@link #fieldsOf})
+   */
+  @Transactional(readOnly = true)
+  public List<Map<String, Object>> findAll(Class<?> type, List<String> fields) {
+    return findAll(type, fields, null);
+  }
+
+  /** A condition on the rows of an entity's table, e.g. that a job was created recently. */
+  @FunctionalInterface
+  public interface Restriction {
+    /**
+     * @param cb the criteria builder
+     * @param root the entity being queried
+     * @return the condition
+     */
+    Predicate on(CriteriaBuilder cb, Root<?> root);
+  }
+
+  /**
+   * This method returns the given fields of the rows of an entity's table that meet a condition.
+   *
+   * @param type the entity class
+   * @param fields the fields to return; duplicates are ignored
+   * @param where the condition, or null for every row
+   * @return one map per row, from field name to value, with the fields in the order requested
+   * @throws IllegalArgumentException if a field cannot be requested (see {@link #fieldsOf})
+   */
+  @Transactional(readOnly = true)
+  public List<Map<String, Object>> findAll(Class<?> type, List<String> fields, Restriction where) {
+    Set<String> requested = new LinkedHashSet<>(fields);
+    Set<String> allowed = fieldsOf(type);
+    if (!allowed.containsAll(requested)) {
+      requested.removeAll(allowed);
+      throw new IllegalArgumentException(
+          "unknown fields %s; fields must be chosen from %s".formatted(requested, allowed));
+    }
+
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<?> root = query.from(type);
+    List<Selection<?>> selections = new ArrayList<>();
+    for (String field : requested) {
+      selections.add(root.get(field).alias(field));
+    }
+    query.multiselect(selections);
+    if (where != null) {
+      query.where(where.on(cb, root));
+    }
+
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (String field : requested) {
+        row.put(field, tuple.get(field));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.services;
 
 import edu.ucsb.cs156.example.models.SystemInfo;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -39,14 +40,12 @@ public class SystemInfoServiceImpl extends SystemInfoService {
     return commit != null && repo != null ? repo + "/commit/" + commit : null;
   }
 
-  /**
-   * This method returns the system information.
-   *
-   * @see edu.ucsb.cs156.example.models.SystemInfo
-   * @return the system information
-   */
-  public SystemInfo getSystemInfo() {
-    SystemInfo si =
+  private SystemInfo systemInfo;
+
+  /** Build the SystemInfo once; everything in it comes from properties that cannot change. */
+  @PostConstruct
+  void init() {
+    systemInfo =
         SystemInfo.builder()
             .springH2ConsoleEnabled(this.springH2ConsoleEnabled)
             .showSwaggerUILink(this.showSwaggerUILink)
@@ -56,7 +55,16 @@ public class SystemInfoServiceImpl extends SystemInfoService {
             .commitId(this.commitId)
             .githubUrl(githubUrl(this.sourceRepo, this.commitId))
             .build();
-    log.info("getSystemInfo returns {}", si);
-    return si;
+    log.info("systemInfo is {}", systemInfo);
+  }
+
+  /**
+   * This method returns the system information.
+   *
+   * @see edu.ucsb.cs156.example.models.SystemInfo
+   * @return the system information
+   */
+  public SystemInfo getSystemInfo() {
+    return systemInfo;
   }
 }
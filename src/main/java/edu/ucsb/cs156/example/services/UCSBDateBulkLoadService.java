@@ -0,0 +1,373 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that loads many UCSBDates at once, e.g. a whole academic calendar, from CSV or
+ * JSON.
+ *
+ * <p>The input is read and checked one row at a time, and each row is sent to the database as soon
+ * as it has been checked, so the input is never held in memory. On Postgres the rows are sent with
+ * COPY (through the driver's CopyManager), which is the fastest way to insert rows; on any other
+ * database (H2 in development and tests) they are sent as batched INSERTs. Either way the whole
+ * load is one transaction: if any row is invalid, none are loaded.
+ *
+ * <p>The rows bypass Hibernate, so cached dates and queries are evicted once the load commits.
+ */
+@Slf4j
+@Service
+public class UCSBDateBulkLoadService {
+  /** The fields of each row, which are also the CSV header */
+  public static final List<String> FIELDS = List.of("quarterYYYYQ", "name", "localDateTime");
+
+  private static final Pattern QUARTER = Pattern.compile("\\d{4}[1-4]");
+
+  static final String COPY_SQL =
+      "COPY ucsbdates (quarteryyyyq, name, local_date_time) FROM STDIN WITH (FORMAT csv)";
+  static final String INSERT_SQL =
+      "INSERT INTO ucsbdates (quarteryyyyq, name, local_date_time) VALUES (?, ?, ?)";
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Value("${app.ucsbdates.bulkLoad.batchSize:1000}")
+  private int batchSize;
+
+  /** A date that has been checked and is ready to insert. */
+  record Row(String quarterYYYYQ, String name, LocalDateTime localDateTime) {}
+
+  /** Where checked rows are sent. */
+  private interface RowSink {
+    void add(Row row) throws SQLException;
+
+    /**
+     * @return the number of rows inserted
+     */
+    long finish() throws SQLException;
+
+    /** Gives up on the rows sent so far. */
+    void abort() throws SQLException;
+  }
+
+  /**
+   * This method loads dates from CSV or JSON.
+   *
+   * @param input the CSV or JSON
+   * @param json true for JSON (an array of objects with the {@link #FIELDS}), false for CSV (a
+   *     header line naming the {@link #FIELDS}, in any order, then one line per date)
+   * @return how many dates were loaded, and how
+   * @throws IllegalArgumentException if the input is malformed or a row is invalid, naming the row;
+   *     nothing is loaded
+   */
+  public BulkLoadResult load(InputStream input, boolean json) {
+    long start = System.nanoTime();
+    BulkLoadResult result =
+        transactionTemplate.execute(
+            status ->
+                jdbcTemplate.execute(
+                    (ConnectionCallback<BulkLoadResult>) c -> load(c, input, json)));
+
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    sessionFactory.getCache().evictEntityData(UCSBDate.class);
+    sessionFactory.getCache().evictQueryRegions();
+
+    result.setMillis((System.nanoTime() - start) / 1_000_000);
+    log.info(
+        "Loaded {} ucsbdates with {} in {}ms",
+        result.getRows(),
+        result.getMethod(),
+        result.getMillis());
+    return result;
+  }
+
+  BulkLoadResult load(Connection connection, InputStream input, boolean json) throws SQLException {
+    boolean copy = connection.isWrapperFor(PGConnection.class);
+    RowSink sink = copy ? new CopySink(connection) : new BatchSink(connection);
+    Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    try {
+      if (json) {
+        readJson(reader, sink);
+      } else {
+        readCsv(reader, sink);
+      }
+    } catch (IOException e) {
+      sink.abort();
+      throw new UncheckedIOException(e);
+    } catch (SQLException | RuntimeException e) {
+      sink.abort();
+      throw e;
+    }
+    return BulkLoadResult.builder().rows(sink.finish()).method(copy ? "copy" : "batch").build();
+  }
+
+  /**
+   * Checks one row's values.
+   *
+   * @param number the row's number in the input, counting from 1, for error messages
+   * @return the row
+   * @throws IllegalArgumentException if a value is missing or invalid
+   */
+  static Row row(long number, String quarterYYYYQ, String name, String localDateTime) {
+    if (quarterYYYYQ == null || !QUARTER.matcher(quarterYYYYQ).matches()) {
+      throw new IllegalArgumentException(
+          "row %d: quarterYYYYQ %s is not a year and quarter 1-4, e.g. 20244"
+              .formatted(number, quarterYYYYQ));
+    }
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("row %d: name is missing".formatted(number));
+    }
+    if (localDateTime != null) {
+      try {
+        return new Row(quarterYYYYQ, name, LocalDateTime.parse(localDateTime));
+      } catch (DateTimeParseException e) {
+        // reported below
+      }
+    }
+    throw new IllegalArgumentException(
+        "row %d: localDateTime %s is not an ISO date and time, e.g. 2024-09-26T00:00:00"
+            .formatted(number, localDateTime));
+  }
+
+  private void readJson(Reader reader, RowSink sink) throws IOException, SQLException {
+    try (JsonParser parser = mapper.getFactory().createParser(reader)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IllegalArgumentException("expected a JSON array of dates");
+      }
+      long number = 0;
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        number++;
+        Map<String, String> values = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.currentName();
+          if (!FIELDS.contains(field)) {
+            throw new IllegalArgumentException(
+                "row %d: unknown field %s; fields are %s".formatted(number, field, FIELDS));
+          }
+          if (parser.nextToken().isStructStart()) {
+            throw new IllegalArgumentException(
+                "row %d: %s must be a string".formatted(number, field));
+          }
+          values.put(field, parser.getValueAsString());
+        }
+        sink.add(
+            row(
+                number,
+                values.get("quarterYYYYQ"),
+                values.get("name"),
+                values.get("localDateTime")));
+      }
+      if (parser.currentToken() != JsonToken.END_ARRAY) {
+        throw new IllegalArgumentException("row %d: expected a JSON object".formatted(number + 1));
+      }
+    } catch (JsonParseException e) {
+      throw new IllegalArgumentException("malformed JSON: " + e.getOriginalMessage());
+    }
+  }
+
+  private void readCsv(Reader reader, RowSink sink) throws IOException, SQLException {
+    CsvReader csv = new CsvReader(reader);
+    List<String> header = csv.next();
+    if (header == null || header.size() != FIELDS.size() || !header.containsAll(FIELDS)) {
+      throw new IllegalArgumentException(
+          "the first line must name the columns %s, in any order, not %s"
+              .formatted(FIELDS, header));
+    }
+    int quarter = header.indexOf("quarterYYYYQ");
+    int name = header.indexOf("name");
+    int localDateTime = header.indexOf("localDateTime");
+    long number = 0;
+    for (List<String> values = csv.next(); values != null; values = csv.next()) {
+      number++;
+      if (values.size() != header.size()) {
+        throw new IllegalArgumentException(
+            "row %d: expected %d values, not %d".formatted(number, header.size(), values.size()));
+      }
+      sink.add(row(number, values.get(quarter), values.get(name), values.get(localDateTime)));
+    }
+  }
+
+  /**
+   * Reads CSV (RFC 4180: values containing commas, quotes or line breaks are quoted, with quotes
+   * doubled) one record at a time. Blank lines are skipped.
+   */
+  static class CsvReader {
+    private final Reader reader;
+    private int next;
+
+    CsvReader(Reader reader) throws IOException {
+      this.reader = reader;
+      this.next = reader.read();
+    }
+
+    /**
+     * @return the values of the next record, or null at the end of the input
+     */
+    List<String> next() throws IOException {
+      while (next == '\r' || next == '\n') {
+        next = reader.read();
+      }
+      if (next == -1) {
+        return null;
+      }
+      List<String> values = new ArrayList<>();
+      StringBuilder value = new StringBuilder();
+      boolean quoted = false;
+      while (true) {
+        int c = next;
+        next = reader.read();
+        if (quoted) {
+          if (c == -1) {
+            throw new IllegalArgumentException("malformed CSV: unterminated quoted value");
+          } else if (c == '"' && next == '"') {
+            value.append('"');
+            next = reader.read();
+          } else if (c == '"') {
+            quoted = false;
+          } else {
+            value.append((char) c);
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == ',') {
+          values.add(value.toString());
+          value.setLength(0);
+        } else if (c == '\r' || c == '\n' || c == -1) {
+          values.add(value.toString());
+          return values;
+        } else {
+          value.append((char) c);
+        }
+      }
+    }
+  }
+
+  /** Sends rows to Postgres with COPY, as CSV, in chunks of about 64 KB. */
+  private static class CopySink implements RowSink {
+    private static final int CHUNK = 64 * 1024;
+
+    private final CopyIn copyIn;
+    private final StringBuilder chunk = new StringBuilder(CHUNK + 1024);
+
+    CopySink(Connection connection) throws SQLException {
+      copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+    }
+
+    @Override
+    public void add(Row row) throws SQLException {
+      csvValue(row.quarterYYYYQ());
+      chunk.append(',');
+      csvValue(row.name());
+      chunk.append(',').append(row.localDateTime()).append('\n');
+      if (chunk.length() >= CHUNK) {
+        flush();
+      }
+    }
+
+    private void csvValue(String value) {
+      chunk.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private void flush() throws SQLException {
+      byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+      chunk.setLength(0);
+    }
+
+    @Override
+    public long finish() throws SQLException {
+      flush();
+      return copyIn.endCopy();
+    }
+
+    @Override
+    public void abort() throws SQLException {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  /** Sends rows as INSERTs, batchSize at a time. */
+  private class BatchSink implements RowSink {
+    private final PreparedStatement insert;
+    private int batched;
+    private long inserted;
+
+    BatchSink(Connection connection) throws SQLException {
+      insert = connection.prepareStatement(INSERT_SQL);
+    }
+
+    @Override
+    public void add(Row row) throws SQLException {
+      insert.setString(1, row.quarterYYYYQ());
+      insert.setString(2, row.name());
+      insert.setTimestamp(3, Timestamp.valueOf(row.localDateTime()));
+      insert.addBatch();
+      if (++batched == batchSize) {
+        flush();
+      }
+    }
+
+    private void flush() throws SQLException {
+      if (batched > 0) {
+        insert.executeBatch();
+        inserted += batched;
+        batched = 0;
+      }
+    }
+
+    @Override
+    public long finish() throws SQLException {
+      try {
+        flush();
+        return inserted;
+      } finally {
+        insert.close();
+      }
+    }
+
+    @Override
+    public void abort() throws SQLException {
+      insert.close();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that keeps track of when each user was last seen.
+ *
+ * <p>Activity is recorded in memory and written to the users table as a single batched UPDATE every
+ * few seconds (see app.users.lastSeenFlushMs), so the number of database writes per interval is
+ * bounded by the number of distinct active users rather than by the number of requests. Pending
+ * values are also flushed when the application shuts down.
+ */
+@Slf4j
+@Service
+public class UserActivityService {
+
+  static final String UPDATE_SQL = "UPDATE users SET last_seen_at = ? WHERE id = ?";
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final Map<Long, ZonedDateTime> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Record that the user with the given id was active just now.
+   *
+   * @param userId id of the user
+   */
+  public void recordActivity(long userId) {
+    recordActivity(userId, ZonedDateTime.now());
+  }
+
+  /**
+   * Record that the user with the given id was active at the given time. Only the latest time per
+   * user is kept until the next flush.
+   *
+   * @param userId id of the user
+   * @param seenAt when the user was seen
+   */
+  public void recordActivity(long userId, ZonedDateTime seenAt) {
+    pending.merge(userId, seenAt, UserActivityService::latest);
+  }
+
+  /**
+   * Returns the number of users with activity that has not yet been written to the database.
+   *
+   * @return number of pending users
+   */
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Write all pending activity to the database as one batched UPDATE. If the write fails, the
+   * drained values are put back so they are retried on the next flush.
+   *
+   * @return the number of users written
+   */
+  @Scheduled(
+      fixedDelayString = "${app.users.lastSeenFlushMs:5000}",
+      initialDelayString = "${app.users.lastSeenFlushMs:5000}")
+  public int flush() {
+    Map<Long, ZonedDateTime> drained = new HashMap<>();
+    for (Long id : pending.keySet()) {
+      // removes the entry unless another thread already has
+      pending.computeIfPresent(
+          id,
+          (key, seenAt) -> {
+            drained.put(key, seenAt);
+            return null;
+          });
+    }
+    if (drained.isEmpty()) {
+      return 0;
+    }
+
+    List<Object[]> batch = new ArrayList<>(drained.size());
+    drained.forEach(
+        (id, seenAt) -> batch.add(new Object[] {Timestamp.from(seenAt.toInstant()), id}));
+
+    try {
+      jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+    } catch (RuntimeException e) {
+      log.warn("Failed to flush lastSeenAt for {} users, will retry", drained.size(), e);
+      drained.forEach((id, seenAt) -> pending.merge(id, seenAt, UserActivityService::latest));
+      return 0;
+    }
+    log.debug("Flushed lastSeenAt for {} users", drained.size());
+    return drained.size();
+  }
+
+  /** Flush any pending activity before the application shuts down. */
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  private static ZonedDateTime latest(ZonedDateTime a, ZonedDateTime b) {
+    return a.isAfter(b) ? a : b;
+  }
+}
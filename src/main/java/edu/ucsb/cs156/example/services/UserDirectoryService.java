@@ -0,0 +1,118 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that keeps an in-memory prefix index of users for admin type-ahead search.
+ *
+ * <p>The index is a sorted map whose keys are the lower-cased email, fullName, givenName and
+ * familyName of each user followed by the user's id, so a prefix query is a range scan over the map
+ * (O(log n) to find the start, plus one step per match). It is loaded from the database when the
+ * application starts, and kept up to date by CurrentUserServiceImpl whenever it creates or updates
+ * a user.
+ */
+@Slf4j
+@Service
+public class UserDirectoryService {
+
+  /** The most results that a single search may return */
+  public static final int MAX_RESULTS = 100;
+
+  private static final char SEPARATOR = '\u0000';
+
+  @Autowired private UserRepository userRepository;
+
+  private final Map<Long, User> usersById = new ConcurrentHashMap<>();
+
+  private final ConcurrentNavigableMap<String, Long> index = new ConcurrentSkipListMap<>();
+
+  /** Load every user from the database into the index. */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    usersById.clear();
+    index.clear();
+    userRepository.findAll().forEach(this::put);
+    log.info("UserDirectoryService indexed {} users", usersById.size());
+  }
+
+  /**
+   * Add a user to the index, or re-index them if they are already present.
+   *
+   * @param user the user that was created or updated
+   */
+  public synchronized void put(User user) {
+    User previous = usersById.put(user.getId(), user);
+    if (previous != null) {
+      keys(previous).forEach(index::remove);
+    }
+    keys(user).forEach(key -> index.put(key, user.getId()));
+  }
+
+  /**
+   * Find users whose email, full name, given name or family name starts with the given prefix,
+   * ignoring case.
+   *
+   * @param prefix the prefix to search for
+   * @param limit the most results to return
+   * @return matching users, ordered by the first field value that matched
+   */
+  public List<User> search(String prefix, int limit) {
+    String from = normalize(prefix);
+    if (from.isEmpty()) {
+      return List.of();
+    }
+    String to = from + Character.MAX_VALUE;
+
+    Set<Long> ids = new LinkedHashSet<>();
+    for (Long id : index.subMap(from, true, to, false).values()) {
+      ids.add(id);
+      if (ids.size() >= limit) {
+        break;
+      }
+    }
+    return ids.stream().map(usersById::get).filter(Objects::nonNull).toList();
+  }
+
+  /**
+   * Returns the number of users in the index.
+   *
+   * @return number of indexed users
+   */
+  public int size() {
+    return usersById.size();
+  }
+
+  static List<String> keys(User user) {
+    List<String> keys = new ArrayList<>(4);
+    for (String value :
+        new String[] {
+          user.getEmail(), user.getFullName(), user.getGivenName(), user.getFamilyName()
+        }) {
+      String term = normalize(value);
+      if (!term.isEmpty()) {
+        keys.add(term + SEPARATOR + user.getId());
+      }
+    }
+    return keys;
+  }
+
+  static String normalize(String value) {
+    return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.services.jobs;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
@@ -29,16 +30,22 @@ public class JobService {
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
     JobContext context = new JobContext(jobsRepository, job);
 
+    // lets log lines and ConnectionPoolMonitor attribute work on this thread to the job
+    MDC.put("job", String.valueOf(job.getId()));
     try {
-      jobFunction.accept(context);
-    } catch (Exception e) {
-      job.setStatus("error");
-      context.log(e.getMessage());
-      return;
+      try {
+        jobFunction.accept(context);
+      } catch (Exception e) {
+        job.setStatus("error");
+        context.log(e.getMessage());
+        return;
+      }
+
+      job.setStatus("complete");
+      jobsRepository.save(job);
+    } finally {
+      MDC.remove("job");
     }
-
-    job.setStatus("complete");
-    jobsRepository.save(job);
   }
 
   public String getJobLogs(Long jobId) {
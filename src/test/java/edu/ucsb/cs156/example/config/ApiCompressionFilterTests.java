@@ -0,0 +1,293 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ApiCompressionFilterTests {
+
+  private final ApiCompressionFilter filter =
+      new ApiCompressionFilter(100, 6, Set.of("application/json", "text/plain"));
+
+  private static byte[] body(int size) {
+    return "x".repeat(size).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] gunzip(byte[] compressed) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return in.readAllBytes();
+    }
+  }
+
+  private MockHttpServletResponse run(String acceptEncoding, String contentType, byte[] body)
+      throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    if (acceptEncoding != null) {
+      request.addHeader("Accept-Encoding", acceptEncoding);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    FilterChain chain =
+        (req, res) -> {
+          res.setContentType(contentType);
+          res.setContentLength(body.length);
+          res.getOutputStream().write(body);
+          res.getOutputStream().flush();
+        };
+    filter.doFilter(request, response, chain);
+    return response;
+  }
+
+  @Test
+  public void large_json_is_compressed() throws Exception {
+    byte[] body = body(5000);
+    MockHttpServletResponse response = run("gzip, deflate, br", "application/json", body);
+
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getHeader("Vary"));
+    assertNull(response.getHeader("Content-Length"));
+    assertArrayEquals(body, gunzip(response.getContentAsByteArray()));
+  }
+
+  @Test
+  public void small_json_is_not_compressed_and_gets_content_length() throws Exception {
+    byte[] body = body(99);
+    MockHttpServletResponse response = run("gzip", "application/json;charset=UTF-8", body);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertEquals(99, response.getContentLength());
+    assertArrayEquals(body, response.getContentAsByteArray());
+  }
+
+  @Test
+  public void other_content_types_are_not_compressed() throws Exception {
+    byte[] body = body(5000);
+    MockHttpServletResponse response = run("gzip", "image/png", body);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertArrayEquals(body, response.getContentAsByteArray());
+  }
+
+  @Test
+  public void clients_without_gzip_are_not_compressed() throws Exception {
+    byte[] body = body(5000);
+    MockHttpServletResponse response = run(null, "application/json", body);
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertNull(response.getHeader("Vary"));
+    assertArrayEquals(body, response.getContentAsByteArray());
+  }
+
+  @Test
+  public void writer_output_is_compressed() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/jobs/logs/1");
+    request.addHeader("Accept-Encoding", "gzip");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    String text = "log line\n".repeat(100);
+
+    filter.doFilter(
+        request,
+        response,
+        (req, res) -> {
+          res.setContentType("text/plain;charset=UTF-8");
+          res.setCharacterEncoding("UTF-8");
+          res.getWriter().write(text);
+        });
+
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertEquals(
+        text, new String(gunzip(response.getContentAsByteArray()), StandardCharsets.UTF_8));
+  }
+
+  private MockHttpServletResponse run(FilterChain chain) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    request.addHeader("Accept-Encoding", "gzip");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, chain);
+    return response;
+  }
+
+  @Test
+  public void reset_discards_held_back_output() throws Exception {
+    MockHttpServletResponse response =
+        run(
+            (req, res) -> {
+              res.setContentType("application/json");
+              res.getOutputStream().write(body(50));
+              res.reset();
+              res.setContentType("text/plain");
+              res.getWriter().write("error");
+            });
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getHeader("Vary"));
+    assertEquals("error", response.getContentAsString());
+  }
+
+  @Test
+  public void reset_discards_compressed_output() throws Exception {
+    byte[] body = body(5000);
+    MockHttpServletResponse response =
+        run(
+            (req, res) -> {
+              res.setContentType("application/json");
+              res.getOutputStream().write(body(500));
+              res.reset();
+              res.setContentType("application/json");
+              res.getOutputStream().write(body);
+            });
+
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getHeader("Vary"));
+    assertArrayEquals(body, gunzip(response.getContentAsByteArray()));
+  }
+
+  @Test
+  public void reset_buffer_discards_held_back_output() throws Exception {
+    MockHttpServletResponse response =
+        run(
+            (req, res) -> {
+              res.setContentType("text/plain");
+              res.getWriter().write("partial");
+              res.resetBuffer();
+              res.getWriter().write("whole");
+            });
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertEquals("whole", response.getContentAsString());
+  }
+
+  @Test
+  public void reset_buffer_restarts_compression() throws Exception {
+    byte[] body = body(5000);
+    MockHttpServletResponse response =
+        run(
+            (req, res) -> {
+              res.setContentType("application/json");
+              res.getOutputStream().write(body(500));
+              res.resetBuffer();
+              res.getOutputStream().write(body);
+            });
+
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertArrayEquals(body, gunzip(response.getContentAsByteArray()));
+  }
+
+  @Test
+  public void reset_buffer_of_an_uncompressed_response() throws Exception {
+    MockHttpServletResponse response =
+        run(
+            (req, res) -> {
+              res.setContentType("image/png");
+              res.getOutputStream().write(body(500));
+              res.resetBuffer();
+              res.getOutputStream().write(body(200));
+            });
+
+    assertNull(response.getHeader("Content-Encoding"));
+    assertArrayEquals(body(200), response.getContentAsByteArray());
+  }
+
+  @Test
+  public void reset_before_anything_is_written() throws Exception {
+    MockHttpServletResponse response =
+        run(
+            (req, res) -> {
+              res.resetBuffer();
+              res.reset();
+              res.setContentType("text/plain");
+              res.getWriter().write("ok");
+            });
+
+    assertEquals("ok", response.getContentAsString());
+  }
+
+  @Test
+  public void the_response_is_committed_once_the_filter_has_finished() throws Exception {
+    boolean[] committed = new boolean[2];
+    MockHttpServletResponse response =
+        run(
+            (req, res) -> {
+              res.setContentType("application/json");
+              res.getOutputStream().write(body(50));
+              committed[0] = res.isCommitted();
+              res.getOutputStream().close();
+              committed[1] = res.isCommitted();
+            });
+
+    assertEquals(false, committed[0]);
+    assertEquals(true, committed[1]);
+    assertArrayEquals(body(50), response.getContentAsByteArray());
+  }
+
+  @Test
+  public void non_blocking_writes_are_sent_uncompressed() throws Exception {
+    WriteListener[] listener = new WriteListener[1];
+    boolean[] ready = new boolean[2];
+    MockHttpServletResponse response =
+        new MockHttpServletResponse() {
+          final ServletOutputStream out = super.getOutputStream();
+
+          @Override
+          public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+              @Override
+              public void write(int b) throws IOException {
+                out.write(b);
+              }
+
+              @Override
+              public boolean isReady() {
+                return true;
+              }
+
+              @Override
+              public void setWriteListener(WriteListener writeListener) {
+                listener[0] = writeListener;
+              }
+            };
+          }
+        };
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    request.addHeader("Accept-Encoding", "gzip");
+    WriteListener writeListener =
+        new WriteListener() {
+          @Override
+          public void onWritePossible() {}
+
+          @Override
+          public void onError(Throwable t) {}
+        };
+
+    filter.doFilter(
+        request,
+        response,
+        (req, res) -> {
+          res.setContentType("application/json");
+          ServletOutputStream out = res.getOutputStream();
+          out.write(body(10));
+          ready[0] = out.isReady();
+          out.setWriteListener(writeListener);
+          ready[1] = out.isReady();
+          out.write(body(5000));
+        });
+
+    assertSame(writeListener, listener[0]);
+    assertEquals(true, ready[0]);
+    assertEquals(true, ready[1]);
+    assertNull(response.getHeader("Content-Encoding"));
+    assertArrayEquals(body(5010), response.getContentAsByteArray());
+  }
+}
@@ -0,0 +1,228 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+
+public class CachingSessionRepositoryTests {
+
+  /** The shared store, as every instance sees it */
+  private Map<String, Session> sessions;
+
+  private MapSessionRepository delegate;
+
+  private CachingSessionRepository<MapSession> repository;
+
+  @BeforeEach
+  public void setup() {
+    sessions = new ConcurrentHashMap<>();
+    delegate = spy(new MapSessionRepository(sessions));
+    repository = caching(Duration.ofMinutes(1), 100);
+  }
+
+  private CachingSessionRepository<MapSession> caching(Duration ttl, int maxEntries) {
+    return new CachingSessionRepository<>(delegate, this::lastSaved, ttl, maxEntries);
+  }
+
+  private Instant lastSaved(String id) {
+    Session session = sessions.get(id);
+    return session == null ? null : session.getLastAccessedTime();
+  }
+
+  private String saved(String attribute, Object value) {
+    CachingSessionRepository.CachedSession session = repository.createSession();
+    session.setAttribute(attribute, value);
+    repository.save(session);
+    return session.getId();
+  }
+
+  /** What SessionRepositoryFilter does on each request */
+  private CachingSessionRepository.CachedSession request(String id) {
+    CachingSessionRepository.CachedSession session = repository.findById(id);
+    session.setLastAccessedTime(Instant.now().plus(1, ChronoUnit.MILLIS));
+    return session;
+  }
+
+  @Test
+  public void new_sessions_are_saved_and_cached() {
+    String id = saved("user", "alice");
+
+    assertEquals("alice", sessions.get(id).getAttribute("user"));
+    assertEquals(1, repository.cachedCount());
+    assertEquals("alice", repository.findById(id).getAttribute("user"));
+    verify(delegate, times(0)).findById(id);
+  }
+
+  @Test
+  public void each_request_gets_its_own_copy() {
+    String id = saved("user", "alice");
+
+    CachingSessionRepository.CachedSession first = repository.findById(id);
+    CachingSessionRepository.CachedSession second = repository.findById(id);
+    first.setAttribute("user", "mallory");
+
+    assertNotSame(first, second);
+    assertEquals("alice", second.getAttribute("user"));
+    assertEquals("alice", repository.findById(id).getAttribute("user"));
+  }
+
+  @Test
+  public void concurrent_requests_keep_each_others_changes() {
+    String id = saved("user", "alice");
+
+    CachingSessionRepository.CachedSession first = request(id);
+    CachingSessionRepository.CachedSession second = request(id);
+    first.setAttribute("cart", 3);
+    second.setAttribute("theme", "dark");
+    second.removeAttribute("user");
+    repository.save(first);
+    repository.save(second);
+
+    Session stored = sessions.get(id);
+    assertEquals(Set.of("cart", "theme"), stored.getAttributeNames());
+    assertEquals(3, (int) stored.getAttribute("cart"));
+    CachingSessionRepository.CachedSession next = repository.findById(id);
+    assertEquals(Set.of("cart", "theme"), next.getAttributeNames());
+    assertEquals(second.getLastAccessedTime(), next.getLastAccessedTime());
+  }
+
+  @Test
+  public void a_session_deleted_by_another_instance_is_gone() {
+    String id = saved("user", "alice");
+
+    sessions.remove(id); // e.g. a logout handled by another instance
+
+    assertNull(repository.findById(id));
+    assertEquals(0, repository.cachedCount());
+  }
+
+  @Test
+  public void a_session_saved_by_another_instance_is_loaded_again() {
+    String id = saved("user", "alice");
+
+    MapSession elsewhere = new MapSession(sessions.get(id));
+    elsewhere.setAttribute("user", "bob");
+    elsewhere.setLastAccessedTime(elsewhere.getLastAccessedTime().plusSeconds(1));
+    sessions.put(id, elsewhere);
+
+    assertEquals("bob", repository.findById(id).getAttribute("user"));
+    verify(delegate, times(1)).findById(id);
+    // and is then cached again
+    assertEquals("bob", repository.findById(id).getAttribute("user"));
+    verify(delegate, times(1)).findById(id);
+  }
+
+  @Test
+  public void a_changed_session_id_replaces_the_old_one() {
+    String id = saved("user", "alice");
+
+    CachingSessionRepository.CachedSession session = request(id);
+    String newId = session.changeSessionId();
+    repository.save(session);
+
+    assertEquals(newId, session.getId());
+    assertNotEquals(id, newId);
+    assertNull(repository.findById(id));
+    assertEquals("alice", repository.findById(newId).getAttribute("user"));
+    assertEquals(1, repository.cachedCount());
+  }
+
+  @Test
+  public void a_session_saved_twice_only_applies_new_changes_the_second_time() {
+    String id = saved("user", "alice");
+    CachingSessionRepository.CachedSession first = request(id);
+    CachingSessionRepository.CachedSession second = request(id);
+    first.setAttribute("cart", 1);
+    repository.save(first);
+    second.setAttribute("cart", 2);
+    repository.save(second);
+
+    // saving first again does not undo second's change
+    first.setAttribute("theme", "dark");
+    repository.save(first);
+
+    assertEquals(2, (int) sessions.get(id).getAttribute("cart"));
+    assertEquals("dark", sessions.get(id).getAttribute("theme"));
+  }
+
+  @Test
+  public void max_inactive_interval_and_expiry_are_kept() {
+    CachingSessionRepository.CachedSession session = repository.createSession();
+    session.setMaxInactiveInterval(Duration.ofSeconds(1));
+    session.setLastAccessedTime(Instant.now().minusSeconds(10));
+    repository.save(session);
+
+    assertEquals(Duration.ofSeconds(1), sessions.get(session.getId()).getMaxInactiveInterval());
+    assertEquals(true, session.isExpired());
+    assertEquals(session.getCreationTime(), sessions.get(session.getId()).getCreationTime());
+    // an expired session is not served from the cache; MapSessionRepository drops it
+    assertNull(repository.findById(session.getId()));
+  }
+
+  @Test
+  public void missing_sessions_are_null() {
+    assertNull(repository.findById("nobody"));
+    assertEquals(0, repository.cachedCount());
+  }
+
+  @Test
+  public void deleted_sessions_are_removed_from_both() {
+    String id = saved("user", "alice");
+
+    repository.deleteById(id);
+
+    assertEquals(0, repository.cachedCount());
+    assertNull(sessions.get(id));
+  }
+
+  @Test
+  public void nothing_is_cached_without_a_ttl() {
+    repository = caching(Duration.ZERO, 100);
+    String id = saved("user", "alice");
+
+    assertEquals(0, repository.cachedCount());
+    assertEquals("alice", repository.findById(id).getAttribute("user"));
+    verify(delegate, times(1)).findById(id);
+  }
+
+  @Test
+  public void expired_cache_entries_are_loaded_again() throws Exception {
+    repository = caching(Duration.ofMillis(1), 100);
+    String id = saved("user", "alice");
+    Thread.sleep(5);
+
+    assertEquals("alice", repository.findById(id).getAttribute("user"));
+    verify(delegate, times(1)).findById(id);
+  }
+
+  @Test
+  public void the_cache_holds_at_most_max_entries() throws Exception {
+    repository = caching(Duration.ofMillis(20), 2);
+    saved("n", 1);
+    saved("n", 2);
+    String third = saved("n", 3);
+    assertEquals(2, repository.cachedCount());
+    assertEquals(3, (int) repository.findById(third).getAttribute("n"));
+
+    // expired entries make room
+    Thread.sleep(30);
+    saved("n", 4);
+    assertEquals(1, repository.cachedCount());
+  }
+}
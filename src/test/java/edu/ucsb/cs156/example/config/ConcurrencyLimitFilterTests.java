@@ -0,0 +1,205 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ConcurrencyLimitFilterTests {
+  private static final long MS = 1_000_000L;
+
+  private static void feed(AdaptiveConcurrencyLimit limit, int windows, long rtt, int inflight) {
+    for (int i = 0; i < windows * 10; i++) {
+      limit.onSample(rtt, inflight);
+    }
+  }
+
+  @Test
+  public void limit_grows_while_latency_is_steady() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 100, 10);
+    for (int i = 0; i < 20; i++) {
+      feed(limit, 1, 5 * MS, limit.getLimit());
+    }
+    assertTrue(limit.getLimit() > 20, "limit was " + limit.getLimit());
+  }
+
+  @Test
+  public void limit_does_not_grow_when_it_is_not_being_used() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 100, 10);
+    feed(limit, 20, 5 * MS, 2);
+    assertEquals(10, limit.getLimit());
+  }
+
+  @Test
+  public void limit_shrinks_when_latency_climbs_and_stops_at_the_minimum() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 4, 100, 10);
+    feed(limit, 5, 5 * MS, 50);
+    int before = limit.getLimit();
+
+    feed(limit, 1, 50 * MS, 50);
+    assertTrue(limit.getLimit() < before, before + " -> " + limit.getLimit());
+
+    feed(limit, 60, 500 * MS, 50);
+    assertEquals(4, limit.getLimit());
+  }
+
+  @Test
+  public void limit_settles_near_capacity_when_overloaded() {
+    // a service that can run 10 requests at once in 5ms; beyond that requests queue
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 4, 200, 10);
+    for (int i = 0; i < 2000; i++) {
+      int inflight = limit.getLimit();
+      feed(limit, 1, 5 * MS * Math.max(10, inflight) / 10, inflight);
+    }
+    assertTrue(limit.getLimit() >= 10 && limit.getLimit() <= 25, "limit was " + limit.getLimit());
+  }
+
+  @Test
+  public void low_priority_routes_are_shed_first() throws Exception {
+    // limit 4: low priority routes get at most 2 in flight, others 4
+    ConcurrencyLimitFilter filter =
+        new ConcurrencyLimitFilter(
+            new AdaptiveConcurrencyLimit(4, 4, 4, 1000),
+            List.of("/api/systemInfo"),
+            0.5,
+            List.of(),
+            new SimpleMeterRegistry());
+
+    List<String> paths =
+        List.of(
+            "/api/restaurants",
+            "/api/restaurants",
+            "/api/systemInfo",
+            "/api/restaurants",
+            "/api/restaurants",
+            "/api/restaurants");
+    List<Integer> statuses = new ArrayList<>();
+    nest(filter, paths, 0, statuses);
+
+    // each request is still in flight while the next one arrives
+    assertEquals(List.of(200, 200, 503, 200, 200, 503), statuses.reversed());
+    assertEquals(0, filter.getInflight());
+  }
+
+  @Test
+  public void the_configured_low_priority_routes_are_shed_first() throws Exception {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context
+          .getEnvironment()
+          .getPropertySources()
+          .addFirst(new ResourcePropertySource(new ClassPathResource("application.properties")));
+      context
+          .getEnvironment()
+          .getPropertySources()
+          .addFirst(
+              new MapPropertySource(
+                  "test",
+                  Map.of(
+                      "app.concurrency.enabled", "true",
+                      "app.concurrency.initialLimit", "4",
+                      "app.concurrency.minLimit", "4",
+                      "app.concurrency.maxLimit", "4")));
+      // as in Spring Boot, so that the comma separated lists are split
+      context
+          .getBeanFactory()
+          .setConversionService(ApplicationConversionService.getSharedInstance());
+      context.registerBean(SimpleMeterRegistry.class);
+      context.register(ConcurrencyLimitConfig.class);
+      context.refresh();
+      ConcurrencyLimitFilter filter =
+          (ConcurrencyLimitFilter) context.getBean(FilterRegistrationBean.class).getFilter();
+
+      // two requests in flight: half of the limit of 4
+      List<String> paths =
+          List.of(
+              "/api/restaurants", "/api/restaurants", "/api/admin/users/search", "/api/ucsbdates");
+      List<Integer> statuses = new ArrayList<>();
+      nest(filter, paths, 0, statuses);
+
+      assertEquals(List.of(200, 200, 503, 200), statuses.reversed());
+    }
+  }
+
+  @Test
+  public void routes_are_matched_without_the_context_path() throws Exception {
+    // limit 2: low priority routes get at most 1 in flight
+    ConcurrencyLimitFilter filter =
+        new ConcurrencyLimitFilter(
+            new AdaptiveConcurrencyLimit(2, 2, 2, 1000),
+            List.of("/api/systemInfo"),
+            0.5,
+            List.of(),
+            new SimpleMeterRegistry());
+    MockHttpServletRequest first = new MockHttpServletRequest("GET", "/example/api/restaurants");
+    first.setContextPath("/example");
+    MockHttpServletRequest second = new MockHttpServletRequest("GET", "/example/api/systemInfo");
+    second.setContextPath("/example");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(
+        first,
+        new MockHttpServletResponse(),
+        (req, res) -> filter.doFilter(second, response, (r, s) -> {}));
+
+    assertEquals(503, response.getStatus());
+  }
+
+  @Test
+  public void unsampled_routes_do_not_adjust_the_limit() throws Exception {
+    AdaptiveConcurrencyLimit limit = mock(AdaptiveConcurrencyLimit.class);
+    when(limit.getLimit()).thenReturn(10);
+    ConcurrencyLimitFilter filter =
+        new ConcurrencyLimitFilter(
+            limit,
+            List.of(),
+            0.5,
+            List.of("/api/*/all", "/api/ucsbdates/bulk"),
+            new SimpleMeterRegistry());
+
+    for (String path : List.of("/api/restaurants/all", "/api/ucsbdates/bulk", "/api/restaurants")) {
+      filter.doFilter(
+          new MockHttpServletRequest("GET", path), new MockHttpServletResponse(), (req, res) -> {});
+    }
+
+    verify(limit, times(1)).onSample(anyLong(), anyInt());
+  }
+
+  private static void nest(
+      ConcurrencyLimitFilter filter, List<String> paths, int i, List<Integer> statuses)
+      throws IOException, ServletException {
+    if (i == paths.size()) {
+      return;
+    }
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", paths.get(i));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    FilterChain chain = (req, res) -> nest(filter, paths, i + 1, statuses);
+    filter.doFilter(request, response, chain);
+    if (response.getStatus() == 503) {
+      assertEquals("1", response.getHeader("Retry-After"));
+      // a shed request never reaches the chain, so carry on with the next one ourselves
+      nest(filter, paths, i + 1, statuses);
+    }
+    statuses.add(response.getStatus());
+  }
+}
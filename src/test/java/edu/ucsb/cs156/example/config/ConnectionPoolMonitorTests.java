@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.zaxxer.hikari.HikariDataSource;
+import edu.ucsb.cs156.example.controllers.RestaurantsController;
+import edu.ucsb.cs156.example.models.ConnectionPoolStatus;
+import jakarta.servlet.http.HttpServletResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class ConnectionPoolMonitorTests {
+  private HikariDataSource pool;
+  private ListAppender<ILoggingEvent> logs;
+
+  @BeforeEach
+  public void setup() {
+    pool = new HikariDataSource();
+    pool.setJdbcUrl("jdbc:h2:mem:connectionpoolmonitor");
+    pool.setMaximumPoolSize(2);
+    pool.setConnectionTimeout(250);
+    logs = new ListAppender<>();
+    logs.start();
+    ((Logger) LoggerFactory.getLogger(ConnectionPoolMonitor.class)).addAppender(logs);
+  }
+
+  @AfterEach
+  public void teardown() {
+    ((Logger) LoggerFactory.getLogger(ConnectionPoolMonitor.class)).detachAppender(logs);
+    RequestContextHolder.resetRequestAttributes();
+    pool.close();
+  }
+
+  @Test
+  public void borrowers_are_listed_until_they_close_their_connection() throws Exception {
+    ConnectionPoolMonitor monitor =
+        new ConnectionPoolMonitor(Duration.ofSeconds(1), Duration.ofSeconds(10));
+    DataSource dataSource = monitor.monitor(pool);
+
+    Connection first = dataSource.getConnection();
+    Connection second;
+    try (MDC.MDCCloseable ignored = MDC.putCloseable("job", "12")) {
+      second = dataSource.getConnection();
+    }
+
+    ConnectionPoolStatus status = monitor.getStatus();
+    assertEquals(2, status.getActive());
+    assertEquals(2, status.getMax());
+    assertEquals(
+        List.of("thread " + Thread.currentThread().getName(), "job 12"),
+        status.getBorrowers().stream().map(b -> b.getOwner()).toList());
+
+    first.close();
+    assertEquals(
+        List.of("job 12"),
+        monitor.getStatus().getBorrowers().stream().map(b -> b.getOwner()).toList());
+    second.close();
+    second.close();
+    assertEquals(List.of(), monitor.getStatus().getBorrowers());
+    assertEquals(0, monitor.getStatus().getActive());
+  }
+
+  @Test
+  public void request_threads_are_described_by_their_controller_method() throws Exception {
+    ConnectionPoolMonitor monitor =
+        new ConnectionPoolMonitor(Duration.ofSeconds(1), Duration.ofSeconds(10));
+    DataSource dataSource = monitor.monitor(pool);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    try (Connection connection = dataSource.getConnection()) {
+      assertEquals(
+          "GET /api/restaurants/all", monitor.getStatus().getBorrowers().get(0).getOwner());
+    }
+
+    request.setAttribute(
+        HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+        new HandlerMethod(
+            new RestaurantsController(),
+            RestaurantsController.class.getMethod(
+                "allRestaurants", List.class, HttpServletResponse.class)));
+    try (Connection connection = dataSource.getConnection()) {
+      assertEquals(
+          "RestaurantsController.allRestaurants",
+          monitor.getStatus().getBorrowers().get(0).getOwner());
+    }
+  }
+
+  @Test
+  public void slow_and_failed_acquires_log_one_warning_per_interval() throws Exception {
+    ConnectionPoolMonitor monitor =
+        new ConnectionPoolMonitor(Duration.ofMillis(100), Duration.ofSeconds(10));
+    DataSource dataSource = monitor.monitor(pool);
+    Connection first = dataSource.getConnection();
+    Connection second = dataSource.getConnection();
+    assertEquals(0, logs.list.size());
+
+    assertThrows(SQLException.class, dataSource::getConnection);
+    assertThrows(SQLException.class, dataSource::getConnection);
+
+    assertEquals(1, logs.list.size());
+    String warning = logs.list.get(0).getFormattedMessage();
+    assertTrue(warning.contains("and gave up"), warning);
+    assertTrue(warning.contains("pool active=2 idle=0"), warning);
+    assertTrue(
+        warning.contains("held longest by [thread " + Thread.currentThread().getName()), warning);
+    first.close();
+    second.close();
+  }
+}
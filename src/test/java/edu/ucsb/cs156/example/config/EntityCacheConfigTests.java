@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.StreamSupport;
+import javax.cache.CacheManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Not transactional, so that every repository call commits (and updates the caches) on its own
+@DataJpaTest(
+    properties = {
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "app.entitycache.enabled=true",
+      "app.entitycache.regions.ucsbdates.maxEntries=500",
+      "app.entitycache.regions.queries.ttl=30s"
+    })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(EntityCacheConfig.class)
+public class EntityCacheConfigTests {
+
+  @Autowired private RestaurantRepository restaurantRepository;
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private CacheManager entityCacheManager;
+
+  @MockitoBean WiremockService wiremockService; // needed by ExampleApplication
+
+  private Statistics statistics;
+
+  private Restaurant tacoBell;
+
+  @BeforeEach
+  public void setup() {
+    tacoBell =
+        restaurantRepository.save(
+            Restaurant.builder().name("Taco Bell").description("Mexican").build());
+    entityManagerFactory.getCache().evictAll();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  public void teardown() {
+    restaurantRepository.deleteAll();
+    ucsbDateRepository.deleteAll();
+  }
+
+  private List<String> names(String quarterYYYYQ) {
+    return StreamSupport.stream(
+            ucsbDateRepository.findAllByQuarterYYYYQ(quarterYYYYQ).spliterator(), false)
+        .map(UCSBDate::getName)
+        .toList();
+  }
+
+  private UCSBDate date(String name) {
+    return UCSBDate.builder()
+        .quarterYYYYQ("20244")
+        .name(name)
+        .localDateTime(LocalDateTime.of(2024, 9, 26, 0, 0))
+        .build();
+  }
+
+  @Test
+  public void find_by_id_is_served_from_the_cache_after_the_first_time() {
+    restaurantRepository.findById(tacoBell.getId());
+    restaurantRepository.findById(tacoBell.getId());
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getDomainDataRegionStatistics("restaurants").getHitCount());
+  }
+
+  @Test
+  public void queries_are_served_from_the_cache_until_the_table_changes() {
+    UCSBDate classesStart = ucsbDateRepository.save(date("classes start"));
+    statistics.clear();
+
+    assertEquals(List.of("classes start"), names("20244"));
+    assertEquals(List.of("classes start"), names("20244"));
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+
+    // insert
+    UCSBDate finals = ucsbDateRepository.save(date("finals"));
+    assertEquals(List.of("classes start", "finals"), names("20244"));
+
+    // update
+    classesStart.setName("first day");
+    ucsbDateRepository.save(classesStart);
+    assertEquals(List.of("first day", "finals"), names("20244"));
+    assertEquals("first day", ucsbDateRepository.findById(classesStart.getId()).get().getName());
+
+    // delete
+    ucsbDateRepository.delete(finals);
+    assertEquals(List.of("first day"), names("20244"));
+    assertTrue(ucsbDateRepository.findById(finals.getId()).isEmpty());
+  }
+
+  @Test
+  public void regions_are_sized_from_the_properties() {
+    CaffeineConfiguration<?, ?> dates =
+        entityCacheManager.getCache("ucsbdates").getConfiguration(CaffeineConfiguration.class);
+    CaffeineConfiguration<?, ?> queries =
+        entityCacheManager.getCache("queries").getConfiguration(CaffeineConfiguration.class);
+
+    assertEquals(500, dates.getMaximumSize().getAsLong());
+    assertEquals(Duration.ofMinutes(10).toNanos(), dates.getExpireAfterWrite().getAsLong());
+    assertEquals(1000, queries.getMaximumSize().getAsLong());
+    assertEquals(Duration.ofSeconds(30).toNanos(), queries.getExpireAfterWrite().getAsLong());
+  }
+}
@@ -0,0 +1,158 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+public class InMemoryResourceResolverTests {
+
+  private final AtomicInteger resolved = new AtomicInteger();
+
+  private static Resource resource(int size) {
+    return new ByteArrayResource("x".repeat(size).getBytes(StandardCharsets.UTF_8)) {
+      @Override
+      public long lastModified() {
+        return 0;
+      }
+    };
+  }
+
+  private ResourceResolverChain chain(Resource resource) {
+    return new ResourceResolverChain() {
+      @Override
+      public Resource resolveResource(
+          HttpServletRequest request, String requestPath, List<? extends Resource> locations) {
+        resolved.incrementAndGet();
+        return resource;
+      }
+
+      @Override
+      public String resolveUrlPath(String resourcePath, List<? extends Resource> locations) {
+        return "/resolved" + resourcePath;
+      }
+    };
+  }
+
+  private static MockHttpServletRequest request(String acceptEncoding) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("Accept-Encoding", acceptEncoding);
+    return request;
+  }
+
+  @Test
+  public void resources_are_resolved_once_per_encoding() {
+    InMemoryResourceResolver resolver =
+        new InMemoryResourceResolver(new InMemoryResourceResolver.Budget(100, 1000));
+    ResourceResolverChain chain = chain(resource(10));
+
+    Resource first = resolver.resolveResource(request("gzip, br"), "a.js", List.of(), chain);
+    Resource second = resolver.resolveResource(request("br, gzip"), "a.js", List.of(), chain);
+    resolver.resolveResource(request("identity"), "a.js", List.of(), chain);
+
+    assertSame(first, second);
+    assertEquals(2, resolved.get());
+    assertNotNull(InMemoryResourceResolver.etag(first));
+    assertEquals(
+        "Accept-Encoding",
+        ((InMemoryResourceResolver.CachedResource) first).getResponseHeaders().getFirst("Vary"));
+  }
+
+  @Test
+  public void resolvers_share_one_budget() {
+    InMemoryResourceResolver.Budget budget = new InMemoryResourceResolver.Budget(100, 150);
+    InMemoryResourceResolver assets = new InMemoryResourceResolver(budget);
+    InMemoryResourceResolver other = new InMemoryResourceResolver(budget);
+
+    Resource a = assets.resolveResource(null, "a.js", List.of(), chain(resource(100)));
+    Resource b = other.resolveResource(null, "index.html", List.of(), chain(resource(100)));
+
+    assertInstanceOf(InMemoryResourceResolver.CachedResource.class, a);
+    assertNull(InMemoryResourceResolver.etag(b));
+    assertEquals(100, budget.usedBytes());
+  }
+
+  @Test
+  public void large_resources_are_not_cached() {
+    InMemoryResourceResolver.Budget budget = new InMemoryResourceResolver.Budget(100, 1000);
+    InMemoryResourceResolver resolver = new InMemoryResourceResolver(budget);
+    Resource large = resource(101);
+
+    assertSame(large, resolver.resolveResource(null, "a.js", List.of(), chain(large)));
+    assertEquals(0, budget.usedBytes());
+  }
+
+  @Test
+  public void missing_resources_are_null() {
+    InMemoryResourceResolver resolver =
+        new InMemoryResourceResolver(new InMemoryResourceResolver.Budget(100, 1000));
+
+    assertNull(resolver.resolveResource(null, "a.js", List.of(), chain(null)));
+  }
+
+  @Test
+  public void resources_that_cannot_be_read_are_returned_uncached() {
+    InMemoryResourceResolver.Budget budget = new InMemoryResourceResolver.Budget(100, 1000);
+    InMemoryResourceResolver resolver = new InMemoryResourceResolver(budget);
+    Resource unreadable =
+        new ByteArrayResource(new byte[10]) {
+          @Override
+          public InputStream getInputStream() throws IOException {
+            throw new IOException("gone");
+          }
+        };
+
+    assertSame(unreadable, resolver.resolveResource(null, "a.js", List.of(), chain(unreadable)));
+    assertEquals(0, budget.usedBytes());
+  }
+
+  @Test
+  public void a_resource_cached_concurrently_is_only_counted_once() {
+    InMemoryResourceResolver.Budget budget = new InMemoryResourceResolver.Budget(100, 1000);
+    InMemoryResourceResolver resolver = new InMemoryResourceResolver(budget);
+    Resource[] inner = new Resource[1];
+    ResourceResolverChain chain =
+        new ResourceResolverChain() {
+          @Override
+          public Resource resolveResource(
+              HttpServletRequest request, String requestPath, List<? extends Resource> locations) {
+            // another request resolves the same path while this one is loading it
+            if (resolved.incrementAndGet() == 1) {
+              inner[0] = resolver.resolveResource(null, requestPath, locations, this);
+            }
+            return resource(10);
+          }
+
+          @Override
+          public String resolveUrlPath(String resourcePath, List<? extends Resource> locations) {
+            return null;
+          }
+        };
+
+    Resource outer = resolver.resolveResource(null, "a.js", List.of(), chain);
+
+    assertSame(inner[0], outer);
+    assertEquals(10, budget.usedBytes());
+  }
+
+  @Test
+  public void url_paths_are_resolved_by_the_chain() {
+    InMemoryResourceResolver resolver =
+        new InMemoryResourceResolver(new InMemoryResourceResolver.Budget(100, 1000));
+
+    assertEquals("/resolved/a.js", resolver.resolveUrlPath("/a.js", List.of(), chain(resource(1))));
+  }
+}
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class JobPartitionsTests {
+  private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  public void setup() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Integer.class)))
+        .thenReturn(1);
+  }
+
+  private void partitions(String... names) {
+    when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class)))
+        .thenReturn(List.of(names));
+  }
+
+  private static String contains(String s) {
+    return argThat(sql -> sql != null && sql.contains(s));
+  }
+
+  @Test
+  public void missing_partitions_are_created_months_ahead() {
+    partitions("jobs_p202610", "jobs_p202611", "jobs_default");
+
+    List<YearMonth> dropped = new JobPartitions(jdbcTemplate, 2, 0).maintain(OCTOBER);
+
+    assertEquals(List.of(), dropped);
+    verify(jdbcTemplate)
+        .execute(
+            "CREATE TABLE IF NOT EXISTS jobs_p202612 PARTITION OF jobs"
+                + " FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+    verify(jdbcTemplate, times(1)).execute(anyString());
+  }
+
+  @Test
+  public void partitions_before_the_retention_period_are_dropped() {
+    partitions("jobs_p202607", "jobs_p202608", "jobs_p202609", "jobs_p202610");
+
+    List<YearMonth> dropped = new JobPartitions(jdbcTemplate, 0, 2).maintain(OCTOBER);
+
+    assertEquals(List.of(YearMonth.of(2026, 7)), dropped);
+    verify(jdbcTemplate).execute("DROP TABLE IF EXISTS jobs_p202607");
+    verify(jdbcTemplate, times(1)).execute(anyString());
+  }
+
+  @Test
+  public void nothing_is_dropped_without_a_retention_period() {
+    partitions("jobs_p201901", "jobs_p202610");
+
+    assertEquals(List.of(), new JobPartitions(jdbcTemplate, 0, 0).maintain(OCTOBER));
+    verify(jdbcTemplate, never()).execute(anyString());
+  }
+
+  @Test
+  public void an_unpartitioned_table_is_left_alone() {
+    when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Integer.class)))
+        .thenReturn(0);
+
+    assertEquals(List.of(), new JobPartitions(jdbcTemplate, 3, 12).maintain(OCTOBER));
+    verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    verify(jdbcTemplate, never()).execute(anyString());
+  }
+}
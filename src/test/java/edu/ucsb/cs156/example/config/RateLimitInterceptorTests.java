@@ -0,0 +1,147 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class RateLimitInterceptorTests {
+  private static final long SECOND = 1_000_000_000L;
+
+  private final AtomicLong clock = new AtomicLong(0);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final RateLimitInterceptor interceptor;
+
+  public RateLimitInterceptorTests() {
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setWrites(new RateLimitProperties.Limit(2, 1));
+    properties.getRoutes().put("/api/jobs/launch/testjob", new RateLimitProperties.Limit(1, 0.1));
+    interceptor = new RateLimitInterceptor(properties, registry, clock::get);
+  }
+
+  @AfterEach
+  public void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private void login(String name) {
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new UsernamePasswordAuthenticationToken(
+                name, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+  }
+
+  private MockHttpServletResponse send(String method, String pattern) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    boolean proceed = interceptor.preHandle(request, response, null);
+    assertEquals(proceed, response.getStatus() == 200);
+    return response;
+  }
+
+  private double requests(String route, String outcome) {
+    return registry
+        .get("app.ratelimit.requests")
+        .tag("route", route)
+        .tag("outcome", outcome)
+        .counter()
+        .count();
+  }
+
+  @Test
+  public void reads_are_never_limited() throws Exception {
+    login("admin");
+    for (int i = 0; i < 10; i++) {
+      assertEquals(200, send("GET", "/api/restaurants/all").getStatus());
+    }
+  }
+
+  @Test
+  public void writes_over_the_limit_get_429_with_retry_after() throws Exception {
+    login("admin");
+    assertEquals(200, send("POST", "/api/restaurants/post").getStatus());
+    assertEquals(200, send("POST", "/api/restaurants/post").getStatus());
+
+    MockHttpServletResponse rejected = send("POST", "/api/restaurants/post");
+    assertEquals(429, rejected.getStatus());
+    assertEquals("1", rejected.getHeader("Retry-After"));
+    assertTrue(rejected.getContentAsString().contains("TooManyRequests"));
+
+    clock.addAndGet(SECOND);
+    assertEquals(200, send("POST", "/api/restaurants/post").getStatus());
+
+    assertEquals(3, requests("POST /api/restaurants/post", "allowed"));
+    assertEquals(1, requests("POST /api/restaurants/post", "rejected"));
+    assertEquals(1, registry.get("app.ratelimit.exhausted").gauge().value());
+  }
+
+  @Test
+  public void users_and_routes_have_separate_buckets() throws Exception {
+    login("alice");
+    send("DELETE", "/api/restaurants");
+    send("DELETE", "/api/restaurants");
+    assertEquals(429, send("DELETE", "/api/restaurants").getStatus());
+
+    assertEquals(200, send("PUT", "/api/restaurants").getStatus());
+
+    login("bob");
+    assertEquals(200, send("DELETE", "/api/restaurants").getStatus());
+    assertEquals(3, registry.get("app.ratelimit.buckets").gauge().value());
+  }
+
+  @Test
+  public void routes_can_have_their_own_limit() throws Exception {
+    login("admin");
+    assertEquals(200, send("POST", "/api/jobs/launch/testjob").getStatus());
+
+    MockHttpServletResponse rejected = send("POST", "/api/jobs/launch/testjob");
+    assertEquals(429, rejected.getStatus());
+    assertEquals("10", rejected.getHeader("Retry-After"));
+  }
+
+  @Test
+  public void anonymous_requests_are_keyed_by_address() throws Exception {
+    send("POST", "/api/restaurants/post");
+    send("POST", "/api/restaurants/post");
+    assertEquals(429, send("POST", "/api/restaurants/post").getStatus());
+  }
+
+  @Test
+  public void idle_buckets_are_evicted_once_full() throws Exception {
+    login("admin");
+    send("POST", "/api/restaurants/post");
+    interceptor.evictIdle();
+    assertEquals(1, registry.get("app.ratelimit.buckets").gauge().value());
+
+    clock.addAndGet(SECOND);
+    interceptor.evictIdle();
+    assertEquals(0, registry.get("app.ratelimit.buckets").gauge().value());
+  }
+
+  @Test
+  public void token_bucket_refills_up_to_capacity() {
+    TokenBucket bucket = new TokenBucket(3, 2, 0);
+    assertEquals(3, bucket.available(0));
+    assertEquals(0, bucket.tryAcquire(0));
+    assertEquals(0, bucket.tryAcquire(0));
+    assertEquals(0, bucket.tryAcquire(0));
+    assertEquals(SECOND / 2, bucket.tryAcquire(0));
+    assertFalse(bucket.isFull(0));
+
+    assertEquals(1, bucket.available(SECOND / 2));
+    assertEquals(3, bucket.available(100 * SECOND));
+    assertTrue(bucket.isFull(100 * SECOND));
+  }
+}
@@ -0,0 +1,161 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class ReplicaRouterTests {
+  private DataSource primary;
+  private HikariDataSource replica;
+  private SimpleMeterRegistry registry;
+  private ReplicaRouter router;
+  private DataSource readOnly;
+
+  private static void execute(DataSource dataSource, String... sql) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      for (String s : sql) {
+        statement.execute(s);
+      }
+    }
+  }
+
+  @BeforeEach
+  public void setup() throws Exception {
+    primary = new DriverManagerDataSource("jdbc:h2:mem:replicarouter-primary;DB_CLOSE_DELAY=-1");
+    execute(
+        primary,
+        "CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(10))",
+        "DELETE FROM whoami",
+        "INSERT INTO whoami VALUES ('primary')");
+    replica = new HikariDataSource();
+    replica.setJdbcUrl("jdbc:h2:mem:replicarouter-replica;DB_CLOSE_DELAY=-1");
+    execute(
+        replica,
+        "CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(10))",
+        "DELETE FROM whoami",
+        "INSERT INTO whoami VALUES ('replica')",
+        "CREATE TABLE IF NOT EXISTS lag (seconds INT)",
+        "DELETE FROM lag",
+        "INSERT INTO lag VALUES (0)");
+    registry = new SimpleMeterRegistry();
+    router =
+        new ReplicaRouter(
+            replica, "SELECT seconds FROM lag", Duration.ofSeconds(5), Duration.ZERO, registry);
+    readOnly = router.readOnlyDataSource(primary);
+  }
+
+  @AfterEach
+  public void teardown() {
+    RequestContextHolder.resetRequestAttributes();
+    router.close();
+  }
+
+  private String read() throws SQLException {
+    try (Connection connection = readOnly.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet result = statement.executeQuery("SELECT name FROM whoami")) {
+      result.next();
+      return result.getString(1);
+    }
+  }
+
+  private double reads(String target, String reason) {
+    return registry
+        .get("app.db.replica.reads")
+        .tag("target", target)
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+
+  @Test
+  public void reads_use_the_replica_until_it_lags_too_far_behind() throws Exception {
+    assertEquals("replica", read());
+    assertEquals(0.0, registry.get("app.db.replica.lag").gauge().value());
+
+    execute(replica, "UPDATE lag SET seconds = 6");
+    assertEquals("primary", read());
+    assertEquals(6.0, registry.get("app.db.replica.lag").gauge().value());
+
+    execute(replica, "UPDATE lag SET seconds = 5");
+    assertEquals("replica", read());
+    assertEquals(2.0, reads("replica", "ok"));
+    assertEquals(1.0, reads("primary", "lag"));
+  }
+
+  @Test
+  public void a_transaction_reads_from_where_it_was_sent_when_it_began() throws Exception {
+    assertTrue(router.beginReadOnly());
+    execute(replica, "UPDATE lag SET seconds = 6");
+    // decided, but nothing is read or counted until a connection is needed
+    assertEquals(0.0, reads("replica", "ok"));
+    assertEquals("replica", read());
+    assertEquals("replica", read());
+    assertEquals(2.0, reads("replica", "ok"));
+    router.endTransaction();
+
+    assertFalse(router.beginReadOnly());
+    assertEquals("primary", read());
+    router.endTransaction();
+    assertEquals(1.0, reads("primary", "lag"));
+  }
+
+  @Test
+  public void reads_use_the_primary_when_the_lag_cannot_be_read() throws Exception {
+    execute(replica, "DROP TABLE lag");
+
+    assertEquals("primary", read());
+    assertEquals(Double.NaN, registry.get("app.db.replica.lag").gauge().value());
+  }
+
+  @Test
+  public void a_session_reads_from_the_primary_for_a_while_after_writing() throws Exception {
+    ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(Duration.ofSeconds(60));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    MockHttpServletRequest get = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    get.getSession(true);
+    interceptor.preHandle(get, response, null);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(get));
+    assertNull(get.getAttribute(ReplicaRouter.PRIMARY_UNTIL));
+    assertEquals("replica", read());
+
+    MockHttpServletRequest put = new MockHttpServletRequest("PUT", "/api/restaurants");
+    put.setSession(get.getSession());
+    interceptor.preHandle(put, response, null);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(put));
+    assertEquals("primary", read());
+
+    MockHttpServletRequest next = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    next.setSession(get.getSession());
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(next));
+    assertEquals("primary", read());
+
+    get.getSession().setAttribute(ReplicaRouter.PRIMARY_UNTIL, System.currentTimeMillis() - 1);
+    assertEquals("replica", read());
+
+    MockHttpServletRequest other = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(other));
+    assertEquals("replica", read());
+    assertEquals(2.0, reads("primary", "pinned"));
+  }
+}
@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.models.RepeatedStatement;
+import edu.ucsb.cs156.example.models.SqlMonitorReport;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class SqlMonitorTests {
+  private DataSource h2;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    h2 = new DriverManagerDataSource("jdbc:h2:mem:sqlmonitor;DB_CLOSE_DELAY=-1");
+    try (Connection connection = h2.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE IF NOT EXISTS users (id BIGINT PRIMARY KEY, name VARCHAR)");
+      statement.execute("MERGE INTO users VALUES (1, 'Chris'), (2, 'Phill')");
+    }
+  }
+
+  @AfterEach
+  public void teardown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static void selectUser(Connection connection, long id) throws Exception {
+    try (PreparedStatement statement =
+        connection.prepareStatement("SELECT name\n  FROM users WHERE id = ?")) {
+      statement.setLong(1, id);
+      statement.executeQuery().close();
+    }
+  }
+
+  @Test
+  public void a_statement_one_request_repeats_is_flagged_once() throws Exception {
+    SqlMonitor monitor = new SqlMonitor(Duration.ofSeconds(10), 3, 100);
+    DataSource dataSource = monitor.monitor(h2);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/jobs/all");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    try (Connection connection = dataSource.getConnection()) {
+      for (int i = 0; i < 2; i++) {
+        selectUser(connection, 1);
+      }
+      assertEquals(List.of(), monitor.getReport().getRepeated());
+      for (int i = 0; i < 3; i++) {
+        selectUser(connection, 2);
+      }
+    }
+
+    List<RepeatedStatement> repeated = monitor.getReport().getRepeated();
+    assertEquals(1, repeated.size());
+    assertEquals("GET /api/jobs/all", repeated.get(0).getOwner());
+    assertEquals("SELECT name FROM users WHERE id = ?", repeated.get(0).getSql());
+    assertEquals(5, repeated.get(0).getCount());
+  }
+
+  @Test
+  public void statements_are_counted_separately_for_each_request_and_job() throws Exception {
+    SqlMonitor monitor = new SqlMonitor(Duration.ofSeconds(10), 3, 100);
+    DataSource dataSource = monitor.monitor(h2);
+
+    try (Connection connection = dataSource.getConnection()) {
+      for (String uri : List.of("/api/jobs/all", "/api/jobs/all")) {
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest("GET", uri)));
+        selectUser(connection, 1);
+        selectUser(connection, 1);
+      }
+      RequestContextHolder.resetRequestAttributes();
+      for (String job : List.of("12", "13")) {
+        try (MDC.MDCCloseable ignored = MDC.putCloseable("job", job)) {
+          selectUser(connection, 1);
+          selectUser(connection, 1);
+        }
+      }
+      // neither a request nor a job: not counted
+      for (int i = 0; i < 3; i++) {
+        selectUser(connection, 1);
+      }
+    }
+
+    assertEquals(List.of(), monitor.getReport().getRepeated());
+  }
+
+  @Test
+  public void slow_statements_are_recorded_without_literals() throws Exception {
+    SqlMonitor monitor = new SqlMonitor(Duration.ZERO, 3, 2);
+    DataSource dataSource = monitor.monitor(h2);
+
+    try (MDC.MDCCloseable ignored = MDC.putCloseable("job", "12");
+        Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.executeQuery("SELECT name FROM users WHERE id = 1 OR name = 'Ch''ris'").close();
+      selectUser(connection, 1);
+      statement.executeUpdate("UPDATE users SET name = 'Phillip' WHERE id = 2");
+    }
+
+    SqlMonitorReport report = monitor.getReport();
+    assertEquals(0, report.getSlowThresholdMillis());
+    assertEquals(
+        List.of("UPDATE users SET name = ? WHERE id = ?", "SELECT name FROM users WHERE id = ?"),
+        report.getSlow().stream().map(s -> s.getSql()).toList());
+    assertEquals("job 12", report.getSlow().get(0).getOwner());
+  }
+}
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+/** Serves the files in src/test/resources/public. */
+@SpringJUnitWebConfig(StaticResourceConfigTests.Config.class)
+@TestPropertySource(
+    properties = {"app.static.cacheMaxFileBytes=256", "app.static.cacheMaxTotalBytes=4096"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class StaticResourceConfigTests {
+
+  @Configuration
+  @EnableWebMvc
+  @Import(StaticResourceConfig.class)
+  static class Config {}
+
+  @Autowired WebApplicationContext context;
+
+  @Autowired InMemoryResourceResolver.Budget budget;
+
+  MockMvc mockMvc;
+
+  @BeforeEach
+  public void setup() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+  }
+
+  @Test
+  public void assets_are_cached_by_the_browser_for_a_year() throws Exception {
+    mockMvc
+        .perform(get("/assets/app-1234abcd.js"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andExpect(header().string("Vary", "Accept-Encoding"))
+        .andExpect(header().exists("ETag"))
+        .andExpect(content().string("console.log(\"app\");\n"));
+  }
+
+  @Test
+  public void other_files_are_revalidated_with_their_etag() throws Exception {
+    String etag =
+        mockMvc
+            .perform(get("/index.html"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "no-cache"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    mockMvc
+        .perform(get("/index.html").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  public void a_second_request_is_served_from_memory() throws Exception {
+    mockMvc.perform(get("/assets/app-1234abcd.js")).andExpect(status().isOk());
+    assertEquals(20, budget.usedBytes());
+
+    mockMvc.perform(get("/assets/app-1234abcd.js")).andExpect(status().isOk());
+    assertEquals(20, budget.usedBytes());
+
+    // both mappings count against the same budget
+    mockMvc.perform(get("/index.html")).andExpect(status().isOk());
+    assertEquals(20 + 117, budget.usedBytes());
+  }
+
+  @Test
+  public void files_over_the_size_cap_are_served_but_not_cached() throws Exception {
+    mockMvc
+        .perform(get("/assets/vendor-5678abcd.js"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andExpect(header().doesNotExist("ETag"))
+        .andExpect(content().string(containsString("vendor")));
+    assertEquals(0, budget.usedBytes());
+  }
+}
@@ -1,17 +1,31 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.services.SparseFieldsetService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = DummyController.class)
@@ -53,4 +67,36 @@ public class ApiControllerTests extends ControllerTestCase {
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("String with id 7 not found", json.get("message"));
   }
+
+  @Test
+  public void empty_fields_mean_whole_rows() throws Exception {
+    ApiController apiController = new DummyController();
+    SparseFieldsetService sparseFieldsetService = mock(SparseFieldsetService.class);
+    DatabaseJsonService databaseJsonService = mock(DatabaseJsonService.class);
+    ReflectionTestUtils.setField(apiController, "sparseFieldsetService", sparseFieldsetService);
+    ReflectionTestUtils.setField(apiController, "databaseJsonService", databaseJsonService);
+    when(databaseJsonService.isEnabled()).thenReturn(true);
+    List<Restaurant> rows = List.of();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertSame(rows, apiController.findAll(() -> rows, Restaurant.class, List.of()));
+    assertTrue(
+        apiController.writtenByDatabase(DatabaseJsonService.RESTAURANTS, List.of(), response));
+    assertFalse(
+        apiController.writtenByDatabase(
+            DatabaseJsonService.RESTAURANTS, List.of("name"), response));
+
+    verifyNoInteractions(sparseFieldsetService);
+    verify(databaseJsonService).write(DatabaseJsonService.RESTAURANTS, response);
+  }
+
+  @Test
+  public void blank_and_any_if_match_headers_require_no_version() {
+    ApiController apiController = new DummyController();
+
+    assertNull(apiController.ifMatchVersion(null));
+    assertNull(apiController.ifMatchVersion(" "));
+    assertNull(apiController.ifMatchVersion(" * "));
+    assertEquals(3L, apiController.ifMatchVersion(" \"3\" "));
+  }
 }
@@ -0,0 +1,162 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.RestaurantView;
+import edu.ucsb.cs156.example.models.UCSBDateView;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsView;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = BatchController.class)
+public class BatchControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @MockitoBean UCSBDateRepository ucsbDateRepository;
+
+  @MockitoBean UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @MockitoBean RestaurantRepository restaurantRepository;
+
+  @MockitoBean JobsController jobsController;
+
+  @Autowired BatchController batchController;
+
+  private static final Map<String, String> ACCESS_DENIED =
+      Map.of("type", "AccessDeniedException", "message", "Access Denied");
+
+  private String json(BatchResult... results) throws Exception {
+    return mapper.writeValueAsString(List.of(results));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_user_gets_each_list_in_order_but_not_the_jobs() throws Exception {
+    // arrange
+    List<UCSBDateView> dates =
+        List.of(UCSBDateView.builder().name("Noon on Veteran's Day").quarterYYYYQ("20224").build());
+    List<UCSBDiningCommonsView> commons =
+        List.of(UCSBDiningCommonsView.builder().code("ortega").name("Ortega").build());
+    List<RestaurantView> restaurants =
+        List.of(RestaurantView.builder().name("Taco Bell").description("Mexican").build());
+    when(ucsbDateRepository.findAllViews()).thenReturn(dates);
+    when(ucsbDiningCommonsRepository.findAllViews()).thenReturn(commons);
+    when(restaurantRepository.findAllViews()).thenReturn(restaurants);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/batch")
+                    .param(
+                        "path",
+                        "/api/restaurants/all",
+                        "/api/jobs/all",
+                        "/api/ucsbdates/all",
+                        "/api/ucsbdiningcommons/all"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        json(
+            new BatchResult("/api/restaurants/all", 200, restaurants),
+            new BatchResult("/api/jobs/all", 403, ACCESS_DENIED),
+            new BatchResult("/api/ucsbdates/all", 200, dates),
+            new BatchResult("/api/ucsbdiningcommons/all", 200, commons)),
+        response.getResponse().getContentAsString());
+    verify(jobsController, never()).allJobs(null, null);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_gets_the_jobs_as_the_jobs_controller_lists_them() throws Exception {
+    // arrange
+    List<Job> jobs = List.of(Job.builder().status("complete").log("done").build());
+    when(jobsController.allJobs(null, null)).thenAnswer(invocation -> jobs);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/batch").param("path", "/api/jobs/all"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        json(new BatchResult("/api/jobs/all", 200, jobs)),
+        response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void a_logged_out_user_gets_no_list() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/batch").param("path", "/api/restaurants/all"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        json(new BatchResult("/api/restaurants/all", 403, ACCESS_DENIED)),
+        response.getResponse().getContentAsString());
+    verify(restaurantRepository, never()).findAllViews();
+  }
+
+  @Test
+  public void no_list_is_read_without_an_authentication() {
+    // arrange
+    SecurityContextHolder.clearContext();
+
+    // act
+    List<BatchResult> results = batchController.batch(List.of("/api/ucsbdates/all"));
+
+    // assert
+    assertEquals(List.of(new BatchResult("/api/ucsbdates/all", 403, ACCESS_DENIED)), results);
+    verify(ucsbDateRepository, never()).findAllViews();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void only_the_listed_paths_can_be_batched() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/batch").param("path", "/api/restaurants/all", "/api/admin/users"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        "not a path that can be batched: /api/admin/users",
+        response.getResponse().getErrorMessage());
+    verify(restaurantRepository, never()).findAllViews();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_path_is_required() throws Exception {
+    mockMvc.perform(get("/api/batch")).andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.Bootstrap;
+import edu.ucsb.cs156.example.models.SystemInfo;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SystemInfoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = BootstrapController.class)
+public class BootstrapControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @MockitoBean SystemInfoService mockSystemInfoService;
+
+  SystemInfo systemInfo =
+      SystemInfo.builder()
+          .showSwaggerUILink(true)
+          .springH2ConsoleEnabled(true)
+          .oauthLogin("/oauth2/authorization/google")
+          .build();
+
+  @BeforeEach
+  public void setup() {
+    when(mockSystemInfoService.getSystemInfo()).thenReturn(systemInfo);
+  }
+
+  @Test
+  public void bootstrap__logged_out() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/bootstrap")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    Bootstrap expected = Bootstrap.builder().systemInfo(systemInfo).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void bootstrap__logged_in() throws Exception {
+    // arrange
+    Bootstrap expected =
+        Bootstrap.builder()
+            .systemInfo(systemInfo)
+            .currentUser(currentUserService.getCurrentUser())
+            .build();
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/bootstrap")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+}
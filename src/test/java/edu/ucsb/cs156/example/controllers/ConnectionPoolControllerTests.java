@@ -0,0 +1,88 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.ConnectionPoolMonitor;
+import edu.ucsb.cs156.example.models.ConnectionBorrower;
+import edu.ucsb.cs156.example.models.ConnectionPoolStatus;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = ConnectionPoolController.class)
+public class ConnectionPoolControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @Autowired ConnectionPoolController connectionPoolController;
+
+  @MockitoBean ConnectionPoolMonitor connectionPoolMonitor;
+
+  @Test
+  public void logged_out_users_cannot_get_status() throws Exception {
+    mockMvc.perform(get("/api/admin/connectionpool")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_status() throws Exception {
+    mockMvc.perform(get("/api/admin/connectionpool")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_status() throws Exception {
+    // arrange
+    ConnectionPoolStatus expected =
+        ConnectionPoolStatus.builder()
+            .active(1)
+            .idle(9)
+            .pending(0)
+            .total(10)
+            .max(10)
+            .borrowers(
+                List.of(
+                    ConnectionBorrower.builder()
+                        .owner("job 12")
+                        .thread("task-1")
+                        .heldMillis(1500)
+                        .build()))
+            .build();
+    when(connectionPoolMonitor.getStatus()).thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/connectionpool")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void not_found_when_monitoring_is_disabled() throws Exception {
+    ReflectionTestUtils.setField(connectionPoolController, "connectionPoolMonitor", null);
+    try {
+      MvcResult response =
+          mockMvc
+              .perform(get("/api/admin/connectionpool"))
+              .andExpect(status().isNotFound())
+              .andReturn();
+      assertEquals(
+          "connection pool monitoring is disabled", response.getResponse().getErrorMessage());
+    } finally {
+      ReflectionTestUtils.setField(
+          connectionPoolController, "connectionPoolMonitor", connectionPoolMonitor);
+    }
+  }
+}
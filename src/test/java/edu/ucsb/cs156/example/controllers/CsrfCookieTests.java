@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.SystemInfo;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SystemInfoService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/** Checks when the CsrfCookieFilter (in lazy mode) causes an XSRF-TOKEN cookie to be set. */
+@WebMvcTest(controllers = SystemInfoController.class)
+public class CsrfCookieTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @MockitoBean SystemInfoService mockSystemInfoService;
+
+  @BeforeEach
+  public void setup() {
+    when(mockSystemInfoService.getSystemInfo()).thenReturn(SystemInfo.builder().build());
+  }
+
+  @Test
+  public void cookie_is_set_when_browser_does_not_have_one() throws Exception {
+    mockMvc
+        .perform(get("/api/systemInfo"))
+        .andExpect(status().isOk())
+        .andExpect(cookie().exists("XSRF-TOKEN"));
+  }
+
+  @Test
+  public void cookie_is_not_set_again_when_browser_already_has_one() throws Exception {
+    mockMvc
+        .perform(get("/api/systemInfo").cookie(new Cookie("XSRF-TOKEN", "abc123")))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Set-Cookie"));
+  }
+
+  @Test
+  public void cookie_is_not_set_for_static_assets() throws Exception {
+    mockMvc
+        .perform(get("/assets/index-1234abcd.js"))
+        .andExpect(header().doesNotExist("Set-Cookie"));
+  }
+}
@@ -0,0 +1,169 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class FrontendProxyControllerTests {
+
+  private WireMockServer frontend;
+
+  private FrontendProxyController controller;
+
+  @BeforeEach
+  public void setup() {
+    frontend = new WireMockServer(options().dynamicPort());
+    frontend.start();
+    controller = controller("streaming", frontend.baseUrl() + "/");
+  }
+
+  @AfterEach
+  public void teardown() {
+    frontend.stop();
+  }
+
+  private static FrontendProxyController controller(String mode, String url) {
+    FrontendProxyController controller = new FrontendProxyController();
+    ReflectionTestUtils.setField(controller, "mode", mode);
+    ReflectionTestUtils.setField(controller, "frontend", url);
+    return controller;
+  }
+
+  private static MockHttpServletRequest request(String uri) {
+    return new MockHttpServletRequest("GET", uri);
+  }
+
+  private static byte[] read(ResponseEntity<?> response) throws Exception {
+    InputStreamResource body = assertInstanceOf(InputStreamResource.class, response.getBody());
+    try (InputStream in = body.getInputStream()) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  public void responses_are_streamed_with_their_headers() throws Exception {
+    frontend.stubFor(
+        get(urlEqualTo("/src/main.jsx?t=1"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "text/javascript")
+                    .withHeader("ETag", "W/\"abc\"")
+                    .withHeader("Cache-Control", "no-cache")
+                    .withHeader("X-Internal", "not passed on")
+                    .withBody("import App from './App';")));
+    MockHttpServletRequest request = request("/src/main.jsx");
+    request.setQueryString("t=1");
+    request.addHeader("Accept", "*/*");
+    request.addHeader("Cookie", "JSESSIONID=secret");
+
+    ResponseEntity<?> response = controller.proxy(request);
+
+    assertEquals(200, response.getStatusCode().value());
+    assertEquals("text/javascript", response.getHeaders().getFirst("Content-Type"));
+    assertEquals("W/\"abc\"", response.getHeaders().getFirst("ETag"));
+    assertEquals("no-cache", response.getHeaders().getFirst("Cache-Control"));
+    assertNull(response.getHeaders().getFirst("X-Internal"));
+    assertEquals("import App from './App';", new String(read(response), StandardCharsets.UTF_8));
+    frontend.verify(
+        getRequestedFor(urlEqualTo("/src/main.jsx?t=1"))
+            .withHeader("Accept", equalTo("*/*"))
+            .withoutHeader("Cookie"));
+  }
+
+  @Test
+  public void conditional_requests_are_forwarded_and_not_modified_has_no_body() throws Exception {
+    frontend.stubFor(
+        get(urlEqualTo("/"))
+            .withHeader("If-None-Match", equalTo("W/\"abc\""))
+            .willReturn(aResponse().withStatus(304).withHeader("ETag", "W/\"abc\"")));
+    MockHttpServletRequest request = request("/");
+    request.addHeader("If-None-Match", "W/\"abc\"");
+
+    ResponseEntity<?> response = controller.proxy(request);
+
+    assertEquals(304, response.getStatusCode().value());
+    assertEquals("W/\"abc\"", response.getHeaders().getETag());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  public void no_content_has_no_body() throws Exception {
+    frontend.stubFor(get(urlEqualTo("/@vite/ping")).willReturn(aResponse().withStatus(204)));
+
+    ResponseEntity<?> response = controller.proxy(request("/@vite/ping"));
+
+    assertEquals(204, response.getStatusCode().value());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  public void buffered_mode_reads_the_whole_response() throws Exception {
+    frontend.stubFor(
+        get(urlEqualTo("/app/index.html"))
+            .willReturn(aResponse().withStatus(404).withBody("not here")));
+    controller = controller("buffered", frontend.baseUrl() + "/");
+    MockHttpServletRequest request = request("/app/index.html");
+
+    ResponseEntity<?> response = controller.proxy(request);
+
+    assertEquals(404, response.getStatusCode().value());
+    assertArrayEquals("not here".getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+  }
+
+  @Test
+  public void the_context_path_is_not_forwarded() throws Exception {
+    frontend.stubFor(get(urlEqualTo("/main.css")).willReturn(aResponse().withBody("body {}")));
+    MockHttpServletRequest request = request("/example/main.css");
+    request.setContextPath("/example");
+
+    ResponseEntity<?> response = controller.proxy(request);
+
+    assertEquals("body {}", new String(read(response), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void instructions_are_shown_when_the_frontend_is_not_running() throws Exception {
+    int closedPort;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      closedPort = socket.getLocalPort();
+    }
+    controller = controller("streaming", "http://localhost:%d/".formatted(closedPort));
+
+    ResponseEntity<?> response = controller.proxy(request("/"));
+
+    assertEquals(200, response.getStatusCode().value());
+    assertEquals(FrontendProxyController.INSTRUCTIONS, response.getBody());
+  }
+
+  @Test
+  public void an_interrupted_request_keeps_the_interrupt() throws Exception {
+    frontend.stubFor(get(urlEqualTo("/")).willReturn(aResponse().withFixedDelay(5000)));
+
+    Thread.currentThread().interrupt();
+    ResponseEntity<?> response = controller.proxy(request("/"));
+
+    assertTrue(Thread.interrupted());
+    assertEquals(503, response.getStatusCode().value());
+  }
+}
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -19,19 +20,30 @@ import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SparseFieldsetService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
@@ -44,8 +56,12 @@ public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean SparseFieldsetService mockSparseFieldsetService;
+
   @Autowired JobService jobService;
 
+  @Autowired JobsController jobsController;
+
   @Autowired ObjectMapper objectMapper;
 
   @WithMockUser(roles = {"ADMIN"})
@@ -69,11 +85,115 @@ public class JobsControllerTests extends ControllerTestCase {
     // assert
 
     verify(jobsRepository, atLeastOnce()).findAll();
+    verify(jobsRepository, times(0)).findAllByCreatedAtGreaterThanEqual(any());
     String expectedJson = mapper.writeValueAsString(expectedJobs);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_only_some_fields_of_all_jobs() throws Exception {
+    // arrange
+    List<Map<String, Object>> expected = List.of(Map.of("id", 1, "status", "complete"));
+    when(mockSparseFieldsetService.findAll(Job.class, List.of("id", "status"), null))
+        .thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/all?fields=id,status"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(jobsRepository, times(0)).findAll();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_only_some_fields_of_jobs_created_since_a_date() throws Exception {
+    // arrange
+    List<Map<String, Object>> expected = List.of(Map.of("id", 1, "status", "complete"));
+    ArgumentCaptor<SparseFieldsetService.Restriction> where =
+        ArgumentCaptor.forClass(SparseFieldsetService.Restriction.class);
+    when(mockSparseFieldsetService.findAll(
+            eq(Job.class), eq(List.of("id", "status")), where.capture()))
+        .thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/all?fields=id,status&since=2025-01-01"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    Root<?> job = mock(Root.class);
+    Path<ZonedDateTime> createdAt = mock();
+    Predicate predicate = mock(Predicate.class);
+    ZonedDateTime start = LocalDate.of(2025, 1, 1).atStartOfDay(ZoneId.systemDefault());
+    doReturn(createdAt).when(job).get("createdAt");
+    when(cb.greaterThanOrEqualTo(createdAt, start)).thenReturn(predicate);
+    assertSame(predicate, where.getValue().on(cb, job));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_gets_the_jobs_of_the_last_listDays_days_by_default() throws Exception {
+    // arrange
+    Job job = Job.builder().id(1L).status("complete").build();
+    when(jobsRepository.findAllByCreatedAtGreaterThanEqual(any())).thenReturn(List.of(job));
+    ReflectionTestUtils.setField(jobsController, "listDays", 90);
+
+    // act
+    MvcResult response;
+    try {
+      response = mockMvc.perform(get("/api/jobs/all")).andExpect(status().isOk()).andReturn();
+    } finally {
+      ReflectionTestUtils.setField(jobsController, "listDays", 0);
+    }
+
+    // assert
+    verify(jobsRepository)
+        .findAllByCreatedAtGreaterThanEqual(
+            LocalDate.now().minusDays(90).atStartOfDay(ZoneId.systemDefault()));
+    verify(jobsRepository, times(0)).findAll();
+    assertEquals(
+        mapper.writeValueAsString(List.of(job)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_jobs_created_since_a_date() throws Exception {
+    // arrange
+    Job job = Job.builder().id(1L).status("complete").build();
+    when(jobsRepository.findAllByCreatedAtGreaterThanEqual(any())).thenReturn(List.of(job));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/all?since=2025-01-01"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(jobsRepository)
+        .findAllByCreatedAtGreaterThanEqual(
+            LocalDate.of(2025, 1, 1).atStartOfDay(ZoneId.systemDefault()));
+    assertEquals(
+        mapper.writeValueAsString(List.of(job)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_gets_400_for_a_since_that_is_not_a_date() throws Exception {
+    mockMvc.perform(get("/api/jobs/all?since=yesterday")).andExpect(status().isBadRequest());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void api_getJobLogById__admin_logged_in__returns_job_by_id() throws Exception {
@@ -0,0 +1,241 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.QueryCounter;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Pins the number of SQL statements each endpoint of the CRUD controllers sends, against the real
+ * database, so that a change that adds a round trip to an endpoint fails here.
+ *
+ * <p>Each endpoint is measured with the second-level cache empty; {@link
+ * #cached_reads_send_no_statements} covers the cached case. If a count changes on purpose, update
+ * it here.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@WithMockUser(roles = {"ADMIN", "USER"})
+public class QueryCountTests {
+  @Autowired MockMvc mockMvc;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @MockitoBean UserRepository userRepository;
+
+  private QueryCounter queryCounter;
+
+  @BeforeEach
+  public void setup() {
+    restaurantRepository.deleteAll();
+    ucsbDateRepository.deleteAll();
+    ucsbDiningCommonsRepository.deleteAll();
+    queryCounter = new QueryCounter(entityManagerFactory);
+  }
+
+  private void evictCaches() {
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    sessionFactory.getCache().evictAllRegions();
+  }
+
+  /** Sends the request with the caches empty and checks how many statements it took. */
+  private void expectStatements(long expected, MockHttpServletRequestBuilder request, int status)
+      throws Exception {
+    evictCaches();
+    queryCounter.reset();
+    mockMvc.perform(request.with(csrf())).andExpect(status().is(status));
+    queryCounter.assertStatements(expected, describe(request));
+  }
+
+  private void expectStatements(long expected, MockHttpServletRequestBuilder request)
+      throws Exception {
+    expectStatements(expected, request, 200);
+  }
+
+  private static String describe(MockHttpServletRequestBuilder request) {
+    var built = request.buildRequest(null);
+    return built.getMethod()
+        + " "
+        + built.getRequestURI()
+        + (built.getQueryString() == null ? "" : "?" + built.getQueryString());
+  }
+
+  private MockHttpServletRequestBuilder putJson(String url, Object body, String ifMatch)
+      throws Exception {
+    MockHttpServletRequestBuilder request =
+        put(url).contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(body));
+    return ifMatch == null ? request : request.header("If-Match", ifMatch);
+  }
+
+  @Test
+  public void restaurants() throws Exception {
+    Restaurant edit = Restaurant.builder().name("Chipotle").description("Tex-Mex").build();
+
+    expectStatements(1, post("/api/restaurants/post?name=Chipotle&description=Mexican"));
+    long id = restaurantRepository.findAll().iterator().next().getId();
+
+    expectStatements(1, get("/api/restaurants/all"));
+    expectStatements(1, get("/api/restaurants/all?fields=id,name"));
+    expectStatements(1, get("/api/restaurants?id=" + id));
+    expectStatements(1, get("/api/restaurants?id=0"), 404);
+    // without If-Match: load, then update
+    expectStatements(2, putJson("/api/restaurants?id=" + id, edit, null));
+    // with If-Match: one conditional update, plus an exists check when it matches nothing
+    expectStatements(1, putJson("/api/restaurants?id=" + id, edit, "\"1\""));
+    expectStatements(2, putJson("/api/restaurants?id=" + id, edit, "\"1\""), 412);
+    expectStatements(1, delete("/api/restaurants?id=" + id));
+    expectStatements(1, delete("/api/restaurants?id=" + id), 404);
+  }
+
+  @Test
+  public void ucsbdates() throws Exception {
+    UCSBDate edit =
+        UCSBDate.builder()
+            .quarterYYYYQ("20222")
+            .name("lastDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+            .build();
+
+    expectStatements(
+        1,
+        post(
+            "/api/ucsbdates/post?quarterYYYYQ=20222&name=firstDayOfClasses"
+                + "&localDateTime=2022-03-28T00:00:00"));
+    long id = ucsbDateRepository.findAll().iterator().next().getId();
+
+    expectStatements(1, get("/api/ucsbdates/all"));
+    expectStatements(1, get("/api/ucsbdates/all?fields=id,name"));
+    expectStatements(1, get("/api/ucsbdates?id=" + id));
+    expectStatements(2, putJson("/api/ucsbdates?id=" + id, edit, null));
+    expectStatements(1, putJson("/api/ucsbdates?id=" + id, edit, "\"1\""));
+    expectStatements(2, putJson("/api/ucsbdates?id=" + id, edit, "\"1\""), 412);
+    expectStatements(1, delete("/api/ucsbdates?id=" + id));
+    expectStatements(1, delete("/api/ucsbdates?id=" + id), 404);
+  }
+
+  @Test
+  public void ucsbdiningcommons() throws Exception {
+    UCSBDiningCommons edit =
+        UCSBDiningCommons.builder()
+            .name("Portola")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.417723)
+            .longitude(-119.867427)
+            .build();
+
+    // the code is assigned, not generated, so save() first checks whether it exists
+    expectStatements(
+        2,
+        post(
+            "/api/ucsbdiningcommons/post?code=portola&name=Portola&hasSackMeal=true"
+                + "&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.417723"
+                + "&longitude=-119.867427"));
+
+    expectStatements(1, get("/api/ucsbdiningcommons/all"));
+    expectStatements(1, get("/api/ucsbdiningcommons/all?fields=code,name"));
+    expectStatements(1, get("/api/ucsbdiningcommons?code=portola"));
+    expectStatements(2, putJson("/api/ucsbdiningcommons?code=portola", edit, null));
+    expectStatements(1, putJson("/api/ucsbdiningcommons?code=portola", edit, "\"1\""));
+    expectStatements(2, putJson("/api/ucsbdiningcommons?code=portola", edit, "\"1\""), 412);
+    expectStatements(1, delete("/api/ucsbdiningcommons?code=portola"));
+    expectStatements(1, delete("/api/ucsbdiningcommons?code=portola"), 404);
+  }
+
+  @Test
+  public void ucsbdate_stats_are_cached_until_a_write() throws Exception {
+    ucsbDateRepository.save(
+        UCSBDate.builder()
+            .quarterYYYYQ("20222")
+            .name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-03-28T00:00:00"))
+            .build());
+
+    // per quarter, per name, and the number of names
+    expectStatements(3, get("/api/ucsbdates/stats"));
+
+    queryCounter.reset();
+    mockMvc.perform(get("/api/ucsbdates/stats")).andExpect(status().isOk());
+    queryCounter.assertStatements(0, "cached GET /api/ucsbdates/stats");
+
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/post?quarterYYYYQ=20223&name=firstDayOfClasses"
+                    + "&localDateTime=2022-06-27T00:00:00")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    queryCounter.reset();
+    mockMvc
+        .perform(get("/api/ucsbdates/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.total").value(2))
+        .andExpect(jsonPath("$.quarters[1].quarterYYYYQ").value("20223"))
+        .andExpect(jsonPath("$.names[0].count").value(2));
+    queryCounter.assertStatements(3, "GET /api/ucsbdates/stats after POST /api/ucsbdates/post");
+  }
+
+  @Test
+  public void cached_reads_send_no_statements() throws Exception {
+    restaurantRepository.save(Restaurant.builder().name("Chipotle").description("Mexican").build());
+    long id = restaurantRepository.findAll().iterator().next().getId();
+    mockMvc.perform(get("/api/restaurants?id=" + id)).andExpect(status().isOk());
+
+    queryCounter.reset();
+    mockMvc.perform(get("/api/restaurants?id=" + id)).andExpect(status().isOk());
+    queryCounter.assertStatements(0, "cached GET /api/restaurants?id=");
+  }
+
+  @Test
+  public void lists_of_every_row_are_not_cached() throws Exception {
+    restaurantRepository.save(Restaurant.builder().name("Chipotle").description("Mexican").build());
+    List<String> urls =
+        List.of("/api/restaurants/all", "/api/ucsbdates/all", "/api/ucsbdiningcommons/all");
+    for (String url : urls) {
+      mockMvc.perform(get(url)).andExpect(status().isOk());
+    }
+
+    queryCounter.reset();
+    for (String url : urls) {
+      mockMvc.perform(get(url)).andExpect(status().isOk());
+    }
+    queryCounter.assertStatements(3, "second GET of each /all");
+  }
+}
@@ -2,7 +2,9 @@ package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,17 +14,24 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.RestaurantView;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.services.SparseFieldsetService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
@@ -35,6 +44,10 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean SparseFieldsetService mockSparseFieldsetService;
+
+  @MockitoBean DatabaseJsonService mockDatabaseJsonService;
+
   // Authorization tests for /api/phones/admin/all
 
   @Test
@@ -131,7 +144,12 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     ArrayList<Restaurant> expectedRestaurants = new ArrayList<>();
     expectedRestaurants.addAll(Arrays.asList(restaurant1, restaurant2));
 
-    when(restaurantRepository.findAll()).thenReturn(expectedRestaurants);
+    // the endpoint reads views, whose JSON must be the same as the entities'
+    List<RestaurantView> views =
+        List.of(
+            RestaurantView.builder().name("Taco Bell").description("Mexican").build(),
+            RestaurantView.builder().name("McDonalds").description("American").build());
+    when(restaurantRepository.findAllViews()).thenReturn(views);
 
     // act
     MvcResult response =
@@ -139,12 +157,82 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(restaurantRepository, times(1)).findAll();
+    verify(restaurantRepository, times(1)).findAllViews();
     String expectedJson = mapper.writeValueAsString(expectedRestaurants);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_restaurants_are_written_by_the_database_when_it_can() throws Exception {
+    // arrange
+    String json =
+        "[{\"id\": 1, \"name\": \"Taco Bell\", \"description\": \"Mexican\", \"version\": 0}]";
+    when(mockDatabaseJsonService.isEnabled()).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              HttpServletResponse response = invocation.getArgument(1);
+              response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+              response.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+              return null;
+            })
+        .when(mockDatabaseJsonService)
+        .write(eq(DatabaseJsonService.RESTAURANTS), any(HttpServletResponse.class));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/restaurants/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(restaurantRepository, times(0)).findAllViews();
+    assertEquals(json, response.getResponse().getContentAsString());
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getResponse().getContentType());
+
+    // only whole rows are written by the database
+    mockMvc.perform(get("/api/restaurants/all?fields=id,name")).andExpect(status().isOk());
+    verify(mockDatabaseJsonService, times(1)).write(any(), any(HttpServletResponse.class));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_only_some_fields_of_all_restaurants() throws Exception {
+    // arrange
+    List<Map<String, Object>> expected =
+        List.of(Map.of("id", 1, "name", "Taco Bell"), Map.of("id", 2, "name", "McDonalds"));
+    when(mockSparseFieldsetService.findAll(Restaurant.class, List.of("id", "name"), null))
+        .thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/all?fields=id,name"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(0)).findAll();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void asking_for_an_unknown_field_of_all_restaurants_is_a_bad_request() throws Exception {
+    // arrange
+    when(mockSparseFieldsetService.findAll(Restaurant.class, List.of("id", "cuisine"), null))
+        .thenThrow(new IllegalArgumentException("unknown fields [cuisine]"));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/all?fields=id,cuisine"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals("unknown fields [cuisine]", response.getResponse().getErrorMessage());
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_can_post_a_new_restaurant() throws Exception {
@@ -173,9 +261,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
   public void admin_can_delete_a_restaurant() throws Exception {
     // arrange
 
-    Restaurant restaurant = Restaurant.builder().name("Taco Bell").description("Mexican").build();
-
-    when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.of(restaurant));
+    when(restaurantRepository.deleteWithId(15L)).thenReturn(1);
 
     // act
     MvcResult response =
@@ -184,9 +270,9 @@ public class RestaurantsControllerTests extends ControllerTestCase {
             .andExpect(status().isOk())
             .andReturn();
 
-    // assert
-    verify(restaurantRepository, times(1)).findById(15L);
-    verify(restaurantRepository, times(1)).delete(any());
+    // assert: deleted without being loaded first
+    verify(restaurantRepository, times(1)).deleteWithId(15L);
+    verify(restaurantRepository, times(0)).findById(any());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -198,7 +284,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
       throws Exception {
     // arrange
 
-    when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(restaurantRepository.deleteWithId(15L)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -208,7 +294,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(restaurantRepository, times(1)).findById(15L);
+    verify(restaurantRepository, times(1)).deleteWithId(15L);
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 not found", json.get("message"));
   }
@@ -227,6 +313,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     String requestBody = mapper.writeValueAsString(restaurantEdited);
 
     when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+    when(restaurantRepository.save(eq(restaurantEdited))).thenReturn(restaurantEdited);
 
     // act
     MvcResult response =
@@ -277,4 +364,159 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_by_id_sends_the_version_as_the_etag() throws Exception {
+    // arrange
+    Restaurant restaurant =
+        Restaurant.builder().id(7L).name("Chipotle").description("Mexican").version(3).build();
+    when(restaurantRepository.findById(eq(7L))).thenReturn(Optional.of(restaurant));
+
+    // act and assert
+    mockMvc
+        .perform(get("/api/restaurants?id=7"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3\""));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_a_restaurant_at_the_version_in_if_match() throws Exception {
+    // arrange
+    Restaurant incoming = Restaurant.builder().name("Taco Bell").description("American").build();
+    when(restaurantRepository.updateIfVersion(67L, 3L, "Taco Bell", "American")).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .header("If-Match", "\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"4\""))
+            .andReturn();
+
+    // assert: one UPDATE, no read
+    verify(restaurantRepository, times(0)).findById(any());
+    verify(restaurantRepository, times(0)).save(any());
+    Restaurant expected =
+        Restaurant.builder().id(67L).name("Taco Bell").description("American").version(4).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_a_restaurant_someone_else_changed() throws Exception {
+    // arrange
+    Restaurant incoming = Restaurant.builder().name("Taco Bell").description("American").build();
+    when(restaurantRepository.updateIfVersion(67L, 3L, "Taco Bell", "American")).thenReturn(0);
+    when(restaurantRepository.existsById(67L)).thenReturn(true);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .header("If-Match", "\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("Restaurant with id 67 is no longer at version 3", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_a_restaurant_that_does_not_exist_with_if_match() throws Exception {
+    // arrange
+    Restaurant incoming = Restaurant.builder().name("Taco Bell").description("American").build();
+    when(restaurantRepository.updateIfVersion(67L, 3L, "Taco Bell", "American")).thenReturn(0);
+    when(restaurantRepository.existsById(67L)).thenReturn(false);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .header("If-Match", "\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Restaurant with id 67 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void if_match_that_is_not_a_version_never_matches() throws Exception {
+    // arrange
+    Restaurant incoming = Restaurant.builder().name("Taco Bell").description("American").build();
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .header("If-Match", "W/\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(0)).updateIfVersion(anyLong(), anyLong(), any(), any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("If-Match W/\"3\" matches no version", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_edit_that_loses_a_race_with_another_is_a_conflict() throws Exception {
+    // arrange
+    Restaurant incoming = Restaurant.builder().name("Taco Bell").description("American").build();
+    when(restaurantRepository.findById(eq(67L)))
+        .thenReturn(
+            Optional.of(
+                Restaurant.builder().id(67L).name("Chipotle").description("Mexican").build()));
+    when(restaurantRepository.save(any()))
+        .thenThrow(new ObjectOptimisticLockingFailureException(Restaurant.class, 67L));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isConflict())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("ObjectOptimisticLockingFailureException", json.get("type"));
+    assertEquals(
+        "Object of class [edu.ucsb.cs156.example.entities.Restaurant] with identifier [67]: optimistic"
+            + " locking failed",
+        json.get("message"));
+  }
 }
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.SqlMonitor;
+import edu.ucsb.cs156.example.models.RepeatedStatement;
+import edu.ucsb.cs156.example.models.SlowStatement;
+import edu.ucsb.cs156.example.models.SqlMonitorReport;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = SqlMonitorController.class)
+public class SqlMonitorControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @Autowired SqlMonitorController sqlMonitorController;
+
+  @MockitoBean SqlMonitor sqlMonitor;
+
+  @Test
+  public void logged_out_users_cannot_get_report() throws Exception {
+    mockMvc.perform(get("/api/admin/sqlmonitor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_report() throws Exception {
+    mockMvc.perform(get("/api/admin/sqlmonitor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_report() throws Exception {
+    // arrange
+    ZonedDateTime ranAt = ZonedDateTime.parse("2024-10-01T12:00:00-07:00");
+    SqlMonitorReport expected =
+        SqlMonitorReport.builder()
+            .slowThresholdMillis(500)
+            .repeatThreshold(20)
+            .repeated(
+                List.of(
+                    RepeatedStatement.builder()
+                        .owner("JobsController.allJobs")
+                        .sql("select u1_0.id from users u1_0 where u1_0.id=?")
+                        .count(57)
+                        .lastRun(ranAt)
+                        .build()))
+            .slow(
+                List.of(
+                    SlowStatement.builder()
+                        .owner("job 12")
+                        .sql("select j1_0.log from jobs j1_0")
+                        .millis(1200)
+                        .ranAt(ranAt)
+                        .build()))
+            .build();
+    when(sqlMonitor.getReport()).thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/sqlmonitor")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void not_found_when_monitoring_is_disabled() throws Exception {
+    ReflectionTestUtils.setField(sqlMonitorController, "sqlMonitor", null);
+    try {
+      MvcResult response =
+          mockMvc
+              .perform(get("/api/admin/sqlmonitor"))
+              .andExpect(status().isNotFound())
+              .andReturn();
+      assertEquals("SQL monitoring is disabled", response.getResponse().getErrorMessage());
+    } finally {
+      ReflectionTestUtils.setField(sqlMonitorController, "sqlMonitor", sqlMonitor);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -42,5 +43,30 @@ public class SystemInfoControllerTests extends ControllerTestCase {
     // assert
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+    assertEquals(
+        "\"" + SystemInfoController.etag(systemInfo) + "\"",
+        response.getResponse().getHeader("ETag"));
+  }
+
+  @Test
+  public void systemInfo__not_modified() throws Exception {
+
+    // arrange
+
+    SystemInfo systemInfo = SystemInfo.builder().commitId("abc1234").build();
+    when(mockSystemInfoService.getSystemInfo()).thenReturn(systemInfo);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/systemInfo")
+                    .header("If-None-Match", "\"" + SystemInfoController.etag(systemInfo) + "\""))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    assertEquals("", response.getResponse().getContentAsString());
+    assertTrue(SystemInfoController.etag(systemInfo).startsWith("abc1234-"));
   }
 }
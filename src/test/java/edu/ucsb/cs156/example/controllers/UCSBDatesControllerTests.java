@@ -2,7 +2,9 @@ package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,18 +14,31 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.models.NameCount;
+import edu.ucsb.cs156.example.models.QuarterStats;
+import edu.ucsb.cs156.example.models.UCSBDateStats;
+import edu.ucsb.cs156.example.models.UCSBDateView;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.services.SparseFieldsetService;
+import edu.ucsb.cs156.example.services.UCSBDateBulkLoadService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
@@ -34,8 +49,14 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
   @MockitoBean UCSBDateRepository ucsbDateRepository;
 
+  @MockitoBean UCSBDateBulkLoadService ucsbDateBulkLoadService;
+
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean SparseFieldsetService mockSparseFieldsetService;
+
+  @MockitoBean DatabaseJsonService mockDatabaseJsonService;
+
   // Authorization tests for /api/ucsbdates/admin/all
 
   @Test
@@ -150,7 +171,20 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     ArrayList<UCSBDate> expectedDates = new ArrayList<>();
     expectedDates.addAll(Arrays.asList(ucsbDate1, ucsbDate2));
 
-    when(ucsbDateRepository.findAll()).thenReturn(expectedDates);
+    // the endpoint reads views, whose JSON must be the same as the entities'
+    List<UCSBDateView> views =
+        List.of(
+            UCSBDateView.builder()
+                .name("firstDayOfClasses")
+                .quarterYYYYQ("20222")
+                .localDateTime(ldt1)
+                .build(),
+            UCSBDateView.builder()
+                .name("lastDayOfClasses")
+                .quarterYYYYQ("20222")
+                .localDateTime(ldt2)
+                .build());
+    when(ucsbDateRepository.findAllViews()).thenReturn(views);
 
     // act
     MvcResult response =
@@ -158,12 +192,101 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbDateRepository, times(1)).findAll();
+    verify(ucsbDateRepository, times(1)).findAllViews();
     String expectedJson = mapper.writeValueAsString(expectedDates);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_ucsbdates_are_written_by_the_database_when_it_can() throws Exception {
+    // arrange
+    String json =
+        "[{\"id\": 1, \"quarterYYYYQ\": \"20222\", \"name\": \"firstDayOfClasses\", \"localDateTime\": \"2022-01-03T00:00:00\", \"version\": 0}]";
+    when(mockDatabaseJsonService.isEnabled()).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              HttpServletResponse response = invocation.getArgument(1);
+              response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+              response.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+              return null;
+            })
+        .when(mockDatabaseJsonService)
+        .write(eq(DatabaseJsonService.UCSBDATES), any(HttpServletResponse.class));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(0)).findAllViews();
+    assertEquals(json, response.getResponse().getContentAsString());
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getResponse().getContentType());
+
+    // only whole rows are written by the database
+    mockMvc.perform(get("/api/ucsbdates/all?fields=id,name")).andExpect(status().isOk());
+    verify(mockDatabaseJsonService, times(1)).write(any(), any(HttpServletResponse.class));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_only_some_fields_of_all_ucsbdates() throws Exception {
+    // arrange
+    List<Map<String, Object>> expected = List.of(Map.of("id", 1, "name", "firstDayOfClasses"));
+    when(mockSparseFieldsetService.findAll(UCSBDate.class, List.of("id", "name"), null))
+        .thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/all?fields=id,name"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(0)).findAll();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_stats() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/stats")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_stats() throws Exception {
+    // arrange
+    List<QuarterStats> quarters =
+        List.of(
+            new QuarterStats(
+                "20221",
+                2,
+                LocalDateTime.parse("2022-01-03T00:00:00"),
+                LocalDateTime.parse("2022-03-11T00:00:00")),
+            new QuarterStats(
+                "20222",
+                1,
+                LocalDateTime.parse("2022-03-28T00:00:00"),
+                LocalDateTime.parse("2022-03-28T00:00:00")));
+    List<NameCount> names =
+        List.of(new NameCount("firstDayOfClasses", 2), new NameCount("lastDayOfClasses", 1));
+    when(ucsbDateRepository.statsByQuarter()).thenReturn(quarters);
+    when(ucsbDateRepository.countDistinctNames()).thenReturn(2L);
+    when(ucsbDateRepository.countsByName(Limit.of(20))).thenReturn(names);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/stats")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    UCSBDateStats expected =
+        UCSBDateStats.builder().total(3).quarters(quarters).distinctNames(2).names(names).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    verify(ucsbDateRepository, times(0)).findAll();
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_can_post_a_new_ucsbdate() throws Exception {
@@ -201,16 +324,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
   public void admin_can_delete_a_date() throws Exception {
     // arrange
 
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-    UCSBDate ucsbDate1 =
-        UCSBDate.builder()
-            .name("firstDayOfClasses")
-            .quarterYYYYQ("20222")
-            .localDateTime(ldt1)
-            .build();
-
-    when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
+    when(ucsbDateRepository.deleteWithId(15L)).thenReturn(1);
 
     // act
     MvcResult response =
@@ -219,9 +333,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .andExpect(status().isOk())
             .andReturn();
 
-    // assert
-    verify(ucsbDateRepository, times(1)).findById(15L);
-    verify(ucsbDateRepository, times(1)).delete(any());
+    // assert: deleted without being loaded first
+    verify(ucsbDateRepository, times(1)).deleteWithId(15L);
+    verify(ucsbDateRepository, times(0)).findById(any());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -233,7 +347,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
       throws Exception {
     // arrange
 
-    when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(ucsbDateRepository.deleteWithId(15L)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -243,7 +357,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDateRepository, times(1)).findById(15L);
+    verify(ucsbDateRepository, times(1)).deleteWithId(15L);
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 15 not found", json.get("message"));
   }
@@ -273,6 +387,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     String requestBody = mapper.writeValueAsString(ucsbDateEdited);
 
     when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+    when(ucsbDateRepository.save(eq(ucsbDateEdited))).thenReturn(ucsbDateEdited);
 
     // act
     MvcResult response =
@@ -328,4 +443,200 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_a_ucsbdate_at_the_version_in_if_match() throws Exception {
+    // arrange
+    LocalDateTime ldt = LocalDateTime.parse("2023-01-03T00:00:00");
+    UCSBDate incoming =
+        UCSBDate.builder()
+            .name("firstDayOfFestivus")
+            .quarterYYYYQ("20232")
+            .localDateTime(ldt)
+            .build();
+    when(ucsbDateRepository.updateIfVersion(67L, 0L, "20232", "firstDayOfFestivus", ldt))
+        .thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdates?id=67")
+                    .header("If-Match", "\"0\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1\""))
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(0)).findById(any());
+    UCSBDate expected =
+        UCSBDate.builder()
+            .id(67L)
+            .name("firstDayOfFestivus")
+            .quarterYYYYQ("20232")
+            .localDateTime(ldt)
+            .version(1)
+            .build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_a_ucsbdate_someone_else_changed() throws Exception {
+    // arrange
+    LocalDateTime ldt = LocalDateTime.parse("2023-01-03T00:00:00");
+    UCSBDate incoming =
+        UCSBDate.builder()
+            .name("firstDayOfFestivus")
+            .quarterYYYYQ("20232")
+            .localDateTime(ldt)
+            .build();
+    when(ucsbDateRepository.updateIfVersion(67L, 0L, "20232", "firstDayOfFestivus", ldt))
+        .thenReturn(0);
+    when(ucsbDateRepository.existsById(67L)).thenReturn(true);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdates?id=67")
+                    .header("If-Match", "\"0\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("UCSBDate with id 67 is no longer at version 0", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_bulk_load() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType("text/csv")
+                .content("quarterYYYYQ,name,localDateTime\n")
+                .with(csrf()))
+        .andExpect(status().is(403));
+    verify(ucsbDateBulkLoadService, times(0)).load(any(), anyBoolean());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_bulk_load_csv_and_json() throws Exception {
+    // arrange
+    BulkLoadResult result = BulkLoadResult.builder().rows(2).method("batch").millis(5).build();
+    when(ucsbDateBulkLoadService.load(any(), anyBoolean())).thenReturn(result);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdates/bulk")
+                    .contentType("text/csv; charset=utf-8")
+                    .content("quarterYYYYQ,name,localDateTime\n")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(ucsbDateBulkLoadService, times(1)).load(any(), eq(false));
+    verify(ucsbDateBulkLoadService, times(1)).load(any(), eq(true));
+    assertEquals(mapper.writeValueAsString(result), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_invalid_row_fails_the_bulk_load() throws Exception {
+    // arrange
+    when(ucsbDateBulkLoadService.load(any(), anyBoolean()))
+        .thenThrow(new IllegalArgumentException("row 2: name is missing"));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdates/bulk")
+                    .contentType("text/csv")
+                    .content("quarterYYYYQ,name,localDateTime\n")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals("row 2: name is missing", response.getResponse().getErrorMessage());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void bulk_load_takes_only_csv_or_json() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("20244 firstDayOfClasses")
+                .with(csrf()))
+        .andExpect(status().isUnsupportedMediaType());
+    verify(ucsbDateBulkLoadService, times(0)).load(any(), anyBoolean());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_edit_that_loses_a_race_with_another_is_a_conflict() throws Exception {
+    // arrange
+    UCSBDate incoming =
+        UCSBDate.builder()
+            .name("firstDayOfFestivus")
+            .quarterYYYYQ("20232")
+            .localDateTime(LocalDateTime.parse("2023-01-03T00:00:00"))
+            .build();
+    when(ucsbDateRepository.findById(eq(67L)))
+        .thenReturn(
+            Optional.of(
+                UCSBDate.builder()
+                    .id(67L)
+                    .name("firstDayOfClasses")
+                    .quarterYYYYQ("20222")
+                    .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                    .build()));
+    when(ucsbDateRepository.save(any()))
+        .thenThrow(new ObjectOptimisticLockingFailureException(UCSBDate.class, 67L));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdates?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isConflict())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("ObjectOptimisticLockingFailureException", json.get("type"));
+    assertEquals(
+        "Object of class [edu.ucsb.cs156.example.entities.UCSBDate] with identifier [67]: optimistic"
+            + " locking failed",
+        json.get("message"));
+  }
 }
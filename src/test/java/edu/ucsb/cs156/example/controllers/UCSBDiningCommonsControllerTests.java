@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,17 +13,24 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsView;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.services.SparseFieldsetService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
@@ -35,6 +43,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean SparseFieldsetService mockSparseFieldsetService;
+
+  @MockitoBean DatabaseJsonService mockDatabaseJsonService;
+
   // Authorization tests for /api/ucsbdiningcommons/admin/all
 
   @Test
@@ -163,7 +175,28 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     ArrayList<UCSBDiningCommons> expectedCommons = new ArrayList<>();
     expectedCommons.addAll(Arrays.asList(carrillo, dlg));
 
-    when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
+    // the endpoint reads views, whose JSON must be the same as the entities'
+    List<UCSBDiningCommonsView> views =
+        List.of(
+            UCSBDiningCommonsView.builder()
+                .name("Carrillo")
+                .code("carrillo")
+                .hasSackMeal(false)
+                .hasTakeOutMeal(false)
+                .hasDiningCam(true)
+                .latitude(34.409953)
+                .longitude(-119.85277)
+                .build(),
+            UCSBDiningCommonsView.builder()
+                .name("De La Guerra")
+                .code("de-la-guerra")
+                .hasSackMeal(false)
+                .hasTakeOutMeal(false)
+                .hasDiningCam(true)
+                .latitude(34.409811)
+                .longitude(-119.845026)
+                .build());
+    when(ucsbDiningCommonsRepository.findAllViews()).thenReturn(views);
 
     // act
     MvcResult response =
@@ -171,12 +204,62 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+    verify(ucsbDiningCommonsRepository, times(1)).findAllViews();
     String expectedJson = mapper.writeValueAsString(expectedCommons);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_ucsbdiningcommons_are_written_by_the_database_when_it_can() throws Exception {
+    // arrange
+    String json = "[{\"code\": \"ortega\", \"name\": \"Ortega\", \"hasSackMeal\": true}]";
+    when(mockDatabaseJsonService.isEnabled()).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              HttpServletResponse response = invocation.getArgument(1);
+              response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+              response.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+              return null;
+            })
+        .when(mockDatabaseJsonService)
+        .write(eq(DatabaseJsonService.UCSBDININGCOMMONS), any(HttpServletResponse.class));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).findAllViews();
+    assertEquals(json, response.getResponse().getContentAsString());
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getResponse().getContentType());
+
+    // only whole rows are written by the database
+    mockMvc.perform(get("/api/ucsbdiningcommons/all?fields=code,name")).andExpect(status().isOk());
+    verify(mockDatabaseJsonService, times(1)).write(any(), any(HttpServletResponse.class));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_only_some_fields_of_all_ucsbdiningcommons() throws Exception {
+    // arrange
+    List<Map<String, Object>> expected = List.of(Map.of("code", "ortega", "name", "Ortega"));
+    when(mockSparseFieldsetService.findAll(UCSBDiningCommons.class, List.of("code", "name"), null))
+        .thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all?fields=code,name"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).findAll();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_can_post_a_new_commons() throws Exception {
@@ -216,18 +299,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
   public void admin_can_delete_a_date() throws Exception {
     // arrange
 
-    UCSBDiningCommons portola =
-        UCSBDiningCommons.builder()
-            .name("Portola")
-            .code("portola")
-            .hasSackMeal(true)
-            .hasTakeOutMeal(true)
-            .hasDiningCam(true)
-            .latitude(34.417723)
-            .longitude(-119.867427)
-            .build();
-
-    when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
+    when(ucsbDiningCommonsRepository.deleteWithCode("portola")).thenReturn(1);
 
     // act
     MvcResult response =
@@ -236,9 +308,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andExpect(status().isOk())
             .andReturn();
 
-    // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
-    verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+    // assert: deleted without being loaded first
+    verify(ucsbDiningCommonsRepository, times(1)).deleteWithCode("portola");
+    verify(ucsbDiningCommonsRepository, times(0)).findById(any());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -250,7 +322,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
       throws Exception {
     // arrange
 
-    when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+    when(ucsbDiningCommonsRepository.deleteWithCode("munger-hall")).thenReturn(0);
 
     // act
     MvcResult response =
@@ -260,7 +332,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+    verify(ucsbDiningCommonsRepository, times(1)).deleteWithCode("munger-hall");
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
@@ -296,6 +368,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     when(ucsbDiningCommonsRepository.findById(eq("carrillo")))
         .thenReturn(Optional.of(carrilloOrig));
+    when(ucsbDiningCommonsRepository.save(eq(carrilloEdited))).thenReturn(carrilloEdited);
 
     // act
     MvcResult response =
@@ -354,4 +427,113 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_a_commons_at_the_version_in_if_match() throws Exception {
+    // arrange
+    UCSBDiningCommons incoming =
+        UCSBDiningCommons.builder()
+            .name("Carrillo Dining Hall")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.409954)
+            .longitude(-119.85278)
+            .build();
+    when(ucsbDiningCommonsRepository.updateIfVersion(
+            "carrillo", 5L, "Carrillo Dining Hall", true, true, false, 34.409954, -119.85278))
+        .thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons?code=carrillo")
+                    .header("If-Match", "\"5\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"6\""))
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).findById(any());
+    incoming.setCode("carrillo");
+    incoming.setVersion(6);
+    assertEquals(mapper.writeValueAsString(incoming), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_a_commons_someone_else_changed() throws Exception {
+    // arrange
+    UCSBDiningCommons incoming =
+        UCSBDiningCommons.builder()
+            .name("Carrillo Dining Hall")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.409954)
+            .longitude(-119.85278)
+            .build();
+    when(ucsbDiningCommonsRepository.updateIfVersion(
+            "carrillo", 5L, "Carrillo Dining Hall", true, true, false, 34.409954, -119.85278))
+        .thenReturn(0);
+    when(ucsbDiningCommonsRepository.existsById("carrillo")).thenReturn(true);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons?code=carrillo")
+                    .header("If-Match", "\"5\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        "UCSBDiningCommons with id carrillo is no longer at version 5", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_edit_that_loses_a_race_with_another_is_a_conflict() throws Exception {
+    // arrange
+    UCSBDiningCommons incoming =
+        UCSBDiningCommons.builder().code("carrillo").name("Carrillo Dining Hall").build();
+    when(ucsbDiningCommonsRepository.findById(eq("carrillo")))
+        .thenReturn(
+            Optional.of(UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build()));
+    when(ucsbDiningCommonsRepository.save(any()))
+        .thenThrow(
+            new ObjectOptimisticLockingFailureException(UCSBDiningCommons.class, "carrillo"));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons?code=carrillo")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(incoming))
+                    .with(csrf()))
+            .andExpect(status().isConflict())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("ObjectOptimisticLockingFailureException", json.get("type"));
+    assertEquals(
+        "Object of class [edu.ucsb.cs156.example.entities.UCSBDiningCommons] with identifier [carrillo]: optimistic"
+            + " locking failed",
+        json.get("message"));
+  }
 }
@@ -1,6 +1,12 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,12 +16,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserDirectoryService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
@@ -26,6 +45,8 @@ public class UsersControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean UserDirectoryService userDirectoryService;
+
   @Test
   public void users__logged_out() throws Exception {
     mockMvc.perform(get("/api/admin/users")).andExpect(status().is(403));
@@ -37,6 +58,7 @@ public class UsersControllerTests extends ControllerTestCase {
     mockMvc.perform(get("/api/admin/users")).andExpect(status().is(403));
   }
 
+  @SuppressWarnings("unchecked")
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void users__admin_logged_in() throws Exception {
@@ -50,18 +72,179 @@ public class UsersControllerTests extends ControllerTestCase {
     ArrayList<User> expectedUsers = new ArrayList<>();
     expectedUsers.addAll(Arrays.asList(u1, u2, u));
 
-    when(userRepository.findAll()).thenReturn(expectedUsers);
+    when(userRepository.findAll(any(Specification.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedUsers));
     String expectedJson = mapper.writeValueAsString(expectedUsers);
 
     // act
 
     MvcResult response =
-        mockMvc.perform(get("/api/admin/users")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/admin/users"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(header().doesNotExist("X-Page"))
+            .andExpect(header().doesNotExist("X-Page-Size"))
+            .andReturn();
 
-    // assert
+    // assert: every user, as the admin users page expects
 
-    verify(userRepository, times(1)).findAll();
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(userRepository, times(1)).findAll(any(Specification.class), pageable.capture());
+    assertEquals(Pageable.unpaged(Sort.by(Sort.Direction.ASC, "id")), pageable.getValue());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+    assertEquals("application/json;charset=UTF-8", response.getResponse().getContentType());
+  }
+
+  @SuppressWarnings("unchecked")
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void users__admin_can_page_and_sort() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("a@ucsb.edu").build();
+    when(userRepository.findAll(any(Specification.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(Arrays.asList(u1), PageRequest.of(2, 1), 5));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/admin/users?page=2&size=1&sort=email&direction=DESC&admin=true"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "5"))
+            .andExpect(header().string("X-Page", "2"))
+            .andExpect(header().string("X-Page-Size", "1"))
+            .andReturn();
+
+    // assert
+
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(userRepository, times(1)).findAll(any(Specification.class), pageable.capture());
+    assertEquals(PageRequest.of(2, 1, Sort.by(Sort.Direction.DESC, "email")), pageable.getValue());
+    assertEquals(
+        mapper.writeValueAsString(Arrays.asList(u1)), response.getResponse().getContentAsString());
+  }
+
+  @SuppressWarnings("unchecked")
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void users__page_or_size_alone_asks_for_a_page() throws Exception {
+    when(userRepository.findAll(any(Specification.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of()));
+
+    mockMvc
+        .perform(get("/api/admin/users?page=1"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Page", "1"))
+        .andExpect(header().string("X-Page-Size", "1000"));
+    mockMvc
+        .perform(get("/api/admin/users?size=10"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Page", "0"))
+        .andExpect(header().string("X-Page-Size", "10"));
+
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(userRepository, times(2)).findAll(any(Specification.class), pageable.capture());
+    Sort byId = Sort.by(Sort.Direction.ASC, "id");
+    assertEquals(
+        List.of(PageRequest.of(1, 1000, byId), PageRequest.of(0, 10, byId)),
+        pageable.getAllValues());
+  }
+
+  @SuppressWarnings("unchecked")
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void users__bad_sort_field_is_rejected() throws Exception {
+    mockMvc.perform(get("/api/admin/users?sort=googleSub")).andExpect(status().isBadRequest());
+    verify(userRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void users__bad_page_size_is_rejected() throws Exception {
+    mockMvc.perform(get("/api/admin/users?size=0")).andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/admin/users?size=1001")).andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/admin/users?page=-1")).andExpect(status().isBadRequest());
+    verify(userRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users/search?prefix=a")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void search__admin_logged_in() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).email("phtcon@ucsb.edu").build();
+    when(userDirectoryService.search(eq("pht"), eq(20))).thenReturn(List.of(u1));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/admin/users/search?prefix=pht"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(userDirectoryService, times(1)).search(eq("pht"), eq(20));
+    assertEquals(
+        mapper.writeValueAsString(List.of(u1)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void search__bad_limit_is_rejected() throws Exception {
+    mockMvc
+        .perform(get("/api/admin/users/search?prefix=a&limit=0"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/admin/users/search?prefix=a&limit=101"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/admin/users/search?prefix=a&limit=100")).andExpect(status().isOk());
+    verify(userDirectoryService, times(1)).search(anyString(), anyInt());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void filter_only_includes_given_parameters() {
+
+    // arrange
+
+    Root<User> root = mock(Root.class);
+    CriteriaQuery<?> query = mock(CriteriaQuery.class);
+    CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    Path<Object> emailPath = mock(Path.class);
+    Path<Object> adminPath = mock(Path.class);
+    Path<Object> domainPath = mock(Path.class);
+    when(root.get("email")).thenReturn(emailPath);
+    when(root.get("admin")).thenReturn(adminPath);
+    when(root.get("hostedDomain")).thenReturn(domainPath);
+    Predicate p1 = mock(Predicate.class);
+    Predicate p2 = mock(Predicate.class);
+    Predicate p3 = mock(Predicate.class);
+    when(cb.equal(emailPath, "a@ucsb.edu")).thenReturn(p1);
+    when(cb.equal(adminPath, true)).thenReturn(p2);
+    when(cb.equal(domainPath, "ucsb.edu")).thenReturn(p3);
+
+    // act
+
+    UsersController.filter(null, null, null).toPredicate(root, query, cb);
+    UsersController.filter("a@ucsb.edu", true, "ucsb.edu").toPredicate(root, query, cb);
+
+    // assert
+
+    verify(cb, times(1)).and(eq(new Predicate[0]));
+    verify(cb, times(1)).and(eq(new Predicate[] {p1, p2, p3}));
   }
 }
@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.integration;
+
+import edu.ucsb.cs156.example.config.ApiCompressionFilter;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Measures what ApiCompressionFilter costs and saves for JSON list responses of several sizes at
+ * several gzip levels, so that app.compression.api.minSize and level can be chosen from data.
+ *
+ * <p>For each payload size and level it logs the compressed size, single-thread throughput and p99
+ * time spent in the filter, and then one line with the p99 of every level for that payload size.
+ * Network time saved is not included; at 10 Mbit/s every 1.25 KB saved is worth about 1 ms.
+ */
+@Slf4j
+@Benchmark
+public class ApiCompressionBenchmarkIT {
+  private static final int[] SIZES = {1024, 8 * 1024, 64 * 1024, 512 * 1024};
+  private static final int[] LEVELS = {0, 1, 4, 6, 9}; // 0 means no filter at all
+
+  @Test
+  public void compare_levels_and_sizes() throws Exception {
+    measure(false); // warm up the JIT for every combination first
+    measure(true);
+  }
+
+  private void measure(boolean report) throws Exception {
+    for (int size : SIZES) {
+      byte[] body = jsonOfSize(size);
+      int iterations = Math.max(200, 20_000_000 / size);
+      StringBuilder p99s = new StringBuilder();
+      for (int level : LEVELS) {
+        ApiCompressionFilter filter =
+            level == 0 ? null : new ApiCompressionFilter(0, level, Set.of("application/json"));
+        long[] nanos = new long[iterations];
+        int compressedSize = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+          long t = System.nanoTime();
+          compressedSize = run(filter, body);
+          nanos[i] = System.nanoTime() - t;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (!report) {
+          continue;
+        }
+        Arrays.sort(nanos);
+        String p99 = "%.1f".formatted(nanos[(int) (iterations * 0.99)] / 1000.0);
+        p99s.append(' ').append(level == 0 ? "off" : level).append('=').append(p99);
+        log.info(
+            "api compression benchmark: payload={}B level={} out={}B ({}%) throughput={}/s p99={}us",
+            size,
+            level == 0 ? "off" : level,
+            compressedSize,
+            100 * compressedSize / body.length,
+            (long) (iterations / seconds),
+            p99);
+      }
+      if (report) {
+        log.info("api compression benchmark: payload={}B p99 us by level:{}", size, p99s);
+      }
+    }
+  }
+
+  private static int run(ApiCompressionFilter filter, byte[] body) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    request.addHeader("Accept-Encoding", "gzip");
+    CountingResponse response = new CountingResponse();
+    FilterChain chain =
+        (req, res) -> {
+          res.setContentType("application/json");
+          res.getOutputStream().write(body);
+        };
+    if (filter == null) {
+      chain.doFilter(request, response);
+    } else {
+      filter.doFilter(request, response, chain);
+    }
+    return response.count;
+  }
+
+  // MockHttpServletResponse copies byte by byte, which would swamp what is being measured
+  private static class CountingResponse extends MockHttpServletResponse {
+    int count;
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      return new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+          count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {}
+      };
+    }
+  }
+
+  // A list of restaurant-like objects, which compresses about as well as the real API output
+  private static byte[] jsonOfSize(int size) {
+    String[] words = {"Taco", "Bell", "Mexican", "Freebirds", "Burrito", "Pizza", "Thai", "Cafe"};
+    Random random = new Random(156);
+    StringBuilder json = new StringBuilder("[");
+    for (long id = 1; json.length() < size - 100; id++) {
+      json.append(id > 1 ? "," : "")
+          .append("{\"id\":")
+          .append(id)
+          .append(",\"name\":\"")
+          .append(words[random.nextInt(words.length)])
+          .append(' ')
+          .append(words[random.nextInt(words.length)])
+          .append("\",\"description\":\"")
+          .append(Long.toHexString(random.nextLong()))
+          .append("\"}");
+    }
+    return json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
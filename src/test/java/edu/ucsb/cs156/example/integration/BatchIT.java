@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class BatchIT {
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  private JsonNode batch(String... paths) throws Exception {
+    String response =
+        mockMvc
+            .perform(get("/api/batch").param("path", paths))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return mapper.readTree(response);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_logged_in_user_gets_each_list_it_may_see() throws Exception {
+    // arrange
+    Restaurant restaurant = Restaurant.builder().name("Taco Bell").description("Mexican").build();
+    restaurantRepository.save(restaurant);
+
+    // act
+    JsonNode results = batch("/api/restaurants/all", "/api/ucsbdates/all", "/api/jobs/all");
+
+    // assert
+    assertEquals(
+        List.of(200, 200, 403),
+        List.of(
+            results.get(0).get("status").asInt(),
+            results.get(1).get("status").asInt(),
+            results.get(2).get("status").asInt()));
+    assertEquals(
+        mapper.readTree(mapper.writeValueAsString(List.of(restaurant))),
+        results.get(0).get("body"));
+    assertEquals(mapper.readTree("[]"), results.get(1).get("body"));
+  }
+
+  @Test
+  public void a_logged_out_user_gets_no_list() throws Exception {
+    // act
+    JsonNode results = batch("/api/restaurants/all");
+
+    // assert
+    assertEquals(403, results.get(0).get("status").asInt());
+  }
+}
@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.config.AdaptiveConcurrencyLimit;
+import edu.ucsb.cs156.example.config.ConcurrencyLimitFilter;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Shows how /api behaves at twice its capacity with and without the ConcurrencyLimitFilter.
+ *
+ * <p>The "service" behind the filter can run {@link #CAPACITY} requests at once (like a connection
+ * pool) and each takes {@link #SERVICE_MS}, so it completes at most CAPACITY * 1000 / SERVICE_MS
+ * requests per second. Requests arrive open-loop (each on its own virtual thread, the way Tomcat
+ * would keep accepting them) at 0.8x and 2x that rate, and {@link #LOW_PRIORITY_SHARE} of them are
+ * for the low-priority /api/systemInfo.
+ *
+ * <p>served/s counts until the last queued request has been answered.
+ */
+@Slf4j
+@Benchmark
+public class ConcurrencyLimitBenchmarkIT {
+  private static final int CAPACITY = 8;
+  private static final int SERVICE_MS = 10;
+  private static final double LOW_PRIORITY_SHARE = 0.2;
+  private static final int WARMUP_SECONDS = 3;
+  private static final int SECONDS = 8;
+
+  private record Sample(long nanos, int status, boolean low) {}
+
+  private record Run(Queue<Sample> samples, long elapsedNanos) {}
+
+  @Test
+  public void compare_with_and_without_limit() throws Exception {
+    int capacityPerSecond = CAPACITY * 1000 / SERVICE_MS;
+    for (double load : new double[] {0.8, 2.0}) {
+      int rate = (int) (capacityPerSecond * load);
+      report("off", load, run(null, rate, SECONDS));
+
+      ConcurrencyLimitFilter filter =
+          new ConcurrencyLimitFilter(
+              new AdaptiveConcurrencyLimit(20, 4, 200, 20),
+              List.of("/api/systemInfo"),
+              0.5,
+              List.of(),
+              new SimpleMeterRegistry());
+      run(filter, rate, WARMUP_SECONDS);
+      Run limited = run(filter, rate, SECONDS);
+      report("adaptive", load, limited);
+      assertTrue(latencies(limited.samples()).length > 0);
+    }
+  }
+
+  private static Run run(ConcurrencyLimitFilter filter, int rate, int seconds)
+      throws InterruptedException {
+    Semaphore service = new Semaphore(CAPACITY);
+    FilterChain chain =
+        (req, res) -> {
+          service.acquireUninterruptibly();
+          try {
+            Thread.sleep(SERVICE_MS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            service.release();
+          }
+        };
+
+    Queue<Sample> samples = new ConcurrentLinkedQueue<>();
+    List<Thread> threads = new ArrayList<>();
+    long interval = 1_000_000_000L / rate;
+    long begin = System.nanoTime();
+    long next = begin;
+    for (int i = 0; i < rate * seconds; i++) {
+      boolean low = i % (int) Math.round(1 / LOW_PRIORITY_SHARE) == 0;
+      threads.add(
+          Thread.ofVirtual()
+              .start(
+                  () -> {
+                    MockHttpServletRequest request =
+                        new MockHttpServletRequest(
+                            "GET", low ? "/api/systemInfo" : "/api/restaurants/all");
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    long start = System.nanoTime();
+                    try {
+                      if (filter == null) {
+                        chain.doFilter(request, response);
+                      } else {
+                        filter.doFilter(request, response, chain);
+                      }
+                    } catch (Exception e) {
+                      response.setStatus(500);
+                    }
+                    samples.add(new Sample(System.nanoTime() - start, response.getStatus(), low));
+                  }));
+      next += interval;
+      LockSupport.parkNanos(next - System.nanoTime());
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return new Run(samples, System.nanoTime() - begin);
+  }
+
+  private static long[] latencies(Queue<Sample> samples) {
+    return samples.stream()
+        .filter(s -> s.status() == 200)
+        .mapToLong(Sample::nanos)
+        .sorted()
+        .toArray();
+  }
+
+  private static double percentileMillis(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000_000.0;
+  }
+
+  private static void report(String mode, double load, Run run) {
+    Queue<Sample> samples = run.samples();
+    long[] served = latencies(samples);
+    long shedLow = samples.stream().filter(s -> s.status() == 503 && s.low()).count();
+    long shedNormal = samples.stream().filter(s -> s.status() == 503 && !s.low()).count();
+    long low = samples.stream().filter(Sample::low).count();
+    log.info(
+        "concurrency limit benchmark: load={}x limiter={} served={}/s p50={}ms p99={}ms max={}ms"
+            + " shed low={}% shed normal={}%",
+        load,
+        mode,
+        "%.0f".formatted(served.length / (run.elapsedNanos() / 1e9)),
+        "%.1f".formatted(percentileMillis(served, 0.50)),
+        "%.1f".formatted(percentileMillis(served, 0.99)),
+        "%.1f".formatted(percentileMillis(served, 1.0)),
+        "%.0f".formatted(100.0 * shedLow / Math.max(1, low)),
+        "%.0f".formatted(100.0 * shedNormal / Math.max(1, samples.size() - low)));
+  }
+}
@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import jakarta.servlet.http.Cookie;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Compares the two CSRF cookie modes (app.csrf.cookieMode) on three kinds of request: an /api GET
+ * from a browser that already has the XSRF-TOKEN cookie (most requests), an /api GET without it,
+ * and a request for a static asset without it. For each it reports the CPU time of one request
+ * through the whole filter chain, and the bytes of Set-Cookie headers in its response.
+ */
+@Slf4j
+@Benchmark
+public class CsrfCookieBenchmarkIT {
+  private static final int WARMUP = 20000;
+  private static final int ITERATIONS = 20000;
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  abstract static class ModeBenchmark {
+    @Autowired MockMvc mockMvc;
+
+    abstract String mode();
+
+    @Test
+    public void measure() throws Exception {
+      Cookie cookie = new Cookie("XSRF-TOKEN", "4b6a1c2e-7f0d-4d55-9a57-3f1f5c0de9b1");
+      measure("api GET with cookie", get("/api/systemInfo").cookie(cookie));
+      measure("api GET without cookie", get("/api/systemInfo"));
+      measure("asset GET without cookie", get("/assets/index-1234abcd.js"));
+    }
+
+    private void measure(String request, RequestBuilder builder) throws Exception {
+      for (int i = 0; i < WARMUP; i++) {
+        mockMvc.perform(builder);
+      }
+      long cookieBytes = 0;
+      long cpu = THREADS.getCurrentThreadCpuTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        MockHttpServletResponse response = mockMvc.perform(builder).andReturn().getResponse();
+        for (String header : response.getHeaders("Set-Cookie")) {
+          cookieBytes += "Set-Cookie: ".length() + header.length() + 2;
+        }
+      }
+      log.info(
+          "csrf cookie benchmark: {} mode, {}: {} us CPU, {} bytes of Set-Cookie per request",
+          mode(),
+          request,
+          "%.1f".formatted((THREADS.getCurrentThreadCpuTime() - cpu) / 1e3 / ITERATIONS),
+          cookieBytes / ITERATIONS);
+    }
+  }
+
+  @Nested
+  @SpringBootTest(properties = "app.csrf.cookieMode=always")
+  @AutoConfigureMockMvc
+  @ActiveProfiles("integration")
+  class Always extends ModeBenchmark {
+    String mode() {
+      return "always";
+    }
+  }
+
+  @Nested
+  @SpringBootTest(properties = "app.csrf.cookieMode=lazy")
+  @AutoConfigureMockMvc
+  @ActiveProfiles("integration")
+  class Lazy extends ModeBenchmark {
+    String mode() {
+      return "lazy";
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package edu.ucsb.cs156.example.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import edu.ucsb.cs156.example.testconfig.PostgresDatabase;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Compares the ways GET /api/restaurants/all and GET /api/ucsbdates/all can write their response,
+ * at 10k, 100k and 1M rows: loading entities (findAll) and serializing them with Jackson, loading
+ * projections (findAllViews, what the endpoints do by default) and serializing them, and having the
+ * database write the JSON (DatabaseJsonService). Each writes the whole response to a stream that
+ * counts and discards it. For each, it reports the time, bytes allocated and CPU time used on the
+ * calling thread by one request.
+ *
+ * <p>It runs on the in-memory H2 database, in the same JVM, so the database's own work is included
+ * in the CPU time and allocation of DatabaseJsonService, and there is no network between it and the
+ * application. With {@code TEST_POSTGRES_URL} set (see PostgresDatabase), it runs on Postgres
+ * instead, and only the application's share is measured. The entity cache is off, so that every
+ * read goes to the database. 1M entities need {@code -DargLine=-Xmx3g}. See docs/benchmarks.md.
+ */
+@Slf4j
+@Benchmark
+@SpringBootTest(properties = {"app.entitycache.enabled=false", "app.db.jsonArrays.enabled=true"})
+@ActiveProfiles("integration")
+public class DatabaseJsonBenchmarkIT {
+  private static final int[] ROWS = {10_000, 100_000, 1_000_000};
+
+  /** About this many rows are read per measurement, in as many requests as that takes. */
+  private static final int ROWS_PER_MEASUREMENT = 200_000;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired DatabaseJsonService databaseJsonService;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void database(DynamicPropertyRegistry registry) throws SQLException {
+    if (System.getenv("TEST_POSTGRES_URL") != null) {
+      PostgresDatabase.register(registry);
+    }
+  }
+
+  /** A way of writing one /all response. */
+  private interface Response {
+    void write(OutputStream out) throws Exception;
+  }
+
+  /** Counts the bytes written to it, and keeps none. */
+  private static class CountingStream extends OutputStream {
+    long bytes;
+
+    @Override
+    public void write(int b) {
+      bytes++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      bytes += len;
+    }
+  }
+
+  @AfterEach
+  public void teardown() {
+    jdbcTemplate.update("DELETE FROM restaurants");
+    jdbcTemplate.update("DELETE FROM ucsbdates");
+  }
+
+  @Test
+  public void compare_entities_projections_and_database_json() throws Exception {
+    for (int rows : ROWS) {
+      fill(
+          "INSERT INTO restaurants (name, description) VALUES (?, ?)",
+          rows,
+          i -> new Object[] {"Restaurant " + i, "A description of restaurant number " + i});
+      compare(
+          "restaurants/all",
+          rows,
+          out -> mapper.writeValue(out, restaurantRepository.findAll()),
+          out -> mapper.writeValue(out, restaurantRepository.findAllViews()),
+          out -> databaseJsonService.write(DatabaseJsonService.RESTAURANTS, out));
+      jdbcTemplate.update("DELETE FROM restaurants");
+
+      LocalDateTime first = LocalDateTime.of(2024, 9, 26, 0, 0);
+      fill(
+          "INSERT INTO ucsbdates (quarteryyyyq, name, local_date_time) VALUES (?, ?, ?)",
+          rows,
+          i -> new Object[] {"20244", "date " + i, Timestamp.valueOf(first.plusMinutes(i))});
+      compare(
+          "ucsbdates/all",
+          rows,
+          out -> mapper.writeValue(out, ucsbDateRepository.findAll()),
+          out -> mapper.writeValue(out, ucsbDateRepository.findAllViews()),
+          out -> databaseJsonService.write(DatabaseJsonService.UCSBDATES, out));
+      jdbcTemplate.update("DELETE FROM ucsbdates");
+    }
+  }
+
+  private void fill(String insert, int rows, IntFunction<Object[]> row) {
+    List<Object[]> batch = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      batch.add(row.apply(i));
+      if (batch.size() == 10_000 || i == rows - 1) {
+        jdbcTemplate.batchUpdate(insert, batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void compare(
+      String endpoint, int rows, Response entities, Response projections, Response database)
+      throws Exception {
+    int iterations = Math.max(1, ROWS_PER_MEASUREMENT / rows);
+
+    // warm up each before measuring any
+    measure(entities, 1);
+    measure(projections, 1);
+    measure(database, 1);
+    double[] entity = measure(entities, iterations);
+    double[] projection = measure(projections, iterations);
+    double[] json = measure(database, iterations);
+
+    log.info(
+        "database json benchmark: {} with {} rows, per request (ms, KB allocated, ms CPU,"
+            + " KB written): entities {}; projections {}; database json {}",
+        endpoint,
+        rows,
+        format(entity),
+        format(projection),
+        format(json));
+  }
+
+  private static String format(double[] result) {
+    return "%.1f ms, %.0f KB, %.1f ms CPU, %.0f KB"
+        .formatted(result[0] / 1e6, result[1] / 1024, result[2] / 1e6, result[3] / 1024);
+  }
+
+  /** Returns the average time, bytes allocated, CPU time and bytes written by one request. */
+  private double[] measure(Response response, int iterations) throws Exception {
+    System.gc();
+    long thread = Thread.currentThread().getId();
+    long allocated = THREADS.getThreadAllocatedBytes(thread);
+    long cpu = THREADS.getCurrentThreadCpuTime();
+    long start = System.nanoTime();
+    CountingStream out = new CountingStream();
+    for (int i = 0; i < iterations; i++) {
+      response.write(out);
+    }
+    return new double[] {
+      (double) (System.nanoTime() - start) / iterations,
+      (double) (THREADS.getThreadAllocatedBytes(thread) - allocated) / iterations,
+      (double) (THREADS.getCurrentThreadCpuTime() - cpu) / iterations,
+      (double) out.bytes / iterations
+    };
+  }
+}
@@ -0,0 +1,165 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.RestaurantView;
+import edu.ucsb.cs156.example.models.UCSBDateView;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsView;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DatabaseJsonService;
+import edu.ucsb.cs156.example.testconfig.Postgres;
+import edu.ucsb.cs156.example.testconfig.PostgresDatabase;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Has Postgres write the /all responses with json_agg, in chunks of 2 rows, and checks that they
+ * are the JSON Jackson writes for the same rows.
+ */
+@Postgres
+@SpringBootTest(properties = {"app.db.jsonArrays.enabled=true", "app.db.jsonArrays.chunkRows=2"})
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class DatabaseJsonPostgresIT {
+
+  @Autowired MockMvc mockMvc;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired DatabaseJsonService databaseJsonService;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @MockitoBean UserRepository userRepository;
+
+  @DynamicPropertySource
+  static void database(DynamicPropertyRegistry registry) throws SQLException {
+    PostgresDatabase.register(registry);
+  }
+
+  @AfterEach
+  public void teardown() {
+    restaurantRepository.deleteAll();
+    ucsbDateRepository.deleteAll();
+    ucsbDiningCommonsRepository.deleteAll();
+  }
+
+  private String write(DatabaseJsonService.Table table) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    databaseJsonService.write(table, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  private void assertSameJson(List<?> expected, String actual) throws Exception {
+    assertEquals(mapper.readTree(mapper.writeValueAsString(expected)), mapper.readTree(actual));
+  }
+
+  @Test
+  public void an_empty_table_is_an_empty_array() throws Exception {
+    assertEquals("[]", write(DatabaseJsonService.RESTAURANTS));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void restaurants_are_written_as_jackson_would() throws Exception {
+    // 5 rows in chunks of 2: the last chunk is not full
+    for (int i = 0; i < 5; i++) {
+      restaurantRepository.save(
+          Restaurant.builder()
+              .name("Restaurant " + i)
+              .description(i == 3 ? null : "\"quoted\" \\ and ünicode\n" + i)
+              .build());
+    }
+    List<?> views =
+        restaurantRepository.findAllViews().stream()
+            .sorted(Comparator.comparing(RestaurantView::getId))
+            .toList();
+
+    String json = write(DatabaseJsonService.RESTAURANTS);
+    // spaced as json_build_object spaces it
+    assertTrue(json.startsWith("[{\"id\" : "), json);
+    assertSameJson(views, json);
+    assertSameJson(
+        views,
+        mockMvc
+            .perform(get("/api/restaurants/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void dates_are_written_as_jackson_would() throws Exception {
+    // 4 rows in chunks of 2: the last chunk is full, and the one after it is empty
+    for (int i = 0; i < 4; i++) {
+      ucsbDateRepository.save(
+          UCSBDate.builder()
+              .quarterYYYYQ("20244")
+              .name("date " + i)
+              .localDateTime(LocalDateTime.of(2024, 9, 26, 0, 0).plusHours(i).plusSeconds(i))
+              .build());
+    }
+    List<?> views =
+        ucsbDateRepository.findAllViews().stream()
+            .sorted(Comparator.comparing(UCSBDateView::getId))
+            .toList();
+
+    assertSameJson(views, write(DatabaseJsonService.UCSBDATES));
+  }
+
+  @Test
+  public void dining_commons_are_written_as_jackson_would() throws Exception {
+    ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build());
+    ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder().code("carrillo").name("Carrillo").hasSackMeal(false).build());
+    ucsbDiningCommonsRepository.save(UCSBDiningCommons.builder().code("dlg").name("DLG").build());
+    List<?> views =
+        ucsbDiningCommonsRepository.findAllViews().stream()
+            .sorted(Comparator.comparing(UCSBDiningCommonsView::getCode))
+            .toList();
+
+    assertSameJson(views, write(DatabaseJsonService.UCSBDININGCOMMONS));
+  }
+}
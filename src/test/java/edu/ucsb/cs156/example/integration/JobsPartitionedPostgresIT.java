@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.config.JobPartitions;
+import edu.ucsb.cs156.example.testconfig.Postgres;
+import edu.ucsb.cs156.example.testconfig.PostgresDatabase;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import liquibase.Liquibase;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Runs the migrations on Postgres, where changes/JobsPartitioned.json partitions the jobs table,
+ * both on a new database and on one that already has jobs.
+ */
+@Postgres
+public class JobsPartitionedPostgresIT {
+
+  private static Liquibase liquibase(Connection connection) throws Exception {
+    return new Liquibase(
+        "db/migration/changelog-master.json",
+        new ClassLoaderResourceAccessor(),
+        DatabaseFactory.getInstance()
+            .findCorrectDatabaseImplementation(new JdbcConnection(connection)));
+  }
+
+  private static Connection connect() throws Exception {
+    return DriverManager.getConnection(
+        PostgresDatabase.create(), PostgresDatabase.username(), PostgresDatabase.password());
+  }
+
+  private static TreeSet<YearMonth> months(YearMonth from, YearMonth to) {
+    TreeSet<YearMonth> months = new TreeSet<>();
+    for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+      months.add(month);
+    }
+    return months;
+  }
+
+  @Test
+  public void existing_jobs_are_moved_into_monthly_partitions() throws Exception {
+    try (Connection connection = connect()) {
+      JdbcTemplate jdbcTemplate =
+          new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+      Liquibase liquibase = liquibase(connection);
+      // Jobs-0 only: the jobs table as it was before
+      liquibase.update(1, "");
+      LocalDateTime before = LocalDateTime.now().withNano(0);
+      jdbcTemplate.update(
+          "INSERT INTO jobs (created_at, updated_at, status, log) VALUES"
+              + " ('2024-11-15 10:00', '2024-11-15 10:01', 'complete', 'a'),"
+              + " (NULL, '2025-01-10 09:00', 'error', 'b'),"
+              + " (NULL, NULL, 'running', 'c')");
+
+      liquibase.update("");
+
+      JobPartitions partitions = new JobPartitions(jdbcTemplate, 3, 0);
+      YearMonth current = YearMonth.now();
+      assertTrue(partitions.isPartitioned());
+      assertEquals(months(YearMonth.of(2024, 11), current.plusMonths(3)), partitions.months());
+      List<Map<String, Object>> jobs =
+          jdbcTemplate.queryForList("SELECT id, created_at, status, log FROM jobs ORDER BY id");
+      assertEquals(3, jobs.size());
+      assertEquals(List.of(1L, 2L, 3L), jobs.stream().map(j -> j.get("id")).toList());
+      assertEquals(List.of("a", "b", "c"), jobs.stream().map(j -> j.get("log")).toList());
+      assertEquals(
+          LocalDateTime.parse("2024-11-15T10:00"),
+          jdbcTemplate.queryForObject(
+              "SELECT created_at FROM jobs WHERE id = 1", LocalDateTime.class));
+      // a job without created_at gets its updated_at, or failing that the time of the migration
+      assertEquals(
+          LocalDateTime.parse("2025-01-10T09:00"),
+          jdbcTemplate.queryForObject(
+              "SELECT created_at FROM jobs WHERE id = 2", LocalDateTime.class));
+      assertFalse(
+          jdbcTemplate
+              .queryForObject("SELECT created_at FROM jobs WHERE id = 3", LocalDateTime.class)
+              .isBefore(before));
+      assertEquals(
+          List.of("jobs_p" + current.toString().replace("-", "")),
+          jdbcTemplate.queryForList(
+              "SELECT tableoid::regclass::text FROM jobs WHERE id = 3", String.class));
+
+      // new jobs get the next id, and are stored in this month's partition
+      assertEquals(
+          4L,
+          jdbcTemplate.queryForObject(
+              "INSERT INTO jobs (status) VALUES ('running') RETURNING id", Long.class));
+      assertEquals(List.of(), partitions.maintain(current));
+    }
+  }
+
+  @Test
+  public void a_new_database_gets_partitions_from_this_month() throws Exception {
+    try (Connection connection = connect()) {
+      JdbcTemplate jdbcTemplate =
+          new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+      liquibase(connection).update("");
+
+      JobPartitions partitions = new JobPartitions(jdbcTemplate, 3, 0);
+      YearMonth current = YearMonth.now();
+      assertTrue(partitions.isPartitioned());
+      assertEquals(months(current, current.plusMonths(3)), partitions.months());
+    }
+  }
+}
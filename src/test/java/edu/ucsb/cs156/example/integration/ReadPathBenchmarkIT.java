@@ -0,0 +1,169 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.RestaurantView;
+import edu.ucsb.cs156.example.models.UCSBDateView;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import jakarta.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares reading entities with reading projections (models such as RestaurantView), for GET /all
+ * (findAll and findAllViews) and for a GET by id (findById and the same projection query with a
+ * WHERE clause), including serializing the result to JSON. For each, it reports the bytes allocated
+ * and CPU time used by one request on the calling thread, and checks that both give the same JSON.
+ *
+ * <p>The /all endpoints use the projections; the GET by id endpoints still use findById, which
+ * measured cheaper than the projection query.
+ *
+ * <p>The entity cache is off, so that every read goes to the database and builds its result; with
+ * it on, findAll and findById are answered from the cache most of the time, but findAllViews is not
+ * cached.
+ *
+ * <p>Each figure is the average of {@link #ALL_ITERATIONS} or {@link #BY_ID_ITERATIONS} requests.
+ * See docs/benchmarks.md.
+ */
+@Slf4j
+@Benchmark
+@SpringBootTest(properties = "app.entitycache.enabled=false")
+@ActiveProfiles("integration")
+public class ReadPathBenchmarkIT {
+  private static final int ROWS = 5000;
+  private static final int ALL_ITERATIONS = 50;
+  private static final int BY_ID_ITERATIONS = 5000;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @AfterEach
+  public void teardown() {
+    restaurantRepository.deleteAll();
+    ucsbDateRepository.deleteAll();
+  }
+
+  @Test
+  public void compare_entities_and_projections() throws Exception {
+    List<Restaurant> restaurants = new ArrayList<>();
+    List<UCSBDate> dates = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      restaurants.add(
+          Restaurant.builder()
+              .name("Restaurant " + i)
+              .description("A description of restaurant number " + i)
+              .build());
+      dates.add(
+          UCSBDate.builder()
+              .quarterYYYYQ("20244")
+              .name("date " + i)
+              .localDateTime(LocalDateTime.of(2024, 9, 26, 0, 0).plusHours(i))
+              .build());
+    }
+    long firstRestaurant = restaurantRepository.saveAll(restaurants).iterator().next().getId();
+    long firstDate = ucsbDateRepository.saveAll(dates).iterator().next().getId();
+
+    compare(
+        "restaurants/all",
+        ALL_ITERATIONS,
+        i -> restaurantRepository.findAll(),
+        i -> restaurantRepository.findAllViews());
+    compare(
+        "restaurants?id=",
+        BY_ID_ITERATIONS,
+        i -> restaurantRepository.findById(firstRestaurant + i % ROWS).orElseThrow(),
+        i ->
+            view(
+                RestaurantView.class,
+                "SELECT new edu.ucsb.cs156.example.models.RestaurantView("
+                    + "r.id, r.name, r.description, r.version) "
+                    + "FROM restaurants r WHERE r.id = :id",
+                firstRestaurant + i % ROWS));
+    compare(
+        "ucsbdates/all",
+        ALL_ITERATIONS,
+        i -> ucsbDateRepository.findAll(),
+        i -> ucsbDateRepository.findAllViews());
+    compare(
+        "ucsbdates?id=",
+        BY_ID_ITERATIONS,
+        i -> ucsbDateRepository.findById(firstDate + i % ROWS).orElseThrow(),
+        i ->
+            view(
+                UCSBDateView.class,
+                "SELECT new edu.ucsb.cs156.example.models.UCSBDateView("
+                    + "d.id, d.quarterYYYYQ, d.name, d.localDateTime, d.version) "
+                    + "FROM ucsbdates d WHERE d.id = :id",
+                firstDate + i % ROWS));
+  }
+
+  /** Runs a projection query for one id in a read-only transaction, as a repository would. */
+  private <V> V view(Class<V> type, String query, long id) {
+    TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+    return readOnly.execute(
+        status -> entityManager.createQuery(query, type).setParameter("id", id).getSingleResult());
+  }
+
+  private void compare(
+      String endpoint, int iterations, LongFunction<Object> entities, LongFunction<Object> views)
+      throws Exception {
+    assertEquals(
+        mapper.writeValueAsString(entities.apply(0)), mapper.writeValueAsString(views.apply(0)));
+
+    // warm up both before measuring either
+    measure(entities, iterations);
+    measure(views, iterations);
+    double[] entity = measure(entities, iterations);
+    double[] view = measure(views, iterations);
+
+    log.info(
+        "read path benchmark: {} per request: entities {} KB allocated, {} ms CPU;"
+            + " projections {} KB allocated, {} ms CPU",
+        endpoint,
+        "%.1f".formatted(entity[0] / 1024),
+        "%.3f".formatted(entity[1] / 1e6),
+        "%.1f".formatted(view[0] / 1024),
+        "%.3f".formatted(view[1] / 1e6));
+  }
+
+  /** Returns the average bytes allocated and CPU nanoseconds used by one load and serialize. */
+  private double[] measure(LongFunction<Object> load, int iterations) throws Exception {
+    long thread = Thread.currentThread().getId();
+    long allocated = THREADS.getThreadAllocatedBytes(thread);
+    long cpu = THREADS.getCurrentThreadCpuTime();
+    for (int i = 0; i < iterations; i++) {
+      mapper.writeValueAsBytes(load.apply(i));
+    }
+    return new double[] {
+      (double) (THREADS.getThreadAllocatedBytes(thread) - allocated) / iterations,
+      (double) (THREADS.getCurrentThreadCpuTime() - cpu) / iterations
+    };
+  }
+}
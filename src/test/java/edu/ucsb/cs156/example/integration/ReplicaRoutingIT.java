@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Runs the app against a second in-memory H2 database standing in as the read replica, with
+ * different rows in it than in the primary, and checks which one each request reads from.
+ *
+ * <p>The entity cache is on, as it is by default: rows read from the replica must not be cached,
+ * and reads of the primary that the cache answers must not fetch a connection.
+ */
+@SpringBootTest(
+    properties = {
+      "app.db.replica.enabled=true",
+      "app.db.replica.url=" + ReplicaRoutingIT.REPLICA_URL,
+      "app.db.replica.username=sa",
+      "app.db.replica.password=",
+      "app.db.replica.lagQuery=SELECT 0",
+      "app.db.replica.lagCheckMs=0"
+    })
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class ReplicaRoutingIT {
+  static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-it;DB_CLOSE_DELAY=-1";
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired MeterRegistry registry;
+
+  @MockitoBean UserRepository userRepository;
+
+  private List<String> restaurantNames(MockHttpSession session) throws Exception {
+    String response =
+        mockMvc
+            .perform(get("/api/restaurants/all").session(session))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    List<String> names = new ArrayList<>();
+    for (JsonNode restaurant : mapper.readTree(response)) {
+      names.add(restaurant.get("name").asText());
+    }
+    return names;
+  }
+
+  private String restaurantName(MockHttpSession session, long id) throws Exception {
+    String response =
+        mockMvc
+            .perform(get("/api/restaurants").param("id", String.valueOf(id)).session(session))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return mapper.readTree(response).get("name").asText();
+  }
+
+  private double pinnedReads() {
+    return registry
+        .get("app.db.replica.reads")
+        .tag("target", "primary")
+        .tag("reason", "pinned")
+        .counter()
+        .count();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void reads_come_from_the_replica_except_just_after_a_write() throws Exception {
+    // arrange: the replica has the schema but not the primary's rows
+    DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+    SpringLiquibase liquibase = new SpringLiquibase();
+    liquibase.setDataSource(replica);
+    liquibase.setChangeLog("classpath:db/migration/changelog-master.json");
+    liquibase.setResourceLoader(new DefaultResourceLoader());
+    liquibase.afterPropertiesSet();
+    new JdbcTemplate(replica)
+        .update("INSERT INTO restaurants (name, description) VALUES ('On replica', 'stale')");
+    restaurantRepository.save(Restaurant.builder().name("On primary").description("fresh").build());
+
+    MockHttpSession writer = new MockHttpSession();
+    MockHttpSession other = new MockHttpSession();
+
+    // act and assert
+    assertEquals(List.of("On replica"), restaurantNames(writer));
+
+    mockMvc
+        .perform(
+            post("/api/restaurants/post")
+                .param("name", "Written")
+                .param("description", "by this session")
+                .with(csrf())
+                .session(writer))
+        .andExpect(status().isOk());
+
+    // another session reads the replica, which has not caught up
+    assertEquals(List.of("On replica"), restaurantNames(other));
+    // the writer sees its own write, not what the other session just read
+    assertEquals(List.of("On primary", "Written"), restaurantNames(writer));
+
+    // a row read from the replica is not cached, and one the cache holds needs no connection
+    long id = restaurantRepository.findAll().iterator().next().getId();
+    assertEquals("On replica", restaurantName(other, id));
+    assertEquals("On primary", restaurantName(writer, id));
+    double pinned = pinnedReads();
+    assertEquals("On primary", restaurantName(writer, id));
+    assertEquals(pinned, pinnedReads());
+  }
+}
@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -85,4 +86,46 @@ public class RestaurantIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_only_put_over_the_version_they_got() throws Exception {
+    // arrange
+    restaurantRepository.save(
+        Restaurant.builder().name("Taco Bell").description("Mexican").build());
+    String etag =
+        mockMvc
+            .perform(get("/api/restaurants?id=1"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+    String edit =
+        mapper.writeValueAsString(
+            Restaurant.builder().name("Taco Bell").description("Tex-Mex").build());
+
+    // act: the first PUT moves the restaurant to the next version, so the second one fails
+    mockMvc
+        .perform(
+            put("/api/restaurants?id=1")
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(edit)
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1\""));
+    mockMvc
+        .perform(
+            put("/api/restaurants?id=1")
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(edit)
+                .with(csrf()))
+        .andExpect(status().isPreconditionFailed());
+
+    // assert
+    Restaurant saved = restaurantRepository.findById(1L).get();
+    assertEquals("Tex-Mex", saved.getDescription());
+    assertEquals(1, saved.getVersion());
+  }
 }
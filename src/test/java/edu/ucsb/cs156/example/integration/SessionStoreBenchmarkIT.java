@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.config.CachingSessionRepository;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the per-request cost of loading and saving a session (what SessionRepositoryFilter does
+ * on every request) for the in-memory default, the plain JDBC store and the cached JDBC store.
+ *
+ * <p>The cached store still makes one primary key lookup per request, to see whether another
+ * instance has saved or deleted the session; see docs/benchmarks.md.
+ */
+@Slf4j
+@Benchmark
+@SpringBootTest(properties = {"app.session.store=jdbc"})
+@ActiveProfiles("integration")
+public class SessionStoreBenchmarkIT {
+  private static final int WARMUP = 5000;
+  private static final int ITERATIONS = 10000;
+
+  @Autowired DataSource dataSource;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Autowired SessionRepository<?> sessionRepository;
+
+  @Test
+  public void compare_session_stores() {
+    assertEquals(CachingSessionRepository.class, sessionRepository.getClass());
+
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    JdbcIndexedSessionRepository jdbc =
+        new JdbcIndexedSessionRepository(new JdbcTemplate(dataSource), transactionTemplate);
+
+    double memory = microsPerRequest(new MapSessionRepository(new ConcurrentHashMap<>()));
+    double plain = microsPerRequest(jdbc);
+    double cached = microsPerRequest((CachingSessionRepository<?>) sessionRepository);
+
+    log.info(
+        "session store benchmark (us per request): memory={} jdbc={} jdbc+cache={}",
+        "%.2f".formatted(memory),
+        "%.2f".formatted(plain),
+        "%.2f".formatted(cached));
+  }
+
+  private <S extends Session> double microsPerRequest(SessionRepository<S> repository) {
+    S session = repository.createSession();
+    session.setAttribute(
+        "SPRING_SECURITY_CONTEXT",
+        new SecurityContextImpl(
+            new UsernamePasswordAuthenticationToken(
+                "user", null, List.of(new SimpleGrantedAuthority("ROLE_USER")))));
+    repository.save(session);
+    String id = session.getId();
+
+    for (int i = 0; i < WARMUP; i++) {
+      request(repository, id);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      request(repository, id);
+    }
+    return (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+  }
+
+  private static <S extends Session> void request(SessionRepository<S> repository, String id) {
+    S session = repository.findById(id);
+    session.setLastAccessedTime(Instant.now());
+    repository.save(session);
+  }
+}
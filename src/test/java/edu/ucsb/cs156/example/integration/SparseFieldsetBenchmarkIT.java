@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.SparseFieldsetService;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares /all responses with and without a {@code fields} parameter: payload size, time to load
+ * the rows (query and hydration) and time to serialize them, for the same data.
+ *
+ * <p>Each figure is the median of {@link #ITERATIONS} runs. Jobs get a 2 KB log each, which is
+ * small for a real job. See docs/benchmarks.md.
+ */
+@Slf4j
+@Benchmark
+@SpringBootTest
+@ActiveProfiles("integration")
+public class SparseFieldsetBenchmarkIT {
+  private static final int ROWS = 2000;
+  private static final int WARMUP = 20;
+  private static final int ITERATIONS = 50;
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired SparseFieldsetService sparseFieldsetService;
+
+  @Autowired ObjectMapper mapper;
+
+  @Test
+  public void compare_full_entities_and_sparse_fieldsets() throws Exception {
+    List<Job> jobs = new ArrayList<>();
+    List<Restaurant> restaurants = new ArrayList<>();
+    List<UCSBDate> dates = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      jobs.add(Job.builder().status("complete").log(("line " + i + "\n").repeat(250)).build());
+      restaurants.add(
+          Restaurant.builder()
+              .name("Restaurant " + i)
+              .description("A description of restaurant number " + i + " ".repeat(60))
+              .build());
+      dates.add(
+          UCSBDate.builder()
+              .quarterYYYYQ("20244")
+              .name("date " + i)
+              .localDateTime(LocalDateTime.of(2024, 9, 26, 0, 0).plusHours(i))
+              .build());
+    }
+    jobsRepository.saveAll(jobs);
+    restaurantRepository.saveAll(restaurants);
+    ucsbDateRepository.saveAll(dates);
+
+    compare(jobsRepository, Job.class, List.of("id", "status"));
+    compare(restaurantRepository, Restaurant.class, List.of("id", "name"));
+    compare(ucsbDateRepository, UCSBDate.class, List.of("id", "name"));
+  }
+
+  private <T> void compare(CrudRepository<T, ?> repository, Class<T> type, List<String> fields)
+      throws Exception {
+    measure(type, "all", repository::findAll);
+    measure(type, String.join(",", fields), () -> sparseFieldsetService.findAll(type, fields));
+  }
+
+  private void measure(Class<?> type, String fields, Supplier<Iterable<?>> load) throws Exception {
+    long[] loadNanos = new long[ITERATIONS];
+    long[] serializeNanos = new long[ITERATIONS];
+    int bytes = 0;
+    for (int i = -WARMUP; i < ITERATIONS; i++) {
+      long start = System.nanoTime();
+      Iterable<?> rows = load.get();
+      long loaded = System.nanoTime();
+      bytes = mapper.writeValueAsBytes(rows).length;
+      long serialized = System.nanoTime();
+      if (i >= 0) {
+        loadNanos[i] = loaded - start;
+        serializeNanos[i] = serialized - loaded;
+      }
+    }
+    log.info(
+        "sparse fieldset benchmark: entity={} fields={} rows={} payload={}KB load={}ms"
+            + " serialize={}ms",
+        type.getSimpleName(),
+        fields,
+        ROWS,
+        bytes / 1024,
+        "%.2f".formatted(medianMillis(loadNanos)),
+        "%.2f".formatted(medianMillis(serializeNanos)));
+  }
+
+  private static double medianMillis(long[] nanos) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2] / 1e6;
+  }
+}
@@ -0,0 +1,285 @@
+package edu.ucsb.cs156.example.integration;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockServiceImpl;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test comparing request handling on Tomcat's platform thread pool with the virtualthreads
+ * profile.
+ *
+ * <p>Each mode starts the whole application on a random port with the integration profile (H2 in
+ * memory), logs in through the same wiremock OAuth stubs the web tests use, and then has many
+ * concurrent clients call {@code GET /api/restaurants?id=1} for a fixed time. Every JDBC statement
+ * is delayed by {@link #DB_LATENCY_MS} so that requests block on the database the way they do
+ * against a networked Postgres; with H2 alone there would be almost nothing to wait on.
+ *
+ * <p>The load generator runs on the same machine, so compare modes with each other rather than
+ * reading the numbers as absolute capacity.
+ */
+@Slf4j
+@Benchmark
+public class ThreadModeLoadIT {
+  private static final long DB_LATENCY_MS = 2;
+  private static final int[] CLIENTS = {50, 200, 800};
+  private static final Duration WARMUP = Duration.ofSeconds(3);
+  private static final Duration MEASURE = Duration.ofSeconds(8);
+
+  private static volatile boolean injectLatency = false;
+
+  private static WireMockServer wireMockServer;
+
+  @BeforeAll
+  public static void setupWireMock() {
+    wireMockServer = new WireMockServer(options().port(8090).globalTemplating(true));
+    WiremockServiceImpl.setupOauthMocks(wireMockServer, false);
+    wireMockServer.start();
+  }
+
+  @AfterAll
+  public static void teardownWiremock() {
+    wireMockServer.stop();
+  }
+
+  @Test
+  public void compare_thread_modes() throws Exception {
+    run("platform", "integration");
+    run("platform pool=30", "integration", "--spring.datasource.hikari.maximum-pool-size=30");
+    run("virtual", "integration,virtualthreads");
+  }
+
+  private void run(String mode, String profiles, String... extraArgs) throws Exception {
+    List<String> args = new ArrayList<>();
+    args.add("--spring.profiles.active=" + profiles);
+    args.add("--server.port=0");
+    args.add(
+        "--spring.security.oauth2.client.registration.my-oauth-provider.redirect-uri="
+            + "{baseUrl}/login/oauth2/code/{registrationId}");
+    args.add("--logging.level.sql=WARN");
+    args.add("--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    args.addAll(Arrays.asList(extraArgs));
+
+    injectLatency = false;
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(ExampleApplication.class)
+            .initializers(c -> c.getBeanFactory().addBeanPostProcessor(new SlowDatabase()))
+            .run(args.toArray(String[]::new))) {
+      context
+          .getBean(RestaurantRepository.class)
+          .save(Restaurant.builder().name("Taco Bell").description("Mexican").build());
+
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      String base = "http://localhost:" + port;
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      String cookie = login(client, base);
+      HttpRequest request =
+          HttpRequest.newBuilder(URI.create(base + "/api/restaurants?id=1"))
+              .header("Cookie", cookie)
+              .build();
+      assertEquals(200, client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+      injectLatency = true;
+      for (int clients : CLIENTS) {
+        load(client, request, clients, WARMUP);
+        Result result = load(client, request, clients, MEASURE);
+        log.info(
+            "thread mode load test: mode={} clients={} throughput={}/s p50={}ms p99={}ms errors={}",
+            mode,
+            clients,
+            "%.0f".formatted(result.count() / (double) MEASURE.toSeconds()),
+            "%.1f".formatted(result.percentile(0.50)),
+            "%.1f".formatted(result.percentile(0.99)),
+            result.errors());
+      }
+    }
+  }
+
+  /** Go through the OAuth authorization code flow against wiremock and return the session cookie */
+  private static String login(HttpClient client, String base) throws Exception {
+    HttpResponse<Void> authorize =
+        client.send(
+            HttpRequest.newBuilder(URI.create(base + "/oauth2/authorization/my-oauth-provider"))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+    String location = authorize.headers().firstValue("Location").orElseThrow();
+    String state = queryParam(location, "state");
+    String redirectUri = queryParam(location, "redirect_uri");
+
+    HttpResponse<Void> callback =
+        client.send(
+            HttpRequest.newBuilder(
+                    URI.create(
+                        redirectUri
+                            + "?code=load-test&state="
+                            + URLEncoder.encode(state, StandardCharsets.UTF_8)))
+                .header("Cookie", sessionCookie(authorize))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+    assertEquals(302, callback.statusCode());
+    return sessionCookie(callback);
+  }
+
+  private static String sessionCookie(HttpResponse<?> response) {
+    return response.headers().allValues("Set-Cookie").stream()
+        .filter(c -> c.startsWith("JSESSIONID="))
+        .map(c -> c.substring(0, c.indexOf(';')))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static String queryParam(String url, String name) {
+    for (String pair : URI.create(url).getRawQuery().split("&")) {
+      if (pair.startsWith(name + "=")) {
+        return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+      }
+    }
+    throw new IllegalArgumentException(name + " not found in " + url);
+  }
+
+  private record Result(long[] latencies, int count, int errors) {
+    double percentile(double p) {
+      return latencies[Math.min(count - 1, (int) (count * p))] / 1_000_000.0;
+    }
+  }
+
+  private static Result load(HttpClient client, HttpRequest request, int clients, Duration time)
+      throws Exception {
+    long deadline = System.nanoTime() + time.toNanos();
+    AtomicInteger errors = new AtomicInteger();
+    List<Future<long[]>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < clients; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  long[] latencies = new long[1024];
+                  int n = 0;
+                  while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                      status =
+                          client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                      status = -1;
+                    }
+                    if (status != 200) {
+                      errors.incrementAndGet();
+                      continue;
+                    }
+                    if (n == latencies.length) {
+                      latencies = Arrays.copyOf(latencies, n * 2);
+                    }
+                    latencies[n++] = System.nanoTime() - start;
+                  }
+                  return Arrays.copyOf(latencies, n);
+                }));
+      }
+    }
+    long[] all = new long[0];
+    for (Future<long[]> future : futures) {
+      long[] latencies = future.get();
+      int offset = all.length;
+      all = Arrays.copyOf(all, offset + latencies.length);
+      System.arraycopy(latencies, 0, all, offset, latencies.length);
+    }
+    Arrays.sort(all);
+    assertTrue(all.length > 0, "no successful requests");
+    return new Result(all, all.length, errors.get());
+  }
+
+  /** Delays every JDBC statement execution by DB_LATENCY_MS once the load starts */
+  private static class SlowDatabase implements BeanPostProcessor {
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (bean instanceof DataSource dataSource) {
+        return proxy(
+            DataSource.class,
+            dataSource,
+            result ->
+                result instanceof Connection c ? proxy(Connection.class, c, this::slow) : result);
+      }
+      return bean;
+    }
+
+    private Object slow(Object result) {
+      if (result instanceof Statement statement) {
+        Class<? extends Statement> type = statement.getClass();
+        for (Class<?> iface : List.of(CallableStatement.class, PreparedStatement.class)) {
+          if (iface.isAssignableFrom(type)) {
+            return delaying(iface, statement);
+          }
+        }
+        return delaying(Statement.class, statement);
+      }
+      return result;
+    }
+
+    private static Object delaying(Class<?> iface, Object target) {
+      return Proxy.newProxyInstance(
+          iface.getClassLoader(),
+          new Class<?>[] {iface},
+          (p, method, args) -> {
+            if (injectLatency && method.getName().startsWith("execute")) {
+              Thread.sleep(DB_LATENCY_MS);
+            }
+            return invoke(target, method, args);
+          });
+    }
+
+    private static <T> T proxy(Class<T> iface, T target, UnaryOperator<Object> wrap) {
+      return iface.cast(
+          Proxy.newProxyInstance(
+              iface.getClassLoader(),
+              new Class<?>[] {iface},
+              (p, method, args) -> wrap.apply(invoke(target, method, args))));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UCSBDateBulkLoadService;
+import edu.ucsb.cs156.example.testconfig.Benchmark;
+import edu.ucsb.cs156.example.testconfig.PostgresDatabase;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Compares creating dates one POST /api/ucsbdates/post at a time with loading them all at once with
+ * UCSBDateBulkLoadService. The CSV is generated as it is read, so it is never in memory.
+ *
+ * <p>The database is the in-memory H2 one, where the bulk load uses batched INSERTs, unless {@code
+ * TEST_POSTGRES_URL} is set (see PostgresDatabase); then it is Postgres, and the bulk load uses
+ * COPY. See docs/benchmarks.md.
+ */
+@Slf4j
+@Benchmark
+// without the rate limit, which would otherwise allow only 5 POSTs a second
+@SpringBootTest(properties = {"logging.level.sql=INFO", "app.ratelimit.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class UCSBDateBulkLoadBenchmarkIT {
+  private static final int POSTED_ROWS = 2_000;
+  private static final int BULK_ROWS = 1_000_000;
+
+  @Autowired MockMvc mockMvc;
+
+  @Autowired UCSBDateBulkLoadService ucsbDateBulkLoadService;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockitoBean UserRepository userRepository;
+
+  @DynamicPropertySource
+  static void database(DynamicPropertyRegistry registry) throws SQLException {
+    if (System.getenv("TEST_POSTGRES_URL") != null) {
+      PostgresDatabase.register(registry);
+    }
+  }
+
+  /** CSV for {@code rows} dates, made a line at a time as it is read. */
+  private static InputStream csv(int rows) {
+    return new InputStream() {
+      private final LocalDateTime first = LocalDateTime.of(2024, 9, 26, 0, 0);
+      private byte[] line = "quarterYYYYQ,name,localDateTime\n".getBytes(StandardCharsets.UTF_8);
+      private int position;
+      private int row;
+
+      @Override
+      public int read() {
+        if (position == line.length) {
+          if (row == rows) {
+            return -1;
+          }
+          line =
+              "20244,date %d,%s\n"
+                  .formatted(row, first.plusMinutes(row))
+                  .getBytes(StandardCharsets.UTF_8);
+          position = 0;
+          row++;
+        }
+        return line[position++];
+      }
+    };
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void compare_one_post_per_date_and_bulk_load() throws Exception {
+    long start = System.nanoTime();
+    for (int i = 0; i < POSTED_ROWS; i++) {
+      mockMvc
+          .perform(
+              post("/api/ucsbdates/post")
+                  .param("quarterYYYYQ", "20244")
+                  .param("name", "date " + i)
+                  .param("localDateTime", "2024-09-26T00:00:00")
+                  .with(csrf()))
+          .andExpect(status().isOk());
+    }
+    double postedSeconds = (System.nanoTime() - start) / 1e9;
+    ucsbDateRepository.deleteAll();
+
+    BulkLoadResult result = ucsbDateBulkLoadService.load(csv(BULK_ROWS), false);
+    assertEquals(BULK_ROWS, result.getRows());
+    assertEquals(BULK_ROWS, ucsbDateRepository.count());
+
+    double bulkSeconds = result.getMillis() / 1e3;
+    log.info(
+        "bulk load benchmark: one POST per date: {} rows in {}s ({} rows/s, so {} rows would take"
+            + " {}s); bulk load ({}): {} rows in {}s ({} rows/s)",
+        POSTED_ROWS,
+        "%.2f".formatted(postedSeconds),
+        Math.round(POSTED_ROWS / postedSeconds),
+        BULK_ROWS,
+        Math.round(BULK_ROWS * postedSeconds / POSTED_ROWS),
+        result.getMethod(),
+        BULK_ROWS,
+        "%.2f".formatted(bulkSeconds),
+        Math.round(BULK_ROWS / bulkSeconds));
+    jdbcTemplate.update("DELETE FROM ucsbdates"); // deleteAll() would delete them one at a time
+  }
+}
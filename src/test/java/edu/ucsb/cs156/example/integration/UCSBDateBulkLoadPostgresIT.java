@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UCSBDateBulkLoadService;
+import edu.ucsb.cs156.example.testconfig.Postgres;
+import edu.ucsb.cs156.example.testconfig.PostgresDatabase;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/** Loads dates into Postgres, where UCSBDateBulkLoadService uses COPY rather than INSERTs. */
+@Postgres
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class UCSBDateBulkLoadPostgresIT {
+  private static final String HEADER = "quarterYYYYQ,name,localDateTime\n";
+
+  @Autowired UCSBDateBulkLoadService ucsbDateBulkLoadService;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @MockitoBean UserRepository userRepository;
+
+  @DynamicPropertySource
+  static void database(DynamicPropertyRegistry registry) throws SQLException {
+    PostgresDatabase.register(registry);
+  }
+
+  @AfterEach
+  public void teardown() {
+    ucsbDateRepository.deleteAll();
+  }
+
+  private BulkLoadResult load(String input, boolean json) {
+    return ucsbDateBulkLoadService.load(
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), json);
+  }
+
+  private List<UCSBDate> dates() {
+    return StreamSupport.stream(ucsbDateRepository.findAll().spliterator(), false).toList();
+  }
+
+  /** More rows than fit in one 64 KB chunk of COPY data. */
+  private static String rows(int count) {
+    StringBuilder rows = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      rows.append("20244,date %d %s,2024-09-26T00:00:00\n".formatted(i, "x".repeat(100)));
+    }
+    return rows.toString();
+  }
+
+  @Test
+  public void csv_is_copied() {
+    BulkLoadResult result =
+        load(
+            HEADER
+                + "20244,\"Veterans Day, observed\",2024-11-11T00:00\n"
+                + "20244,\"the \"\"last\"\" day\",2024-12-13T17:00:30\n"
+                + "20244,Día de los Muertos,2024-11-02T00:00:00\n"
+                + rows(1000),
+            false);
+
+    assertEquals(1003, result.getRows());
+    assertEquals("copy", result.getMethod());
+    List<UCSBDate> dates = dates();
+    assertEquals(1003, dates.size());
+    assertEquals(
+        List.of("Día de los Muertos", "Veterans Day, observed", "the \"last\" day"),
+        dates.stream().map(UCSBDate::getName).filter(n -> !n.startsWith("date")).sorted().toList());
+    UCSBDate last =
+        dates.stream().filter(d -> d.getName().equals("the \"last\" day")).findFirst().get();
+    assertEquals("20244", last.getQuarterYYYYQ());
+    assertEquals(LocalDateTime.parse("2024-12-13T17:00:30"), last.getLocalDateTime());
+  }
+
+  @Test
+  public void json_is_copied() {
+    BulkLoadResult result =
+        load(
+            """
+            [{"quarterYYYYQ": "20251", "name": "firstDayOfClasses",
+              "localDateTime": "2025-01-06T00:00:00"}]
+            """,
+            true);
+
+    assertEquals(1, result.getRows());
+    assertEquals("copy", result.getMethod());
+    assertEquals("firstDayOfClasses", dates().get(0).getName());
+  }
+
+  @Test
+  public void nothing_is_copied_when_a_row_is_invalid() {
+    // some chunks have already been sent when the bad row is read
+    assertEquals(
+        "row 1001: name is missing",
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> load(HEADER + rows(1000) + "20244,,2024-09-26T00:00:00\n", false))
+            .getMessage());
+    assertEquals(List.of(), dates());
+
+    // and the connection can be used again
+    assertEquals(1000, load(HEADER + rows(1000), false).getRows());
+  }
+}
@@ -0,0 +1,253 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.RestaurantView;
+import edu.ucsb.cs156.example.models.UCSBDateView;
+import edu.ucsb.cs156.example.models.UCSBDiningCommonsView;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Not transactional, so that the service reads in a transaction of its own
+@DataJpaTest(properties = {"app.db.jsonArrays.enabled=true", "app.db.jsonArrays.chunkRows=2"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(DatabaseJsonService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class DatabaseJsonServiceTests {
+
+  @Autowired private DatabaseJsonService databaseJsonService;
+
+  @Autowired private RestaurantRepository restaurantRepository;
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  @Autowired private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired private ObjectMapper mapper;
+
+  @MockitoBean WiremockService wiremockService; // needed by ExampleApplication
+
+  @AfterEach
+  public void teardown() {
+    restaurantRepository.deleteAll();
+    ucsbDateRepository.deleteAll();
+    ucsbDiningCommonsRepository.deleteAll();
+  }
+
+  private String write(DatabaseJsonService.Table table) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    databaseJsonService.write(table, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void h2_is_supported() {
+    assertTrue(databaseJsonService.isEnabled());
+    assertEquals(DatabaseJsonService.Dialect.H2, databaseJsonService.dialect());
+  }
+
+  /** A service whose database is behind {@code connection}. */
+  @SuppressWarnings("unchecked")
+  private static DatabaseJsonService service(Connection connection) {
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+        .thenAnswer(
+            invocation ->
+                invocation.getArgument(0, ConnectionCallback.class).doInConnection(connection));
+    DatabaseJsonService service = new DatabaseJsonService();
+    ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+    ReflectionTestUtils.setField(service, "enabled", true);
+    return service;
+  }
+
+  @Test
+  public void postgres_is_supported() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+    DatabaseJsonService service = service(connection);
+
+    assertTrue(service.isEnabled());
+    assertEquals(DatabaseJsonService.Dialect.POSTGRES, service.dialect());
+  }
+
+  @Test
+  public void other_databases_are_not_supported_and_only_checked_once() throws Exception {
+    Connection connection = mock(Connection.class, RETURNS_DEEP_STUBS);
+    when(connection.getMetaData().getDatabaseProductName()).thenReturn("MySQL");
+    DatabaseJsonService service = service(connection);
+
+    assertFalse(service.isEnabled());
+    assertFalse(service.isEnabled());
+    verify(connection, times(1)).isWrapperFor(PGConnection.class);
+  }
+
+  @Test
+  public void it_is_off_unless_enabled() {
+    ReflectionTestUtils.setField(databaseJsonService, "enabled", false);
+    try {
+      assertFalse(databaseJsonService.isEnabled());
+    } finally {
+      ReflectionTestUtils.setField(databaseJsonService, "enabled", true);
+    }
+  }
+
+  @Test
+  public void responses_are_utf8_json() throws Exception {
+    restaurantRepository.save(Restaurant.builder().name("Café").description("French").build());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    databaseJsonService.write(DatabaseJsonService.RESTAURANTS, response);
+
+    assertEquals("application/json;charset=UTF-8", response.getContentType());
+    assertEquals(
+        mapper.readTree(mapper.writeValueAsString(restaurantRepository.findAllViews())),
+        mapper.readTree(response.getContentAsString()));
+  }
+
+  @Test
+  public void errors_writing_the_response_are_thrown() {
+    OutputStream closed =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("closed");
+          }
+        };
+
+    assertEquals(
+        "closed",
+        assertThrows(
+                IOException.class,
+                () -> databaseJsonService.write(DatabaseJsonService.RESTAURANTS, closed))
+            .getMessage());
+  }
+
+  @Test
+  public void an_empty_table_is_an_empty_array() throws Exception {
+    assertEquals("[]", write(DatabaseJsonService.RESTAURANTS));
+  }
+
+  @Test
+  public void restaurants_are_written_as_jackson_would_in_chunks() throws Exception {
+    // 5 rows in chunks of 2: the last chunk is not full
+    for (int i = 0; i < 5; i++) {
+      restaurantRepository.save(
+          Restaurant.builder()
+              .name("Restaurant " + i)
+              .description(i == 3 ? null : "\"quoted\" \\ and ünicode " + i)
+              .build());
+    }
+    List<?> views =
+        restaurantRepository.findAllViews().stream()
+            .sorted(Comparator.comparing(RestaurantView::getId))
+            .toList();
+
+    assertEquals(
+        mapper.readTree(mapper.writeValueAsString(views)),
+        mapper.readTree(write(DatabaseJsonService.RESTAURANTS)));
+  }
+
+  @Test
+  public void dates_are_written_as_jackson_would() throws Exception {
+    // 4 rows in chunks of 2: the last chunk is full, and the one after it is empty
+    for (int i = 0; i < 4; i++) {
+      ucsbDateRepository.save(
+          UCSBDate.builder()
+              .quarterYYYYQ("20244")
+              .name("date " + i)
+              .localDateTime(LocalDateTime.of(2024, 9, 26, 0, 0).plusHours(i).plusSeconds(i))
+              .build());
+    }
+    List<?> views =
+        ucsbDateRepository.findAllViews().stream()
+            .sorted(Comparator.comparing(UCSBDateView::getId))
+            .toList();
+
+    String json = write(DatabaseJsonService.UCSBDATES);
+    assertEquals(mapper.readTree(mapper.writeValueAsString(views)), mapper.readTree(json));
+    assertTrue(json.contains("\"2024-09-26T01:00:01\""), json);
+  }
+
+  @Test
+  public void dining_commons_are_written_as_jackson_would() throws Exception {
+    ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build());
+    ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder().code("carrillo").name("Carrillo").hasSackMeal(false).build());
+    List<?> views =
+        ucsbDiningCommonsRepository.findAllViews().stream()
+            .sorted(Comparator.comparing(UCSBDiningCommonsView::getCode))
+            .toList();
+
+    assertEquals(
+        mapper.readTree(mapper.writeValueAsString(views)),
+        mapper.readTree(write(DatabaseJsonService.UCSBDININGCOMMONS)));
+  }
+
+  @Test
+  public void postgres_builds_each_chunk_with_json_agg() {
+    assertEquals(
+        "SELECT json_agg(json_build_object('id', t.id, 'quarterYYYYQ', t.quarteryyyyq,"
+            + " 'name', t.name, 'localDateTime', t.local_date_time, 'version', t.version)"
+            + " ORDER BY t.id), max(t.id), count(*)"
+            + " FROM (SELECT * FROM ucsbdates WHERE id > ? ORDER BY id LIMIT ?) t",
+        DatabaseJsonService.Dialect.POSTGRES.chunkQuery(DatabaseJsonService.UCSBDATES, false));
+    assertEquals(
+        "SELECT json_agg(json_build_object('code', t.code, 'name', t.name) ORDER BY t.code),"
+            + " max(t.code), count(*) FROM (SELECT * FROM commons ORDER BY code LIMIT ?) t",
+        DatabaseJsonService.Dialect.POSTGRES.chunkQuery(
+            new DatabaseJsonService.Table(
+                "commons",
+                "code",
+                List.of(
+                    DatabaseJsonService.Property.of("code", "code"),
+                    DatabaseJsonService.Property.of("name", "name"))),
+            true));
+  }
+}
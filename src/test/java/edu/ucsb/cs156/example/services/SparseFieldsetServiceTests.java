@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import edu.ucsb.cs156.example.config.JpaAuditingConfig;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({SparseFieldsetService.class, JpaAuditingConfig.class})
+public class SparseFieldsetServiceTests {
+
+  @Autowired private SparseFieldsetService sparseFieldsetService;
+
+  @Autowired private RestaurantRepository restaurantRepository;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private TestEntityManager testEntityManager;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @MockitoBean WiremockService wiremockService; // needed by ExampleApplication
+
+  private Statistics statistics;
+
+  @BeforeEach
+  public void setup() {
+    restaurantRepository.save(
+        Restaurant.builder().name("Taco Bell").description("Mexican").build());
+    restaurantRepository.save(
+        Restaurant.builder().name("McDonalds").description("American").build());
+    testEntityManager.flush();
+    testEntityManager.clear();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  public void fields_are_the_basic_attributes_that_appear_in_json() {
+    // createdBy is an association and is @JsonIgnore'd
+    assertEquals(
+        List.of("createdAt", "id", "log", "status", "updatedAt"),
+        List.copyOf(sparseFieldsetService.fieldsOf(Job.class)));
+    assertEquals(
+        Set.of(
+            "code",
+            "name",
+            "hasSackMeal",
+            "hasTakeOutMeal",
+            "hasDiningCam",
+            "latitude",
+            "longitude",
+            "version"),
+        sparseFieldsetService.fieldsOf(UCSBDiningCommons.class));
+  }
+
+  static class Hidden {
+    @JsonIgnore String secret;
+
+    String shown;
+  }
+
+  @Test
+  public void json_ignored_basic_attributes_cannot_be_requested() throws Exception {
+    Attribute<?, ?> secret = mock(Attribute.class);
+    when(secret.getPersistentAttributeType()).thenReturn(Attribute.PersistentAttributeType.BASIC);
+    when(secret.getJavaMember()).thenReturn(Hidden.class.getDeclaredField("secret"));
+    Attribute<?, ?> shown = mock(Attribute.class);
+    when(shown.getPersistentAttributeType()).thenReturn(Attribute.PersistentAttributeType.BASIC);
+    when(shown.getJavaMember()).thenReturn(Hidden.class.getDeclaredField("shown"));
+
+    assertFalse(SparseFieldsetService.requestable(secret));
+    assertTrue(SparseFieldsetService.requestable(shown));
+  }
+
+  @Test
+  public void only_the_requested_fields_are_loaded_in_the_order_requested() {
+    // act
+    List<Map<String, Object>> rows =
+        sparseFieldsetService.findAll(Restaurant.class, List.of("name", "id", "name"));
+
+    // assert
+    assertEquals(2, rows.size());
+    assertEquals(List.of("name", "id"), List.copyOf(rows.get(0).keySet()));
+    assertEquals(
+        Set.of("Taco Bell", "McDonalds"), Set.of(rows.get(0).get("name"), rows.get(1).get("name")));
+    // a projection never builds entities
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(1, statistics.getQueryExecutionCount());
+  }
+
+  @Test
+  public void only_the_rows_that_meet_the_condition_are_loaded() {
+    // the jobs list is restricted to recent jobs, which needs auditing to set createdAt
+    ZonedDateTime before = ZonedDateTime.now().minusSeconds(1);
+    jobsRepository.save(Job.builder().status("complete").build());
+
+    assertEquals(
+        List.of(Map.of("name", "Taco Bell")),
+        sparseFieldsetService.findAll(
+            Restaurant.class, List.of("name"), (cb, r) -> cb.equal(r.get("name"), "Taco Bell")));
+    assertEquals(
+        List.of(Map.of("status", "complete")),
+        sparseFieldsetService.findAll(
+            Job.class,
+            List.of("status"),
+            (cb, job) -> cb.greaterThanOrEqualTo(job.<ZonedDateTime>get("createdAt"), before)));
+  }
+
+  @Test
+  public void unknown_fields_are_rejected() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> sparseFieldsetService.findAll(Job.class, List.of("id", "createdBy", "owner")));
+    assertEquals(
+        "unknown fields [createdBy, owner]; fields must be chosen from"
+            + " [createdAt, id, log, status, updatedAt]",
+        e.getMessage());
+    assertEquals(0, statistics.getQueryExecutionCount());
+  }
+}
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.ucsb.cs156.example.models.SystemInfo;
@@ -30,6 +31,7 @@ class SystemInfoServiceImplTests {
     assertTrue(si.getGithubUrl().startsWith(si.getSourceRepo()));
     assertTrue(si.getGithubUrl().endsWith(si.getCommitId()));
     assertTrue(si.getGithubUrl().contains("/commit/"));
+    assertSame(si, systemInfoService.getSystemInfo());
   }
 
   @Test
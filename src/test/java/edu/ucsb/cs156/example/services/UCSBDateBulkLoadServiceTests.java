@@ -0,0 +1,320 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.config.EntityCacheConfig;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Not transactional, so that each load commits (or rolls back) on its own
+@DataJpaTest(properties = {"app.entitycache.enabled=true", "app.ucsbdates.bulkLoad.batchSize=2"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UCSBDateBulkLoadService.class, EntityCacheConfig.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class UCSBDateBulkLoadServiceTests {
+
+  @Autowired private UCSBDateBulkLoadService ucsbDateBulkLoadService;
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  @MockitoBean WiremockService wiremockService; // needed by ExampleApplication
+
+  @AfterEach
+  public void teardown() {
+    ucsbDateRepository.deleteAll();
+  }
+
+  private BulkLoadResult load(String input, boolean json) {
+    return ucsbDateBulkLoadService.load(
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), json);
+  }
+
+  private List<String> names() {
+    return StreamSupport.stream(ucsbDateRepository.findAll().spliterator(), false)
+        .map(UCSBDate::getName)
+        .sorted()
+        .toList();
+  }
+
+  @Test
+  public void csv_is_loaded_in_batches() {
+    // the list is cached before the load, and must not be served stale after it
+    assertEquals(List.of(), names());
+
+    BulkLoadResult result =
+        load(
+            "name,localDateTime,quarterYYYYQ\r\n"
+                + "firstDayOfClasses,2024-09-26T00:00:00,20244\r\n"
+                + "\"Veterans Day, observed\",2024-11-11T00:00,20244\r\n"
+                + "\"the \"\"last\"\" day\",2024-12-13T17:00:00,20244\r\n"
+                + "\n",
+            false);
+
+    assertEquals(3, result.getRows());
+    assertEquals("batch", result.getMethod());
+    assertEquals(
+        List.of("Veterans Day, observed", "firstDayOfClasses", "the \"last\" day"), names());
+    UCSBDate last = ucsbDateRepository.findAllByQuarterYYYYQ("20244").iterator().next();
+    assertEquals(0, last.getVersion());
+  }
+
+  @Test
+  public void json_is_loaded() {
+    BulkLoadResult result =
+        load(
+            """
+            [
+              {"quarterYYYYQ": "20251", "name": "firstDayOfClasses",
+               "localDateTime": "2025-01-06T00:00:00"},
+              {"localDateTime": "2025-03-14T00:00:00", "name": "lastDayOfClasses",
+               "quarterYYYYQ": 20251}
+            ]
+            """,
+            true);
+
+    assertEquals(2, result.getRows());
+    UCSBDate last =
+        StreamSupport.stream(ucsbDateRepository.findAll().spliterator(), false)
+            .filter(d -> d.getName().equals("lastDayOfClasses"))
+            .findFirst()
+            .get();
+    assertEquals("20251", last.getQuarterYYYYQ());
+    assertEquals(LocalDateTime.parse("2025-03-14T00:00:00"), last.getLocalDateTime());
+  }
+
+  @Test
+  public void nothing_is_loaded_when_a_row_is_invalid() {
+    String header = "quarterYYYYQ,name,localDateTime\n";
+    String good = "20244,firstDayOfClasses,2024-09-26T00:00:00\n";
+
+    // the first two rows have already been sent as a batch when the bad one is read
+    assertEquals(
+        "row 3: quarterYYYYQ 20245 is not a year and quarter 1-4, e.g. 20244",
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> load(header + good + good + "20245,x,2024-09-26T00:00:00\n", false))
+            .getMessage());
+    assertEquals(
+        "row 2: localDateTime 2024-09-26 is not an ISO date and time, e.g. 2024-09-26T00:00:00",
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> load(header + good + "20244,x,2024-09-26\n", false))
+            .getMessage());
+    assertEquals(
+        "row 2: expected 3 values, not 2",
+        assertThrows(IllegalArgumentException.class, () -> load(header + good + "20244,x\n", false))
+            .getMessage());
+    assertEquals(
+        "row 1: name is missing",
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> load("[{\"quarterYYYYQ\": \"20244\", \"localDateTime\": \"x\"}]", true))
+            .getMessage());
+    assertEquals(
+        "row 1: unknown field id; fields are [quarterYYYYQ, name, localDateTime]",
+        assertThrows(IllegalArgumentException.class, () -> load("[{\"id\": 1}]", true))
+            .getMessage());
+
+    assertEquals(List.of(), names());
+  }
+
+  @Test
+  public void malformed_input_is_rejected() {
+    assertEquals(
+        "the first line must name the columns [quarterYYYYQ, name, localDateTime], in any order,"
+            + " not [quarterYYYYQ, name]",
+        assertThrows(IllegalArgumentException.class, () -> load("quarterYYYYQ,name\n", false))
+            .getMessage());
+    assertEquals(
+        "expected a JSON array of dates",
+        assertThrows(IllegalArgumentException.class, () -> load("{}", true)).getMessage());
+    assertThrows(IllegalArgumentException.class, () -> load("[{\"name\": ", true));
+  }
+
+  @Test
+  public void more_invalid_rows_are_rejected() {
+    String header = "quarterYYYYQ,name,localDateTime\n";
+    assertEquals(
+        "row 1: quarterYYYYQ null is not a year and quarter 1-4, e.g. 20244",
+        assertThrows(IllegalArgumentException.class, () -> load("[{\"name\": \"x\"}]", true))
+            .getMessage());
+    assertEquals(
+        "row 1: name is missing",
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> load(header + "20244, ,2024-09-26T00:00:00\n", false))
+            .getMessage());
+    assertEquals(
+        "row 1: localDateTime null is not an ISO date and time, e.g. 2024-09-26T00:00:00",
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> load("[{\"quarterYYYYQ\": \"20244\", \"name\": \"x\"}]", true))
+            .getMessage());
+    assertEquals(
+        "row 1: name must be a string",
+        assertThrows(IllegalArgumentException.class, () -> load("[{\"name\": [\"x\"]}]", true))
+            .getMessage());
+    assertEquals(
+        "row 1: expected a JSON object",
+        assertThrows(IllegalArgumentException.class, () -> load("[\"x\"]", true)).getMessage());
+    assertEquals(List.of(), names());
+  }
+
+  @Test
+  public void csv_headers_must_name_each_field_once() {
+    assertEquals(
+        "the first line must name the columns [quarterYYYYQ, name, localDateTime], in any order,"
+            + " not null",
+        assertThrows(IllegalArgumentException.class, () -> load("", false)).getMessage());
+    assertThrows(
+        IllegalArgumentException.class, () -> load("quarterYYYYQ,name,localDateTime,id\n", false));
+    assertThrows(IllegalArgumentException.class, () -> load("quarterYYYYQ,name,name\n", false));
+  }
+
+  @Test
+  public void a_failed_read_loads_nothing() {
+    InputStream failing =
+        new SequenceInputStream(
+            new ByteArrayInputStream(
+                "quarterYYYYQ,name,localDateTime\n20244,x,2024-09-26T00:00:00\n"
+                    .getBytes(StandardCharsets.UTF_8)),
+            new InputStream() {
+              @Override
+              public int read() throws IOException {
+                throw new IOException("connection reset");
+              }
+            });
+
+    assertEquals(
+        "connection reset",
+        assertThrows(UncheckedIOException.class, () -> ucsbDateBulkLoadService.load(failing, false))
+            .getCause()
+            .getMessage());
+    assertEquals(List.of(), names());
+  }
+
+  /** A Postgres connection whose COPY data is written to {@code copied}. */
+  private static Connection postgres(CopyIn copyIn, ByteArrayOutputStream copied) throws Exception {
+    Connection connection = mock(Connection.class);
+    PGConnection pgConnection = mock(PGConnection.class);
+    CopyManager copyManager = mock(CopyManager.class);
+    when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+    when(copyManager.copyIn(UCSBDateBulkLoadService.COPY_SQL)).thenReturn(copyIn);
+    doAnswer(
+            invocation -> {
+              copied.write(
+                  invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+              return null;
+            })
+        .when(copyIn)
+        .writeToCopy(any(byte[].class), anyInt(), anyInt());
+    return connection;
+  }
+
+  private BulkLoadResult load(Connection connection, String input) throws Exception {
+    return ucsbDateBulkLoadService.load(
+        connection, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), false);
+  }
+
+  @Test
+  public void rows_are_copied_to_postgres_as_csv_in_chunks() throws Exception {
+    CopyIn copyIn = mock(CopyIn.class);
+    ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    when(copyIn.endCopy()).thenReturn(1002L);
+    String name = "x".repeat(100);
+
+    BulkLoadResult result =
+        load(
+            postgres(copyIn, copied),
+            "quarterYYYYQ,name,localDateTime\n"
+                + "20244,\"the \"\"last\"\" day, observed\",2024-12-13T17:00:00\n"
+                + "20244,Día de los Muertos,2024-11-02T00:00\n"
+                + "20244,%s,2024-09-26T00:00:00\n".formatted(name).repeat(1000));
+
+    assertEquals(1002, result.getRows());
+    assertEquals("copy", result.getMethod());
+    // the rows fill one 64 KB chunk before the end
+    verify(copyIn, times(2)).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    assertEquals(
+        "\"20244\",\"the \"\"last\"\" day, observed\",2024-12-13T17:00\n"
+            + "\"20244\",\"Día de los Muertos\",2024-11-02T00:00\n"
+            + "\"20244\",\"%s\",2024-09-26T00:00\n".formatted(name).repeat(1000),
+        copied.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void an_invalid_row_cancels_the_copy() throws Exception {
+    CopyIn copyIn = mock(CopyIn.class);
+    when(copyIn.isActive()).thenReturn(true);
+    Connection connection = postgres(copyIn, new ByteArrayOutputStream());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> load(connection, "quarterYYYYQ,name,localDateTime\n20245,x,2024-09-26T00:00\n"));
+
+    verify(copyIn).cancelCopy();
+    verify(copyIn, never()).endCopy();
+  }
+
+  @Test
+  public void a_copy_that_has_already_ended_is_not_cancelled() throws Exception {
+    CopyIn copyIn = mock(CopyIn.class);
+    Connection connection = postgres(copyIn, new ByteArrayOutputStream());
+
+    assertThrows(IllegalArgumentException.class, () -> load(connection, "id\n"));
+
+    verify(copyIn, never()).cancelCopy();
+  }
+
+  @Test
+  public void quoted_csv_values_may_span_lines() throws Exception {
+    UCSBDateBulkLoadService.CsvReader csv =
+        new UCSBDateBulkLoadService.CsvReader(new StringReader("a,\"b\nc\",\"\"\r\n\r\n,d"));
+
+    assertEquals(List.of("a", "b\nc", ""), csv.next());
+    assertEquals(List.of("", "d"), csv.next());
+    assertNull(csv.next());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new UCSBDateBulkLoadService.CsvReader(new StringReader("\"a")).next());
+  }
+}
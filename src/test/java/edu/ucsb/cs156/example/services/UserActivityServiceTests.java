@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class UserActivityServiceTests {
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks private UserActivityService userActivityService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  void flush_with_nothing_pending_does_not_touch_database() {
+    assertEquals(0, userActivityService.flush());
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void flush_writes_one_row_per_distinct_user_with_latest_time() {
+    // arrange
+    ZonedDateTime t1 = ZonedDateTime.parse("2025-01-01T10:00:00Z");
+    ZonedDateTime t2 = ZonedDateTime.parse("2025-01-01T10:00:05Z");
+    userActivityService.recordActivity(1L, t1);
+    userActivityService.recordActivity(1L, t2);
+    userActivityService.recordActivity(1L, t1);
+    userActivityService.recordActivity(2L, t1);
+    assertEquals(2, userActivityService.pendingCount());
+
+    // act
+    int written = userActivityService.flush();
+
+    // assert
+    assertEquals(2, written);
+    assertEquals(0, userActivityService.pendingCount());
+    ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate, times(1))
+        .batchUpdate(eq(UserActivityService.UPDATE_SQL), captor.capture());
+    List<Object[]> batch = captor.getValue();
+    assertEquals(2, batch.size());
+    for (Object[] row : batch) {
+      Timestamp expected = Timestamp.from((row[1].equals(1L) ? t2 : t1).toInstant());
+      assertEquals(expected, row[0]);
+    }
+  }
+
+  @Test
+  void failed_flush_keeps_activity_for_retry() {
+    // arrange
+    ZonedDateTime t1 = ZonedDateTime.parse("2025-01-01T10:00:00Z");
+    userActivityService.recordActivity(1L, t1);
+    when(jdbcTemplate.batchUpdate(eq(UserActivityService.UPDATE_SQL), anyList()))
+        .thenThrow(new DataAccessResourceFailureException("db down"));
+
+    // act
+    int written = userActivityService.flush();
+
+    // assert
+    assertEquals(0, written);
+    assertEquals(1, userActivityService.pendingCount());
+  }
+
+  @Test
+  void recordActivity_without_time_uses_now_and_shutdown_flushes() {
+    userActivityService.recordActivity(3L);
+    assertEquals(1, userActivityService.pendingCount());
+
+    userActivityService.flushOnShutdown();
+
+    assertEquals(0, userActivityService.pendingCount());
+    verify(jdbcTemplate, times(1)).batchUpdate(eq(UserActivityService.UPDATE_SQL), anyList());
+  }
+}
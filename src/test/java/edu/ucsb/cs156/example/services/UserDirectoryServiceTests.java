@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class UserDirectoryServiceTests {
+
+  @Mock private UserRepository userRepository;
+
+  @InjectMocks private UserDirectoryService userDirectoryService;
+
+  private final User phill =
+      User.builder()
+          .id(1L)
+          .email("phtcon@ucsb.edu")
+          .fullName("Phill Conrad")
+          .givenName("Phill")
+          .familyName("Conrad")
+          .build();
+
+  private final User chris =
+      User.builder()
+          .id(2L)
+          .email("cgaucho@ucsb.edu")
+          .fullName("Chris Gaucho")
+          .givenName("Chris")
+          .familyName("Gaucho")
+          .build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(userRepository.findAll()).thenReturn(Arrays.asList(phill, chris));
+    userDirectoryService.rebuild();
+  }
+
+  @Test
+  void rebuild_indexes_all_users() {
+    assertEquals(2, userDirectoryService.size());
+  }
+
+  @Test
+  void search_matches_any_field_ignoring_case() {
+    assertEquals(List.of(phill), userDirectoryService.search("PHT", 10));
+    assertEquals(List.of(phill), userDirectoryService.search("con", 10));
+    assertEquals(List.of(chris), userDirectoryService.search(" Chris G", 10));
+    assertEquals(List.of(chris, phill), userDirectoryService.search("c", 10));
+  }
+
+  @Test
+  void search_returns_each_user_once_and_respects_limit() {
+    // "phill" matches both fullName and givenName of the same user
+    assertEquals(List.of(phill), userDirectoryService.search("phill", 10));
+    assertEquals(1, userDirectoryService.search("c", 1).size());
+  }
+
+  @Test
+  void search_with_empty_or_null_prefix_returns_nothing() {
+    assertTrue(userDirectoryService.search("", 10).isEmpty());
+    assertTrue(userDirectoryService.search("   ", 10).isEmpty());
+    assertTrue(userDirectoryService.search(null, 10).isEmpty());
+    assertTrue(userDirectoryService.search("zzz", 10).isEmpty());
+  }
+
+  @Test
+  void put_reindexes_updated_user_and_adds_new_user() {
+    User renamed = User.builder().id(2L).email("chris@ucsb.edu").fullName("Chris Storke").build();
+    User added = User.builder().id(3L).email("new@ucsb.edu").build();
+
+    userDirectoryService.put(renamed);
+    userDirectoryService.put(added);
+
+    assertEquals(3, userDirectoryService.size());
+    assertTrue(userDirectoryService.search("cgaucho", 10).isEmpty());
+    assertTrue(userDirectoryService.search("gaucho", 10).isEmpty());
+    assertEquals(List.of(renamed), userDirectoryService.search("chris s", 10));
+    assertEquals(List.of(added), userDirectoryService.search("new", 10));
+  }
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Marks a benchmark: a test class that measures and logs how fast something is rather than checking
+ * what it does. Benchmarks can take minutes and gigabytes, so they are skipped unless the {@code
+ * benchmark} system property is true, e.g. {@code mvn test -Dtest=CsrfCookieBenchmarkIT
+ * -Dbenchmark=true}. See docs/benchmarks.md.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public @interface Benchmark {}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+/**
+ * Marks a test class that needs a real Postgres server, for what H2 cannot check, e.g. COPY. It is
+ * skipped unless the {@code TEST_POSTGRES_URL} environment variable is set, as it is in the
+ * integration workflow. See PostgresDatabase.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("postgres")
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = ".+")
+public @interface Postgres {}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+/**
+ * Makes empty databases for {@link Postgres} tests, on the server that {@code TEST_POSTGRES_URL}
+ * (e.g. {@code jdbc:postgresql://localhost:5432/postgres}) points to, as {@code
+ * TEST_POSTGRES_USERNAME} with {@code TEST_POSTGRES_PASSWORD}. Each test class gets its own
+ * database, so they do not see each other's rows. The databases are not dropped afterwards.
+ */
+public final class PostgresDatabase {
+  private static final Pattern URL = Pattern.compile("(jdbc:postgresql://[^/]*/)([^?]*)(.*)");
+
+  private PostgresDatabase() {}
+
+  public static String username() {
+    return System.getenv().getOrDefault("TEST_POSTGRES_USERNAME", "postgres");
+  }
+
+  public static String password() {
+    return System.getenv().getOrDefault("TEST_POSTGRES_PASSWORD", "");
+  }
+
+  /**
+   * Creates a database.
+   *
+   * @return its JDBC URL
+   */
+  public static String create() throws SQLException {
+    String url = System.getenv("TEST_POSTGRES_URL");
+    Matcher matcher = URL.matcher(url);
+    if (!matcher.matches()) {
+      throw new IllegalStateException("TEST_POSTGRES_URL is not a jdbc:postgresql URL: " + url);
+    }
+    String name = "test_" + UUID.randomUUID().toString().replace("-", "");
+    try (Connection connection = DriverManager.getConnection(url, username(), password());
+        Statement statement = connection.createStatement()) {
+      statement.execute("CREATE DATABASE " + name);
+    }
+    return matcher.group(1) + name + matcher.group(3);
+  }
+
+  /** Points the app at a new database, which Liquibase then migrates as usual. */
+  public static void register(DynamicPropertyRegistry registry) throws SQLException {
+    String url = create();
+    registry.add("spring.datasource.url", () -> url);
+    registry.add("spring.datasource.username", PostgresDatabase::username);
+    registry.add("spring.datasource.password", PostgresDatabase::password);
+    registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the SQL statements that Hibernate sends to the database, using its statistics.
+ *
+ * <p>Call {@link #reset} before the code being measured and {@link #assertStatements} after it.
+ * Statements sent without Hibernate (e.g. by a JdbcTemplate) are not counted.
+ */
+public class QueryCounter {
+  private final Statistics statistics;
+
+  public QueryCounter(EntityManagerFactory entityManagerFactory) {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+  }
+
+  /** Starts counting again from zero. */
+  public void reset() {
+    statistics.clear();
+  }
+
+  /**
+   * The number of SQL statements sent since the last {@link #reset}.
+   *
+   * @return the number of JDBC statements Hibernate prepared
+   */
+  public long getStatements() {
+    return statistics.getPrepareStatementCount();
+  }
+
+  /**
+   * Fails unless exactly the expected number of SQL statements was sent since the last {@link
+   * #reset}; the failure says which queries were run.
+   *
+   * @param expected the number of statements
+   * @param what what was measured, for the failure message
+   */
+  public void assertStatements(long expected, String what) {
+    assertEquals(expected, getStatements(), () -> "SQL statements for " + what + ": " + describe());
+  }
+
+  private String describe() {
+    return "entities loaded=%d fetched=%d inserted=%d updated=%d deleted=%d; queries [%s]"
+        .formatted(
+            statistics.getEntityLoadCount(),
+            statistics.getEntityFetchCount(),
+            statistics.getEntityInsertCount(),
+            statistics.getEntityUpdateCount(),
+            statistics.getEntityDeleteCount(),
+            String.join(", ", statistics.getQueries()));
+  }
+}
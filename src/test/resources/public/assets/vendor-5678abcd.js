@@ -0,0 +1,21 @@
+// larger than app.static.cacheMaxFileBytes in StaticResourceConfigTests
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");
+console.log("vendor");